@@ -1,16 +1,31 @@
 package com.openwt.boatapp.config;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
 import org.springframework.aop.interceptor.SimpleAsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.task.TaskExecutionProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.core.task.support.TaskExecutorAdapter;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import tech.jhipster.async.ExceptionHandlingAsyncTaskExecutor;
 
@@ -23,13 +38,45 @@ public class AsyncConfiguration implements AsyncConfigurer {
 
     private final TaskExecutionProperties taskExecutionProperties;
 
-    public AsyncConfiguration(TaskExecutionProperties taskExecutionProperties) {
+    private final Environment env;
+
+    private final int authenticationPoolSize;
+
+    private final int authenticationQueueCapacity;
+
+    private final int imageDerivativePoolSize;
+
+    private final int imageDerivativeQueueCapacity;
+
+    public AsyncConfiguration(
+        TaskExecutionProperties taskExecutionProperties,
+        Environment env,
+        @Value("${boatapp.security.authentication.executor.pool-size}") int authenticationPoolSize,
+        @Value("${boatapp.security.authentication.executor.queue-capacity}") int authenticationQueueCapacity,
+        @Value("${boatapp.image-store.derivatives.executor.pool-size}") int imageDerivativePoolSize,
+        @Value("${boatapp.image-store.derivatives.executor.queue-capacity}") int imageDerivativeQueueCapacity
+    ) {
         this.taskExecutionProperties = taskExecutionProperties;
+        this.env = env;
+        this.authenticationPoolSize = authenticationPoolSize;
+        this.authenticationQueueCapacity = authenticationQueueCapacity;
+        this.imageDerivativePoolSize = imageDerivativePoolSize;
+        this.imageDerivativeQueueCapacity = imageDerivativeQueueCapacity;
     }
 
+    /**
+     * Executor of the {@code @Async} methods, like the mails of {@link com.openwt.boatapp.service.MailService}. With the
+     * {@value Constants#SPRING_PROFILE_VIRTUAL_THREADS} profile on Java 21 or later, each task runs on its own virtual
+     * thread, so that tasks blocked on the SMTP server or the database do not queue behind each other.
+     */
     @Override
     @Bean(name = "taskExecutor")
     public Executor getAsyncExecutor() {
+        if (env.acceptsProfiles(Profiles.of(Constants.SPRING_PROFILE_VIRTUAL_THREADS)) && VirtualThreads.isSupported()) {
+            log.debug("Creating Virtual Thread Async Task Executor");
+            String threadNamePrefix = taskExecutionProperties.getThreadNamePrefix();
+            return new ExceptionHandlingAsyncTaskExecutor(new TaskExecutorAdapter(VirtualThreads.newExecutor(threadNamePrefix)));
+        }
         log.debug("Creating Async Task Executor");
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(taskExecutionProperties.getPool().getCoreSize());
@@ -39,6 +86,96 @@ public class AsyncConfiguration implements AsyncConfigurer {
         return new ExceptionHandlingAsyncTaskExecutor(executor);
     }
 
+    /**
+     * Executor of the password verifications of {@code /api/authenticate}, so that a burst of logins can not hold
+     * every web server thread. At most {@code pool-size} passwords are hashed at once, and at most
+     * {@code queue-capacity}, possibly 0, logins wait for a thread; further logins are rejected with a
+     * {@link RejectedExecutionException}. The time logins wait is measured by the {@code executor.idle} timer of the
+     * {@code authentication} executor metrics.
+     * <p>
+     * With a {@code pool-size} of 0, passwords are verified on the calling thread.
+     */
+    @Bean(name = "authenticationExecutor")
+    public Executor authenticationExecutor(MeterRegistry meterRegistry) {
+        if (authenticationPoolSize == 0) {
+            log.debug("Verifying passwords on the request threads");
+            return Runnable::run;
+        }
+        log.debug("Creating Authentication Executor");
+        Counter rejected = Counter
+            .builder("boatapp.authentication.rejected")
+            .description("The number of logins rejected because the authentication executor was saturated")
+            .register(meterRegistry);
+        return boundedExecutor(
+            "authentication",
+            authenticationPoolSize,
+            authenticationQueueCapacity,
+            new CustomizableThreadFactory("boat-app-authentication-"),
+            (task, pool) -> {
+                rejected.increment();
+                throw new RejectedExecutionException("Too many concurrent logins");
+            },
+            meterRegistry
+        );
+    }
+
+    /**
+     * Executor resizing the boat pictures, so that decoding large pictures neither delays the requests nor competes
+     * with the {@code @Async} tasks. At most {@code pool-size} pictures are resized at once, and at most
+     * {@code queue-capacity}, possibly 0, wait for a thread; further pictures are skipped until they are requested again.
+     * <p>
+     * With a {@code pool-size} of 0, pictures are resized on the calling thread.
+     */
+    @Bean(name = "imageDerivativeExecutor")
+    public Executor imageDerivativeExecutor(MeterRegistry meterRegistry) {
+        if (imageDerivativePoolSize == 0) {
+            log.debug("Resizing pictures on the calling threads");
+            return Runnable::run;
+        }
+        log.debug("Creating Image Derivative Executor");
+        Counter rejected = Counter
+            .builder("boatapp.image-derivatives.rejected")
+            .description("The number of pictures not resized because the image derivative executor was saturated")
+            .register(meterRegistry);
+        return boundedExecutor(
+            "imageDerivative",
+            imageDerivativePoolSize,
+            imageDerivativeQueueCapacity,
+            new CustomizableThreadFactory("boat-app-image-"),
+            (task, pool) -> {
+                rejected.increment();
+                throw new RejectedExecutionException("Too many pictures waiting to be resized");
+            },
+            meterRegistry
+        );
+    }
+
+    /**
+     * Create a fixed size pool with a bounded queue, monitored as the {@code name} executor.
+     *
+     * @param queueCapacity the number of tasks waiting for a thread, possibly 0: tasks are then handed off to an idle
+     *                      thread, or rejected.
+     */
+    private static Executor boundedExecutor(
+        String name,
+        int poolSize,
+        int queueCapacity,
+        ThreadFactory threadFactory,
+        RejectedExecutionHandler rejectedExecutionHandler,
+        MeterRegistry meterRegistry
+    ) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            poolSize,
+            poolSize,
+            0L,
+            TimeUnit.MILLISECONDS,
+            queueCapacity == 0 ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(queueCapacity),
+            threadFactory,
+            rejectedExecutionHandler
+        );
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, name);
+    }
+
     @Override
     public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
         return new SimpleAsyncUncaughtExceptionHandler();
@@ -1,17 +1,38 @@
 package com.openwt.boatapp.config;
 
 import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.openwt.boatapp.config.cache.OffHeapStore;
+import com.openwt.boatapp.config.cache.TieredCache;
+import com.openwt.boatapp.config.cache.TieredCacheMetrics;
+import com.openwt.boatapp.domain.Boat;
 import com.openwt.boatapp.repository.UserRepository;
+import com.openwt.boatapp.service.BoatService;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.boot.info.BuildProperties;
 import org.springframework.boot.info.GitProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.support.SimpleCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import tech.jhipster.config.cache.PrefixedKeyGenerator;
@@ -24,30 +45,125 @@ public class CacheConfiguration {
     private BuildProperties buildProperties;
     private final Long maxEntries;
     private final Integer timeToLiveSeconds;
+    private final Integer refreshAfterWriteSeconds;
+    private final Long offHeapMaxBytes;
+    private final Integer offHeapSlabBytes;
+    private final ObjectProvider<UserRepository> userRepository;
+    private final Long boatMaxEntries;
+    private final Integer boatTimeToLiveSeconds;
+    private final Long boatQueriesMaxEntries;
+    private final Integer boatQueriesTimeToLiveSeconds;
 
     public CacheConfiguration(
         @Value("${boatapp.cache.caffeine.max-entries}") Long maxEntries,
-        @Value("${boatapp.cache.caffeine.time-to-live-seconds}") Integer timeToLiveSeconds
+        @Value("${boatapp.cache.caffeine.time-to-live-seconds}") Integer timeToLiveSeconds,
+        @Value("${boatapp.cache.caffeine.refresh-after-write-seconds}") Integer refreshAfterWriteSeconds,
+        @Value("${boatapp.cache.off-heap.max-bytes}") Long offHeapMaxBytes,
+        @Value("${boatapp.cache.off-heap.slab-bytes}") Integer offHeapSlabBytes,
+        @Value("${boatapp.cache.boat.max-entries}") Long boatMaxEntries,
+        @Value("${boatapp.cache.boat.time-to-live-seconds}") Integer boatTimeToLiveSeconds,
+        @Value("${boatapp.cache.boat-queries.max-entries}") Long boatQueriesMaxEntries,
+        @Value("${boatapp.cache.boat-queries.time-to-live-seconds}") Integer boatQueriesTimeToLiveSeconds,
+        ObjectProvider<UserRepository> userRepository
     ) {
         this.maxEntries = maxEntries;
         this.timeToLiveSeconds = timeToLiveSeconds;
+        this.refreshAfterWriteSeconds = refreshAfterWriteSeconds;
+        this.offHeapMaxBytes = offHeapMaxBytes;
+        this.offHeapSlabBytes = offHeapSlabBytes;
+        this.userRepository = userRepository;
+        this.boatMaxEntries = boatMaxEntries;
+        this.boatTimeToLiveSeconds = boatTimeToLiveSeconds;
+        this.boatQueriesMaxEntries = boatQueriesMaxEntries;
+        this.boatQueriesTimeToLiveSeconds = boatQueriesTimeToLiveSeconds;
     }
 
+    /**
+     * The user and boat lookups are cached in {@link TieredCache}s, which move the entries evicted from their
+     * {@code max-entries} on-heap tier into an off-heap tier of {@code off-heap.max-bytes}. The boat query results are
+     * short-lived pages, and stay on-heap.
+     */
     @Bean
     public CacheManager cacheManager() {
-        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager();
-        createCache(caffeineCacheManager, UserRepository.USERS_BY_LOGIN_CACHE);
-        createCache(caffeineCacheManager, UserRepository.USERS_BY_EMAIL_CACHE);
-        return caffeineCacheManager;
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(
+            List.of(
+                createTieredCache(
+                    UserRepository.USERS_BY_LOGIN_CACHE,
+                    login -> userRepository.getObject().loadOneWithAuthoritiesByLogin((String) login).orElse(null)
+                ),
+                createTieredCache(
+                    UserRepository.USERS_BY_EMAIL_CACHE,
+                    email -> userRepository.getObject().loadOneWithAuthoritiesByEmail((String) email).orElse(null)
+                ),
+                createTieredCache(BoatService.BOATS_BY_ID_CACHE, null),
+                createCache(BoatService.BOAT_QUERIES_CACHE)
+            )
+        );
+        return cacheManager;
     }
 
-    private void createCache(CaffeineCacheManager cm, String cacheName) {
+    private CaffeineCache createCache(String cacheName) {
         Cache<Object, Object> newCache = Caffeine
             .newBuilder()
             .maximumSize(this.maxEntries)
             .expireAfterWrite(this.timeToLiveSeconds, TimeUnit.SECONDS)
             .build();
-        cm.registerCustomCache(cacheName, newCache);
+        return new CaffeineCache(cacheName, newCache);
+    }
+
+    /**
+     * Create a two-tier cache. When a loader is given, the cache loads its missing entries itself, so that concurrent
+     * misses on a key share a single load, and reloads entries in the background once they are
+     * {@code refresh-after-write-seconds} old, so that hot entries are replaced before they expire. Loads run outside
+     * of the caller's transaction, so uncommitted data is never cached.
+     */
+    private TieredCache createTieredCache(String cacheName, CacheLoader<Object, Object> loader) {
+        Caffeine<Object, Object> near = Caffeine
+            .newBuilder()
+            .maximumSize(this.maxEntries)
+            .expireAfterWrite(this.timeToLiveSeconds, TimeUnit.SECONDS);
+        if (loader != null) {
+            near.refreshAfterWrite(this.refreshAfterWriteSeconds, TimeUnit.SECONDS);
+        }
+        OffHeapStore offHeap = new OffHeapStore(this.offHeapMaxBytes, this.offHeapSlabBytes);
+        return new TieredCache(cacheName, near, loader, offHeap, Duration.ofSeconds(this.timeToLiveSeconds));
+    }
+
+    @Bean
+    public CacheMeterBinderProvider<TieredCache> tieredCacheMeterBinderProvider() {
+        return TieredCacheMetrics::new;
+    }
+
+    /**
+     * JCache manager holding the Hibernate second-level cache regions.
+     * <p>
+     * The query results region only holds the ids returned by the {@link Boat} criteria queries; Hibernate checks them
+     * against the update timestamps region, which is why that region must never evict nor expire its entries.
+     */
+    @Bean(destroyMethod = "close")
+    public javax.cache.CacheManager hibernateCacheManager() {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        // One manager per application context, so that test contexts do not share regions
+        URI uri = URI.create("boatapp-hibernate-" + UUID.randomUUID());
+        javax.cache.CacheManager cm = provider.getCacheManager(uri, getClass().getClassLoader());
+        createRegion(cm, Boat.class.getName(), boatMaxEntries, boatTimeToLiveSeconds);
+        createRegion(cm, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, boatQueriesMaxEntries, boatQueriesTimeToLiveSeconds);
+        cm.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, new CaffeineConfiguration<>());
+        return cm;
+    }
+
+    private void createRegion(javax.cache.CacheManager cm, String regionName, Long maxEntries, Integer timeToLiveSeconds) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(timeToLiveSeconds)));
+        configuration.setStatisticsEnabled(true);
+        cm.createCache(regionName, configuration);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernatePropertiesCustomizer(javax.cache.CacheManager hibernateCacheManager) {
+        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
     }
 
     @Autowired(required = false)
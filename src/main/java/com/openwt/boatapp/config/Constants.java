@@ -13,6 +13,7 @@ public final class Constants {
     public static final String SPRING_PROFILE_DEVELOPMENT = "dev";
     public static final String SPRING_PROFILE_TEST = "test";
     public static final String SPRING_PROFILE_PRODUCTION = "prod";
+    public static final String SPRING_PROFILE_VIRTUAL_THREADS = "virtual-threads";
     public static final String SPRING_PROFILE_DEFAULT = "spring.profiles.default";
 
     private Constants() {}
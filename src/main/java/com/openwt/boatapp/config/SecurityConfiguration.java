@@ -2,7 +2,8 @@ package com.openwt.boatapp.config;
 
 import com.openwt.boatapp.security.AuthoritiesConstants;
 import com.openwt.boatapp.security.jwt.JWTConfigurer;
-import com.openwt.boatapp.security.jwt.TokenProvider;
+import com.openwt.boatapp.security.jwt.VerifiedTokenCache;
+import java.util.Map;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
@@ -14,6 +15,7 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.header.writers.ReferrerPolicyHeaderWriter;
@@ -25,28 +27,43 @@ import org.zalando.problem.spring.web.advice.security.SecurityProblemSupport;
 @Import(SecurityProblemSupport.class)
 public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 
+    private static final String BCRYPT_ID = "bcrypt";
+
     private final String securityPolicy;
 
-    private final TokenProvider tokenProvider;
+    private final int bcryptStrength;
+
+    private final VerifiedTokenCache verifiedTokenCache;
 
     private final CorsFilter corsFilter;
     private final SecurityProblemSupport problemSupport;
 
     public SecurityConfiguration(
-        TokenProvider tokenProvider,
+        VerifiedTokenCache verifiedTokenCache,
         CorsFilter corsFilter,
         SecurityProblemSupport problemSupport,
-        @Value("${boatapp.security.content-security-policy}") String securityPolicy
+        @Value("${boatapp.security.content-security-policy}") String securityPolicy,
+        @Value("${boatapp.security.authentication.password.bcrypt-strength}") int bcryptStrength
     ) {
-        this.tokenProvider = tokenProvider;
+        this.verifiedTokenCache = verifiedTokenCache;
         this.corsFilter = corsFilter;
         this.problemSupport = problemSupport;
         this.securityPolicy = securityPolicy;
+        this.bcryptStrength = bcryptStrength;
     }
 
+    /**
+     * Hashes are prefixed with the id of their encoder. On login, hashes encoded with another encoder, or with a lower
+     * BCrypt strength than {@code bcrypt-strength}, are transparently rehashed by the
+     * {@link com.openwt.boatapp.security.DomainUserDetailsService}.
+     * Hashes stored without prefix are BCrypt ones.
+     */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(BCRYPT_ID, Map.of(BCRYPT_ID, bcrypt));
+        passwordEncoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return passwordEncoder;
     }
 
     @Override
@@ -90,6 +107,8 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
             .and()
             .authorizeRequests()
             .antMatchers("/api/authenticate").permitAll()
+            .antMatchers("/api/authenticate/refresh").permitAll()
+            .antMatchers("/.well-known/jwks.json").permitAll()
             .antMatchers("/api/register").permitAll()
             .antMatchers("/api/activate").permitAll()
             .antMatchers("/api/account/reset-password/init").permitAll()
@@ -109,6 +128,6 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
     }
 
     private JWTConfigurer securityConfigurerAdapter() {
-        return new JWTConfigurer(tokenProvider);
+        return new JWTConfigurer(verifiedTokenCache);
     }
 }
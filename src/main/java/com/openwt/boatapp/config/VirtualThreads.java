@@ -0,0 +1,68 @@
+package com.openwt.boatapp.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to the virtual threads of Java 21 and later.
+ * <p>
+ * The application is compiled for Java 11, so the virtual thread API is looked up reflectively; on an older runtime
+ * {@link #isSupported()} is {@code false} and the callers keep their platform threads.
+ */
+final class VirtualThreads {
+
+    private static final int MINIMUM_JAVA_VERSION = 21;
+
+    private VirtualThreads() {}
+
+    /**
+     * @return whether the running JVM provides virtual threads.
+     */
+    static boolean isSupported() {
+        return Runtime.version().feature() >= MINIMUM_JAVA_VERSION;
+    }
+
+    /**
+     * Create a factory of virtual threads.
+     *
+     * @param namePrefix the prefix of the thread names, followed by a counter.
+     * @return the thread factory.
+     * @throws IllegalStateException if the running JVM does not provide virtual threads.
+     */
+    static ThreadFactory threadFactory(String namePrefix) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw unsupported(e);
+        }
+    }
+
+    /**
+     * Create an executor starting a new virtual thread for each task; it has neither a pool size nor a queue, so
+     * concurrency is only bounded by the resources the tasks wait for.
+     *
+     * @param namePrefix the prefix of the thread names, followed by a counter.
+     * @return the executor.
+     * @throws IllegalStateException if the running JVM does not provide virtual threads.
+     */
+    static ExecutorService newExecutor(String namePrefix) {
+        ThreadFactory threadFactory = threadFactory(namePrefix);
+        try {
+            Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newThreadPerTaskExecutor.invoke(null, threadFactory);
+        } catch (ReflectiveOperationException e) {
+            throw unsupported(e);
+        }
+    }
+
+    private static IllegalStateException unsupported(ReflectiveOperationException e) {
+        Throwable cause = e instanceof InvocationTargetException ? e.getCause() : e;
+        return new IllegalStateException("Virtual threads are not available on Java " + Runtime.version(), cause);
+    }
+}
@@ -0,0 +1,91 @@
+package com.openwt.boatapp.config;
+
+import java.util.concurrent.ExecutorService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskSchedulingProperties;
+import org.springframework.boot.task.TaskSchedulerCustomizer;
+import org.springframework.boot.web.embedded.undertow.UndertowServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+/**
+ * Run the servlet requests and the {@code @Scheduled} jobs on virtual threads, when the
+ * {@value Constants#SPRING_PROFILE_VIRTUAL_THREADS} profile is active; the {@code @Async} tasks are moved by
+ * {@link AsyncConfiguration}.
+ * <p>
+ * A blocked virtual thread does not hold a platform thread, so the number of requests waiting on the database or the
+ * SMTP server is no longer capped by the Undertow worker pool: the connection pool limits become the backpressure.
+ * The password verifications and picture resizing are CPU bound and keep their own bounded executors.
+ * <p>
+ * Virtual threads need Java 21; on an older runtime the profile only logs a warning.
+ */
+@Configuration
+@Profile(Constants.SPRING_PROFILE_VIRTUAL_THREADS)
+public class VirtualThreadsConfiguration {
+
+    private final Logger log = LoggerFactory.getLogger(VirtualThreadsConfiguration.class);
+
+    private final boolean supported;
+
+    public VirtualThreadsConfiguration() {
+        this.supported = VirtualThreads.isSupported();
+        if (!supported) {
+            log.warn("Virtual threads need Java 21 or later, running on platform threads on Java {}", Runtime.version());
+        }
+    }
+
+    /**
+     * Executor of the servlet requests, starting a virtual thread per request. It is shut down with the application
+     * context, once the web server has stopped.
+     */
+    @Bean(name = "requestExecutor", destroyMethod = "shutdown")
+    @Conditional(VirtualThreadsSupported.class)
+    public ExecutorService requestExecutor() {
+        return VirtualThreads.newExecutor("boat-app-request-");
+    }
+
+    @Bean
+    public WebServerFactoryCustomizer<UndertowServletWebServerFactory> virtualThreadsWebServerCustomizer(
+        @Qualifier("requestExecutor") ObjectProvider<ExecutorService> requestExecutor
+    ) {
+        return factory ->
+            requestExecutor.ifAvailable(
+                executor -> {
+                    log.debug("Dispatching servlet requests to virtual threads");
+                    factory.addDeploymentInfoCustomizers(deploymentInfo -> deploymentInfo.setExecutor(executor));
+                }
+            );
+    }
+
+    /**
+     * Start the threads of the task scheduler as virtual threads. Only the kind of thread changes: the scheduler
+     * still runs at most {@code spring.task.scheduling.pool.size} jobs at once, which the profile raises to the
+     * number of {@code @Scheduled} jobs so that none waits for another.
+     */
+    @Bean
+    public TaskSchedulerCustomizer virtualThreadsTaskSchedulerCustomizer(TaskSchedulingProperties taskSchedulingProperties) {
+        return scheduler -> {
+            if (supported) {
+                log.debug("Running scheduled jobs on virtual threads");
+                scheduler.setThreadFactory(VirtualThreads.threadFactory(taskSchedulingProperties.getThreadNamePrefix()));
+            }
+        };
+    }
+
+    static class VirtualThreadsSupported implements Condition {
+
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            return VirtualThreads.isSupported();
+        }
+    }
+}
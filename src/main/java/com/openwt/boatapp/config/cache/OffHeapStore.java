@@ -0,0 +1,237 @@
+package com.openwt.boatapp.config.cache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Byte array store kept in direct {@link ByteBuffer} slabs, outside of the Java heap.
+ * <p>
+ * Values are appended to the current slab. When it is full, the next slab is recycled and every value it held is
+ * evicted, so eviction is first-in first-out, one slab at a time, and never needs compaction. Only the key index lives
+ * on the heap, with one {@code long} location per entry. Slabs are allocated on first use. Values larger than a slab
+ * are not stored.
+ */
+public final class OffHeapStore {
+
+    /**
+     * Largest slab size, as offsets and lengths are packed on 24 bits: a value filling a slab must fit its length field.
+     */
+    public static final int MAX_SLAB_BYTES = (1 << 24) - 1;
+
+    private final int slabBytes;
+
+    private final ByteBuffer[] slabs;
+
+    private final List<List<Object>> slabKeys;
+
+    private final Map<Object, Long> index = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private int currentSlab;
+
+    private int writeOffset;
+
+    private long usedBytes;
+
+    /**
+     * @param maxBytes the off-heap memory the store may allocate.
+     * @param slabBytes the size of each slab, at most {@link #MAX_SLAB_BYTES}.
+     */
+    public OffHeapStore(long maxBytes, int slabBytes) {
+        if (slabBytes <= 0 || slabBytes > MAX_SLAB_BYTES) {
+            throw new IllegalArgumentException("Slabs must hold between 1 and " + MAX_SLAB_BYTES + " bytes");
+        }
+        int slabCount = (int) Math.max(2, Math.min(1 << 16, maxBytes / slabBytes));
+        this.slabBytes = slabBytes;
+        this.slabs = new ByteBuffer[slabCount];
+        this.slabKeys = new ArrayList<>(slabCount);
+        for (int i = 0; i < slabCount; i++) {
+            slabKeys.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Store a value, replacing the previous one.
+     *
+     * @param key the key.
+     * @param value the value.
+     * @return {@code false} if the value is larger than a slab, and was not stored.
+     */
+    public boolean put(Object key, byte[] value) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(key);
+            if (value.length > slabBytes) {
+                return false;
+            }
+            if (writeOffset + value.length > slabBytes) {
+                currentSlab = (currentSlab + 1) % slabs.length;
+                writeOffset = 0;
+                evictSlab(currentSlab);
+            }
+            if (slabs[currentSlab] == null) {
+                slabs[currentSlab] = ByteBuffer.allocateDirect(slabBytes);
+            }
+            ByteBuffer slab = slabs[currentSlab].duplicate();
+            slab.position(writeOffset);
+            slab.put(value);
+            index.put(key, location(currentSlab, writeOffset, value.length));
+            slabKeys.get(currentSlab).add(key);
+            writeOffset += value.length;
+            usedBytes += value.length;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param key the key.
+     * @return a copy of the stored value, or {@code null} if there is none.
+     */
+    public byte[] get(Object key) {
+        lock.readLock().lock();
+        try {
+            Long location = index.get(key);
+            return location == null ? null : read(location);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a value.
+     *
+     * @param key the key.
+     * @return the removed value, or {@code null} if there was none.
+     */
+    public byte[] remove(Object key) {
+        lock.writeLock().lock();
+        try {
+            Long location = index.get(key);
+            if (location == null) {
+                return null;
+            }
+            byte[] value = read(location);
+            removeLocked(key);
+            return value;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove every value. Allocated slabs are kept for reuse.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            index.clear();
+            slabKeys.forEach(List::clear);
+            currentSlab = 0;
+            writeOffset = 0;
+            usedBytes = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of stored values.
+     */
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the bytes held by the stored values.
+     */
+    public long usedBytes() {
+        lock.readLock().lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the off-heap bytes allocated so far.
+     */
+    public long allocatedBytes() {
+        lock.readLock().lock();
+        try {
+            long allocated = 0;
+            for (ByteBuffer slab : slabs) {
+                allocated += slab == null ? 0 : slab.capacity();
+            }
+            return allocated;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of values evicted to make room for new ones.
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private void evictSlab(int slab) {
+        List<Object> keys = slabKeys.get(slab);
+        for (Object key : keys) {
+            Long location = index.get(key);
+            if (location != null && slabOf(location) == slab) {
+                removeLocked(key);
+                evictions.increment();
+            }
+        }
+        keys.clear();
+    }
+
+    private void removeLocked(Object key) {
+        Long location = index.remove(key);
+        if (location != null) {
+            usedBytes -= lengthOf(location);
+        }
+    }
+
+    private byte[] read(long location) {
+        byte[] value = new byte[lengthOf(location)];
+        ByteBuffer slab = slabs[slabOf(location)].duplicate();
+        slab.position(offsetOf(location));
+        slab.get(value);
+        return value;
+    }
+
+    private static long location(int slab, int offset, int length) {
+        return ((long) slab << 48) | ((long) offset << 24) | length;
+    }
+
+    private static int slabOf(long location) {
+        return (int) (location >>> 48);
+    }
+
+    private static int offsetOf(long location) {
+        return (int) ((location >>> 24) & 0xFFFFFF);
+    }
+
+    private static int lengthOf(long location) {
+        return (int) (location & 0xFFFFFF);
+    }
+}
@@ -0,0 +1,251 @@
+package com.openwt.boatapp.config.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializationFailedException;
+import org.springframework.core.serializer.support.SerializingConverter;
+
+/**
+ * Spring {@link org.springframework.cache.Cache} with two tiers: a small on-heap Caffeine cache, in front of an
+ * {@link OffHeapStore} holding serialized values.
+ * <p>
+ * The tiers are exclusive: entries evicted from the on-heap tier because of its size are serialized into the off-heap
+ * tier, and are moved back on their next hit. Expired entries are dropped from both tiers. An entry moved off-heap
+ * stays there at most {@code timeToLive}, counted from the time it was moved. Values which can not be serialized, or
+ * are larger than a slab, are only ever kept on-heap.
+ */
+public class TieredCache extends AbstractValueAdaptingCache {
+
+    private static final int EXPIRES_AT_BYTES = Long.BYTES;
+
+    private final Logger log = LoggerFactory.getLogger(TieredCache.class);
+
+    private final String name;
+
+    private final OffHeapStore offHeap;
+
+    private final long timeToLiveMillis;
+
+    private final SerializingConverter serializer = new SerializingConverter();
+
+    private final DeserializingConverter deserializer = new DeserializingConverter(TieredCache.class.getClassLoader());
+
+    private final LongAdder offHeapHits = new LongAdder();
+
+    private final LongAdder puts = new LongAdder();
+
+    private final LongAdder discards = new LongAdder();
+
+    private final Cache<Object, Object> near;
+
+    private final boolean loading;
+
+    /**
+     * @param name the name of the cache.
+     * @param near the builder of the on-heap tier, with its size and expiration settings.
+     * @param loader loads the missing entries, or {@code null} if entries are only added by {@code put}.
+     * @param offHeap the off-heap tier.
+     * @param timeToLive the time entries may stay in the off-heap tier.
+     */
+    public TieredCache(
+        String name,
+        Caffeine<Object, Object> near,
+        CacheLoader<Object, Object> loader,
+        OffHeapStore offHeap,
+        Duration timeToLive
+    ) {
+        super(true);
+        this.name = name;
+        this.offHeap = offHeap;
+        this.timeToLiveMillis = timeToLive.toMillis();
+        near
+            .recordStats()
+            .evictionListener(
+                (key, value, cause) -> {
+                    if (cause == RemovalCause.SIZE) {
+                        demote(key, value);
+                    }
+                }
+            );
+        if (loader == null) {
+            this.near = near.build();
+        } else {
+            CacheLoader<Object, Object> tieredLoader = key -> {
+                Object value = promote(key);
+                return value != null ? value : loader.load(key);
+            };
+            this.near = near.buildAsync(tieredLoader).synchronous();
+        }
+        this.loading = loader != null;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Cache<Object, Object> getNativeCache() {
+        return near;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        if (loading) {
+            return ((LoadingCache<Object, Object>) near).get(key);
+        }
+        return near.get(key, this::promote);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return (T) fromStoreValue(
+            near.get(
+                key,
+                k -> {
+                    Object value = promote(k);
+                    if (value != null) {
+                        return value;
+                    }
+                    try {
+                        return toStoreValue(valueLoader.call());
+                    } catch (Exception ex) {
+                        throw new ValueRetrievalException(k, valueLoader, ex);
+                    }
+                }
+            )
+        );
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        offHeap.remove(key);
+        near.put(key, toStoreValue(value));
+        puts.increment();
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        boolean[] absent = new boolean[1];
+        Object result = near.get(
+            key,
+            k -> {
+                Object existing = promote(k);
+                if (existing != null) {
+                    return existing;
+                }
+                absent[0] = true;
+                return toStoreValue(value);
+            }
+        );
+        if (absent[0]) {
+            puts.increment();
+            return null;
+        }
+        return toValueWrapper(result);
+    }
+
+    @Override
+    public void evict(Object key) {
+        // The on-heap entry may be moved off-heap while it is invalidated, so the off-heap tier is cleaned on both sides
+        offHeap.remove(key);
+        near.invalidate(key);
+        offHeap.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        near.invalidateAll();
+        offHeap.clear();
+    }
+
+    /**
+     * @return the statistics of the on-heap tier.
+     */
+    public CacheStats nearStats() {
+        return near.stats();
+    }
+
+    /**
+     * @return the number of entries in the on-heap tier.
+     */
+    public long nearSize() {
+        return near.estimatedSize();
+    }
+
+    /**
+     * @return the off-heap tier.
+     */
+    public OffHeapStore getOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * @return the number of lookups answered by the off-heap tier.
+     */
+    public long offHeapHitCount() {
+        return offHeapHits.sum();
+    }
+
+    /**
+     * @return the number of entries added by {@code put} and {@code putIfAbsent}.
+     */
+    public long putCount() {
+        return puts.sum();
+    }
+
+    /**
+     * @return the number of entries evicted from the on-heap tier which could not be kept off-heap, or expired there.
+     */
+    public long discardCount() {
+        return discards.sum();
+    }
+
+    private void demote(Object key, Object value) {
+        try {
+            byte[] serialized = serializer.convert(value);
+            byte[] entry = new byte[EXPIRES_AT_BYTES + serialized.length];
+            ByteBuffer.wrap(entry).putLong(System.currentTimeMillis() + timeToLiveMillis).put(serialized);
+            if (!offHeap.put(key, entry)) {
+                discards.increment();
+            }
+        } catch (SerializationFailedException e) {
+            log.debug("Not moving entry {} of cache {} off-heap: {}", key, name, e.getMessage());
+            discards.increment();
+        }
+    }
+
+    private Object promote(Object key) {
+        byte[] entry = offHeap.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        if (ByteBuffer.wrap(entry).getLong() < System.currentTimeMillis()) {
+            discards.increment();
+            return null;
+        }
+        try {
+            Object value = deserializer.convert(Arrays.copyOfRange(entry, EXPIRES_AT_BYTES, entry.length));
+            offHeapHits.increment();
+            return value;
+        } catch (SerializationFailedException e) {
+            log.warn("Dropping unreadable off-heap entry {} of cache {}: {}", key, name, e.getMessage());
+            discards.increment();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.openwt.boatapp.config.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+/**
+ * Micrometer metrics of a {@link TieredCache}.
+ * <p>
+ * The standard {@code cache.*} metrics cover the cache as a whole: hits of either tier, misses of both tiers, and the
+ * entries lost by the off-heap tier. The {@code cache.tier.*} and {@code cache.offheap.*} metrics detail each tier.
+ */
+public class TieredCacheMetrics extends CacheMeterBinder<TieredCache> {
+
+    public TieredCacheMetrics(TieredCache cache, Iterable<Tag> tags) {
+        super(cache, cache.getName(), tags);
+    }
+
+    @Override
+    protected Long size() {
+        TieredCache cache = getCache();
+        return cache == null ? null : cache.nearSize() + cache.getOffHeap().size();
+    }
+
+    @Override
+    protected long hitCount() {
+        TieredCache cache = getCache();
+        return cache == null ? 0L : cache.nearStats().hitCount() + cache.offHeapHitCount();
+    }
+
+    @Override
+    protected Long missCount() {
+        TieredCache cache = getCache();
+        return cache == null ? null : cache.nearStats().missCount() - cache.offHeapHitCount();
+    }
+
+    @Override
+    protected Long evictionCount() {
+        TieredCache cache = getCache();
+        return cache == null ? null : cache.getOffHeap().evictionCount() + cache.discardCount();
+    }
+
+    @Override
+    protected long putCount() {
+        TieredCache cache = getCache();
+        return cache == null ? 0L : cache.putCount() + cache.nearStats().loadSuccessCount() - cache.offHeapHitCount();
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        TieredCache cache = getCache();
+        if (cache == null) {
+            return;
+        }
+        Tags tags = Tags.of(getTagsWithCacheName());
+
+        FunctionCounter
+            .builder("cache.tier.hits", cache, c -> c.nearStats().hitCount())
+            .tags(tags)
+            .tag("tier", "heap")
+            .description("The number of times a cache lookup was answered by the on-heap tier")
+            .register(registry);
+        FunctionCounter
+            .builder("cache.tier.hits", cache, TieredCache::offHeapHitCount)
+            .tags(tags)
+            .tag("tier", "offheap")
+            .description("The number of times a cache lookup was answered by the off-heap tier")
+            .register(registry);
+
+        Gauge
+            .builder("cache.tier.size", cache, TieredCache::nearSize)
+            .tags(tags)
+            .tag("tier", "heap")
+            .description("The number of entries in the on-heap tier")
+            .register(registry);
+        Gauge
+            .builder("cache.tier.size", cache, c -> c.getOffHeap().size())
+            .tags(tags)
+            .tag("tier", "offheap")
+            .description("The number of entries in the off-heap tier")
+            .register(registry);
+
+        Gauge
+            .builder("cache.offheap.bytes", cache, c -> c.getOffHeap().usedBytes())
+            .tags(tags)
+            .tag("area", "used")
+            .description("The off-heap memory held by the cache entries")
+            .baseUnit("bytes")
+            .register(registry);
+        Gauge
+            .builder("cache.offheap.bytes", cache, c -> c.getOffHeap().allocatedBytes())
+            .tags(tags)
+            .tag("area", "allocated")
+            .description("The off-heap memory allocated by the cache")
+            .baseUnit("bytes")
+            .register(registry);
+    }
+}
@@ -6,17 +6,20 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
-import javax.persistence.Lob;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * A Boat.
  */
 @Entity
 @Table(name = "boat")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Boat implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -36,13 +39,23 @@ public class Boat implements Serializable {
     @Column(name = "description", length = 1024, nullable = false)
     private String description;
 
-    @Lob
-    @Column(name = "pic")
-    private byte[] pic;
+    @Size(max = 64)
+    @Column(name = "pic_hash", length = 64)
+    private String picHash;
+
+    @Column(name = "pic_size")
+    private Long picSize;
 
     @Column(name = "pic_content_type")
     private String picContentType;
 
+    /**
+     * Optimistic locking version, incremented by every update.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     public Long getId() {
         return id;
     }
@@ -82,16 +95,29 @@ public class Boat implements Serializable {
         return this;
     }
 
-    public byte[] getPic() {
-        return this.pic;
+    public String getPicHash() {
+        return this.picHash;
+    }
+
+    public void setPicHash(String picHash) {
+        this.picHash = picHash;
+    }
+
+    public Boat picHash(String picHash) {
+        this.picHash = picHash;
+        return this;
+    }
+
+    public Long getPicSize() {
+        return this.picSize;
     }
 
-    public void setPic(byte[] pic) {
-        this.pic = pic;
+    public void setPicSize(Long picSize) {
+        this.picSize = picSize;
     }
 
-    public Boat pic(byte[] pic) {
-        this.pic = pic;
+    public Boat picSize(Long picSize) {
+        this.picSize = picSize;
         return this;
     }
 
@@ -108,6 +134,19 @@ public class Boat implements Serializable {
         return this;
     }
 
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Boat version(Long version) {
+        this.version = version;
+        return this;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -132,8 +171,10 @@ public class Boat implements Serializable {
             "id=" + getId() +
             ", name='" + getName() + "'" +
             ", description='" + getDescription() + "'" +
-            ", pic='" + getPic() + "'" +
+            ", picHash='" + getPicHash() + "'" +
+            ", picSize=" + getPicSize() +
             ", picContentType='" + getPicContentType() + "'" +
+            ", version=" + getVersion() +
             "}";
     }
 }
@@ -0,0 +1,63 @@
+package com.openwt.boatapp.domain;
+
+import java.io.Serializable;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * The full-text search document of a {@link Boat}, generated by the database from the name and the description.
+ * <p>
+ * It is mapped apart from {@link Boat}, on the same table, so that the document is neither loaded with the boats nor
+ * kept in their caches: it is only referenced by the search predicates and orders of
+ * {@link com.openwt.boatapp.service.BoatQueryService}, and is never loaded itself.
+ */
+@Entity
+@Immutable
+@Table(name = "boat")
+public class BoatSearchDocument implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "id", insertable = false, updatable = false)
+    private Long id;
+
+    @Column(name = "search_vector", insertable = false, updatable = false)
+    private String searchVector;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public String getSearchVector() {
+        return this.searchVector;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BoatSearchDocument)) {
+            return false;
+        }
+        return id != null && id.equals(((BoatSearchDocument) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BoatSearchDocument{" +
+            "id=" + getId() +
+            "}";
+    }
+}
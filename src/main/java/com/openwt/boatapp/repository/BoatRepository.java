@@ -1,13 +1,64 @@
 package com.openwt.boatapp.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
 import com.openwt.boatapp.domain.Boat;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
  * Spring Data SQL repository for the Boat entity.
+ * <p>
+ * Criteria queries are cached in the Hibernate query cache, which Hibernate invalidates whenever the boat table is
+ * written through the {@link javax.persistence.EntityManager}.
  */
 @SuppressWarnings("unused")
 @Repository
-public interface BoatRepository extends JpaRepository<Boat, Long>, JpaSpecificationExecutor<Boat> {}
+public interface BoatRepository extends JpaRepository<Boat, Long>, JpaSpecificationExecutor<Boat> {
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Boat> findAll(Specification<Boat> spec);
+
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    Page<Boat> findAll(Specification<Boat> spec, Pageable pageable);
+
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    long count(Specification<Boat> spec);
+
+    @Query("select boat.picHash from Boat boat where boat.id = :id")
+    Optional<String> findPicHashById(@Param("id") Long id);
+
+    @Query("select boat.version from Boat boat where boat.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    boolean existsByPicHash(String picHash);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select boat.id as id, boat.name as name, boat.description as description from Boat boat")
+    Stream<SearchText> streamAllSearchTexts();
+
+    /**
+     * Projection of the searchable text of a boat.
+     */
+    interface SearchText {
+        Long getId();
+
+        String getName();
+
+        String getDescription();
+    }
+}
@@ -0,0 +1,60 @@
+package com.openwt.boatapp.repository;
+
+import com.openwt.boatapp.domain.OneTimeToken;
+import com.openwt.boatapp.domain.User;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Spring Data JPA repository for the {@link OneTimeToken} entity.
+ */
+@Repository
+public interface OneTimeTokenRepository extends JpaRepository<OneTimeToken, Long> {
+    /**
+     * Find a token which has not expired, with its user: a single probe of the unique token hash index.
+     */
+    @EntityGraph(attributePaths = "user")
+    Optional<OneTimeToken> findOneByTokenHashAndPurposeAndExpiresAtAfter(String tokenHash, OneTimeToken.Purpose purpose, Instant now);
+
+    /**
+     * Delete a token, so that it can not be redeemed twice.
+     *
+     * @return 1 if the token was deleted, 0 if another request already deleted it.
+     */
+    @Modifying
+    @Query("delete from OneTimeToken token where token.id = :id")
+    int deleteOneById(@Param("id") Long id);
+
+    @Modifying
+    @Query("delete from OneTimeToken token where token.user = :user and token.purpose = :purpose")
+    int deleteByUserAndPurpose(@Param("user") User user, @Param("purpose") OneTimeToken.Purpose purpose);
+
+    /**
+     * Find the ids of expired tokens, leaving out the activation tokens of the users which are not activated: these
+     * users are deleted with their token by {@link com.openwt.boatapp.service.UserService#removeNotActivatedUsers()}.
+     *
+     * @param activation {@link OneTimeToken.Purpose#ACTIVATION}.
+     */
+    @Query(
+        "select token.id from OneTimeToken token where token.expiresAt < :now" +
+        " and (token.purpose <> :activation or token.user.activated = true)"
+    )
+    List<Long> findExpiredIds(@Param("now") Instant now, @Param("activation") OneTimeToken.Purpose activation, Pageable pageable);
+
+    /**
+     * Delete a batch of tokens, in its own transaction unless called within one.
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from OneTimeToken token where token.id in :ids")
+    int deleteByIdIn(@Param("ids") List<Long> ids);
+}
@@ -0,0 +1,37 @@
+package com.openwt.boatapp.repository;
+
+import com.openwt.boatapp.domain.RefreshToken;
+import com.openwt.boatapp.domain.User;
+import java.time.Instant;
+import java.util.Optional;
+import javax.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the {@link RefreshToken} entity.
+ */
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+    /**
+     * Find a token and lock it, so that concurrent refreshes with the same token are serialized.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<RefreshToken> findOneByTokenHash(String tokenHash);
+
+    @Modifying
+    @Query("delete from RefreshToken refreshToken where refreshToken.family = :family")
+    int deleteByFamily(@Param("family") String family);
+
+    @Modifying
+    @Query("delete from RefreshToken refreshToken where refreshToken.user = :user")
+    int deleteByUser(@Param("user") User user);
+
+    @Modifying
+    @Query("delete from RefreshToken refreshToken where refreshToken.expiresAt < :now")
+    int deleteByExpiresAtBefore(@Param("now") Instant now);
+}
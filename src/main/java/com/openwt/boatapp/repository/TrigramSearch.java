@@ -0,0 +1,111 @@
+package com.openwt.boatapp.repository;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Trigram implementation of the {@code boat_search_match} and {@code boat_search_rank} database functions, registered
+ * as H2 aliases by Liquibase. PostgreSQL implements them with a {@code tsvector} column instead.
+ * <p>
+ * The searched document holds the boat name on its first line and the description on the following ones. Each term
+ * of the query is scored against the words of the document, as {@code pg_trgm} does: {@code 1} when a word contains
+ * the term, otherwise the best trigram similarity. Name hits weigh {@code 1.0} and description hits {@code 0.4},
+ * like the default PostgreSQL {@code A} and {@code B} weights.
+ */
+public final class TrigramSearch {
+
+    static final double SIMILARITY_THRESHOLD = 0.3;
+
+    private static final double NAME_WEIGHT = 1.0;
+
+    private static final double DESCRIPTION_WEIGHT = 0.4;
+
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private TrigramSearch() {}
+
+    /**
+     * Check whether every term of the query matches the document.
+     *
+     * @param document the searched document.
+     * @param query the free-text query.
+     * @return {@code true} if every term scores above the similarity threshold.
+     */
+    public static Boolean match(String document, String query) {
+        if (document == null || query == null) {
+            return null;
+        }
+        List<String> terms = words(query);
+        if (terms.isEmpty()) {
+            return false;
+        }
+        List<String> words = words(document);
+        return terms.stream().allMatch(term -> score(term, words) >= SIMILARITY_THRESHOLD);
+    }
+
+    /**
+     * Rank the document against the query.
+     *
+     * @param document the searched document.
+     * @param query the free-text query.
+     * @return the mean weighted score of the query terms, between {@code 0} and {@code 1}.
+     */
+    public static Double rank(String document, String query) {
+        if (document == null || query == null) {
+            return null;
+        }
+        List<String> terms = words(query);
+        if (terms.isEmpty()) {
+            return 0d;
+        }
+        int newline = document.indexOf('\n');
+        List<String> name = words(newline < 0 ? document : document.substring(0, newline));
+        List<String> description = newline < 0 ? List.of() : words(document.substring(newline + 1));
+        double total = 0;
+        for (String term : terms) {
+            total += Math.max(NAME_WEIGHT * score(term, name), DESCRIPTION_WEIGHT * score(term, description));
+        }
+        return total / terms.size();
+    }
+
+    static double score(String term, List<String> words) {
+        Set<String> termTrigrams = null;
+        double best = 0;
+        for (String word : words) {
+            if (word.contains(term)) {
+                return 1;
+            }
+            if (termTrigrams == null) {
+                termTrigrams = trigrams(term);
+            }
+            best = Math.max(best, similarity(termTrigrams, trigrams(word)));
+        }
+        return best;
+    }
+
+    static Set<String> trigrams(String word) {
+        String padded = "  " + word + " ";
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    private static double similarity(Set<String> a, Set<String> b) {
+        long shared = a.stream().filter(b::contains).count();
+        return (double) shared / (a.size() + b.size() - shared);
+    }
+
+    private static List<String> words(String text) {
+        return Arrays
+            .stream(WORD_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+            .filter(word -> !word.isEmpty())
+            .collect(Collectors.toList());
+    }
+}
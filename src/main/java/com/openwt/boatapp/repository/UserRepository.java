@@ -1,5 +1,6 @@
 package com.openwt.boatapp.repository;
 
+import com.openwt.boatapp.domain.OneTimeToken;
 import com.openwt.boatapp.domain.User;
 import java.time.Instant;
 import java.util.List;
@@ -9,6 +10,8 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -20,11 +23,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     String USERS_BY_EMAIL_CACHE = "usersByEmail";
 
-    Optional<User> findOneByActivationKey(String activationKey);
-
-    List<User> findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(Instant dateTime);
-
-    Optional<User> findOneByResetKey(String resetKey);
+    /**
+     * Find the users which are not activated, and whose token of the given purpose expired.
+     */
+    @Query(
+        "select token.user from OneTimeToken token" +
+        " where token.purpose = :purpose and token.expiresAt < :now and token.user.activated = false"
+    )
+    List<User> findAllNotActivatedWithTokenExpiredBefore(@Param("purpose") OneTimeToken.Purpose purpose, @Param("now") Instant now);
 
     Optional<User> findOneByEmailIgnoreCase(String email);
 
@@ -38,5 +44,19 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Cacheable(cacheNames = USERS_BY_EMAIL_CACHE)
     Optional<User> findOneWithAuthoritiesByEmailIgnoreCase(String email);
 
+    /**
+     * Uncached variant of {@link #findOneWithAuthoritiesByLogin(String)}, used to load and refresh its cache.
+     */
+    @EntityGraph(attributePaths = "authorities")
+    @Query("select user from User user where user.login = :login")
+    Optional<User> loadOneWithAuthoritiesByLogin(@Param("login") String login);
+
+    /**
+     * Uncached variant of {@link #findOneWithAuthoritiesByEmailIgnoreCase(String)}, used to load and refresh its cache.
+     */
+    @EntityGraph(attributePaths = "authorities")
+    @Query("select user from User user where upper(user.email) = upper(:email)")
+    Optional<User> loadOneWithAuthoritiesByEmail(@Param("email") String email);
+
     Page<User> findAllByIdNotNullAndActivatedIsTrue(Pageable pageable);
 }
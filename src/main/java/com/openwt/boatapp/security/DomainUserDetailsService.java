@@ -2,6 +2,8 @@ package com.openwt.boatapp.security;
 
 import com.openwt.boatapp.domain.User;
 import com.openwt.boatapp.repository.UserRepository;
+import com.openwt.boatapp.service.cache.CacheInvalidation;
+import com.openwt.boatapp.service.cache.CacheInvalidationBus;
 import java.util.List;
 import java.util.Locale;
 import java.util.stream.Collectors;
@@ -11,23 +13,27 @@ import org.slf4j.LoggerFactory;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
- * Authenticate a user from the database.
+ * Authenticate a user from the database, and store the passwords rehashed on login.
  */
 @Component("userDetailsService")
-public class DomainUserDetailsService implements UserDetailsService {
+public class DomainUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final Logger log = LoggerFactory.getLogger(DomainUserDetailsService.class);
 
     private final UserRepository userRepository;
 
-    public DomainUserDetailsService(UserRepository userRepository) {
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    public DomainUserDetailsService(UserRepository userRepository, CacheInvalidationBus cacheInvalidationBus) {
         this.userRepository = userRepository;
+        this.cacheInvalidationBus = cacheInvalidationBus;
     }
 
     @Override
@@ -49,6 +55,27 @@ public class DomainUserDetailsService implements UserDetailsService {
             .orElseThrow(() -> new UsernameNotFoundException("User " + lowercaseLogin + " was not found in the database"));
     }
 
+    /**
+     * Store the new hash of a password, after a successful login with a hash the password encoder wants to upgrade.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newEncodedPassword) {
+        log.debug("Rehashing the password of {}", userDetails.getUsername());
+        userRepository
+            .findOneByLogin(userDetails.getUsername())
+            .ifPresent(
+                user -> {
+                    user.setPassword(newEncodedPassword);
+                    cacheInvalidationBus.publish(CacheInvalidation.evict(UserRepository.USERS_BY_LOGIN_CACHE, user.getLogin()));
+                    if (user.getEmail() != null) {
+                        cacheInvalidationBus.publish(CacheInvalidation.evict(UserRepository.USERS_BY_EMAIL_CACHE, user.getEmail()));
+                    }
+                }
+            );
+        return org.springframework.security.core.userdetails.User.withUserDetails(userDetails).password(newEncodedPassword).build();
+    }
+
     private org.springframework.security.core.userdetails.User createSpringSecurityUser(String lowercaseLogin, User user) {
         if (!user.isActivated()) {
             throw new UserNotActivatedException("User " + lowercaseLogin + " was not activated");
@@ -0,0 +1,152 @@
+package com.openwt.boatapp.security.jwt;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.SecureRandom;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * {@link JwtKeyStore} keeping the keys in the {@code jwt_signing_key} table, so that every node signs and verifies with
+ * the same keys.
+ * <p>
+ * This is the default store. Keys are stored in their standard encodings: X.509 for the public keys, PKCS#8 for the
+ * private ones. The private keys are encrypted with AES-GCM under the configured {@code base64-key-encryption-key},
+ * and bound to their {@code kid}, so that a copy of the table is not enough to sign tokens. Private keys stored
+ * unencrypted, before encryption was introduced, are still read until they expire.
+ * <p>
+ * Writes commit on their own, as keys can be created in the middle of any request signing a token.
+ */
+@Component
+@ConditionalOnProperty(name = "boatapp.security.authentication.jwt.key-ring.store", havingValue = "database", matchIfMissing = true)
+public class DatabaseJwtKeyStore implements JwtKeyStore {
+
+    static final String ENCRYPTED_PREFIX = "aes-gcm:";
+
+    private static final String CIPHER = "AES/GCM/NoPadding";
+
+    private static final int IV_BYTES = 12;
+
+    private static final int TAG_BITS = 128;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final SecretKey keyEncryptionKey;
+
+    public DatabaseJwtKeyStore(
+        JdbcTemplate jdbcTemplate,
+        @Value("${boatapp.security.authentication.jwt.key-ring.base64-key-encryption-key}") String base64KeyEncryptionKey
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        byte[] keyBytes = Base64.getDecoder().decode(base64KeyEncryptionKey);
+        if (keyBytes.length != 16 && keyBytes.length != 24 && keyBytes.length != 32) {
+            throw new IllegalArgumentException("The JWT key encryption key must be a Base64-encoded AES key of 128, 192 or 256 bits");
+        }
+        this.keyEncryptionKey = new SecretKeySpec(keyBytes, "AES");
+    }
+
+    @Override
+    public List<JwtKey> findAllNotExpired(Instant now) {
+        return jdbcTemplate.query(
+            "select kid, public_key, private_key, active_from, expires_at from jwt_signing_key where expires_at > ?",
+            this::mapKey,
+            Timestamp.from(now)
+        );
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void save(JwtKey key) {
+        Base64.Encoder encoder = Base64.getEncoder();
+        jdbcTemplate.update(
+            "insert into jwt_signing_key (kid, public_key, private_key, active_from, expires_at) values (?, ?, ?, ?, ?)",
+            key.getKid(),
+            encoder.encodeToString(key.getKeyPair().getPublic().getEncoded()),
+            encrypt(key.getKid(), key.getKeyPair().getPrivate()),
+            Timestamp.from(key.getActiveFrom()),
+            Timestamp.from(key.getExpiresAt())
+        );
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void deleteExpired(Instant now) {
+        jdbcTemplate.update("delete from jwt_signing_key where expires_at <= ?", Timestamp.from(now));
+    }
+
+    private JwtKey mapKey(ResultSet rs, int rowNum) throws SQLException {
+        Base64.Decoder decoder = Base64.getDecoder();
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance(JwtKeyRing.KEY_ALGORITHM);
+            KeyPair keyPair = new KeyPair(
+                keyFactory.generatePublic(new X509EncodedKeySpec(decoder.decode(rs.getString("public_key")))),
+                keyFactory.generatePrivate(new PKCS8EncodedKeySpec(decrypt(rs.getString("kid"), rs.getString("private_key"))))
+            );
+            return new JwtKey(
+                rs.getString("kid"),
+                keyPair,
+                rs.getTimestamp("active_from").toInstant(),
+                rs.getTimestamp("expires_at").toInstant()
+            );
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Invalid JWT signing key " + rs.getString("kid"), e);
+        }
+    }
+
+    private String encrypt(String kid, PrivateKey privateKey) {
+        byte[] iv = new byte[IV_BYTES];
+        secureRandom.nextBytes(iv);
+        try {
+            byte[] encrypted = cipher(Cipher.ENCRYPT_MODE, kid, iv).doFinal(privateKey.getEncoded());
+            byte[] ivAndEncrypted = ByteBuffer.allocate(IV_BYTES + encrypted.length).put(iv).put(encrypted).array();
+            return ENCRYPTED_PREFIX + Base64.getEncoder().encodeToString(ivAndEncrypted);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not encrypt JWT signing key " + kid, e);
+        }
+    }
+
+    /**
+     * @return the PKCS#8 encoding of the private key.
+     */
+    private byte[] decrypt(String kid, String storedKey) throws GeneralSecurityException {
+        if (!storedKey.startsWith(ENCRYPTED_PREFIX)) {
+            return Base64.getDecoder().decode(storedKey);
+        }
+        ByteBuffer ivAndEncrypted = ByteBuffer.wrap(Base64.getDecoder().decode(storedKey.substring(ENCRYPTED_PREFIX.length())));
+        byte[] iv = new byte[IV_BYTES];
+        ivAndEncrypted.get(iv);
+        byte[] encrypted = new byte[ivAndEncrypted.remaining()];
+        ivAndEncrypted.get(encrypted);
+        return cipher(Cipher.DECRYPT_MODE, kid, iv).doFinal(encrypted);
+    }
+
+    private Cipher cipher(int mode, String kid, byte[] iv) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance(CIPHER);
+        cipher.init(mode, keyEncryptionKey, new GCMParameterSpec(TAG_BITS, iv));
+        // The kid is authenticated, so that an encrypted key can not be swapped with the one of another row
+        cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+        return cipher;
+    }
+}
@@ -0,0 +1,33 @@
+package com.openwt.boatapp.security.jwt;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link JwtKeyStore} keeping the keys in memory, for a single node: the keys, and so every token, are lost on restart.
+ */
+@Component
+@ConditionalOnProperty(name = "boatapp.security.authentication.jwt.key-ring.store", havingValue = "memory")
+public class InMemoryJwtKeyStore implements JwtKeyStore {
+
+    private final List<JwtKey> keys = new CopyOnWriteArrayList<>();
+
+    @Override
+    public List<JwtKey> findAllNotExpired(Instant now) {
+        return keys.stream().filter(key -> key.getExpiresAt().isAfter(now)).collect(Collectors.toList());
+    }
+
+    @Override
+    public void save(JwtKey key) {
+        keys.add(key);
+    }
+
+    @Override
+    public void deleteExpired(Instant now) {
+        keys.removeIf(key -> !key.getExpiresAt().isAfter(now));
+    }
+}
@@ -0,0 +1,49 @@
+package com.openwt.boatapp.security.jwt;
+
+import java.security.KeyPair;
+import java.time.Instant;
+
+/**
+ * An ES256 key pair of the {@link JwtKeyRing}.
+ * <p>
+ * A key signs tokens from {@code activeFrom} until a newer key becomes active, and verifies them until
+ * {@code expiresAt}, once all the tokens it signed have expired.
+ */
+public final class JwtKey {
+
+    private final String kid;
+
+    private final KeyPair keyPair;
+
+    private final Instant activeFrom;
+
+    private final Instant expiresAt;
+
+    public JwtKey(String kid, KeyPair keyPair, Instant activeFrom, Instant expiresAt) {
+        this.kid = kid;
+        this.keyPair = keyPair;
+        this.activeFrom = activeFrom;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getKid() {
+        return kid;
+    }
+
+    public KeyPair getKeyPair() {
+        return keyPair;
+    }
+
+    public Instant getActiveFrom() {
+        return activeFrom;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    @Override
+    public String toString() {
+        return "JwtKey{kid='" + kid + "', activeFrom=" + activeFrom + ", expiresAt=" + expiresAt + "}";
+    }
+}
@@ -0,0 +1,196 @@
+package com.openwt.boatapp.security.jwt;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * The ES256 keys signing and verifying the JWT access tokens.
+ * <p>
+ * A new key is created every {@code rotation-period-seconds}, and published {@code publish-ahead-seconds} before it
+ * starts signing tokens, so that every node, and every verifier polling the JWKS endpoint, knows it by then. Older keys
+ * keep verifying the tokens they signed until these expire. Nodes reload the keys from the {@link JwtKeyStore} every
+ * {@code refresh-interval-seconds}, which must be shorter than {@code publish-ahead-seconds}; a token signed with a key
+ * this node does not know yet, because of clock skew or a late refresh, also reloads the keys, at most once per
+ * {@link #MISS_RELOAD_INTERVAL} so that tokens with random key ids do not load the store.
+ */
+@Component
+public class JwtKeyRing {
+
+    static final String KEY_ALGORITHM = "EC";
+
+    private static final String CURVE = "secp256r1";
+
+    static final Duration MISS_RELOAD_INTERVAL = Duration.ofSeconds(10);
+
+    private final Logger log = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    private final JwtKeyStore keyStore;
+
+    private final Duration rotationPeriod;
+
+    private final Duration publishAhead;
+
+    private final Duration maxTokenValidity;
+
+    private volatile Map<String, JwtKey> keys;
+
+    private volatile Instant lastMissReload = Instant.MIN;
+
+    public JwtKeyRing(
+        JwtKeyStore keyStore,
+        @Value("${boatapp.security.authentication.jwt.key-ring.rotation-period-seconds}") Long rotationPeriodSeconds,
+        @Value("${boatapp.security.authentication.jwt.key-ring.publish-ahead-seconds}") Long publishAheadSeconds,
+        @Value("${boatapp.security.authentication.jwt.key-ring.refresh-interval-seconds}") Long refreshIntervalSeconds,
+        @Value("${boatapp.security.authentication.jwt.token-validity-in-millis-for-remember-me}") Long maxTokenValidityInMilliseconds
+    ) {
+        if (refreshIntervalSeconds >= publishAheadSeconds) {
+            throw new IllegalArgumentException(
+                "The JWT key ring refresh-interval-seconds (" +
+                refreshIntervalSeconds +
+                ") must be shorter than publish-ahead-seconds (" +
+                publishAheadSeconds +
+                "), or nodes may sign with keys the others do not know yet"
+            );
+        }
+        this.keyStore = keyStore;
+        this.rotationPeriod = Duration.ofSeconds(rotationPeriodSeconds);
+        this.publishAhead = Duration.ofSeconds(publishAheadSeconds);
+        this.maxTokenValidity = Duration.ofMillis(maxTokenValidityInMilliseconds);
+    }
+
+    /**
+     * @return the key to sign new tokens with: the newest active one.
+     */
+    public JwtKey getSigningKey() {
+        // Read after the keys, as the first use creates the first key, active from its creation
+        Map<String, JwtKey> keys = getKeys();
+        Instant now = Instant.now();
+        return keys
+            .values()
+            .stream()
+            .filter(key -> !key.getActiveFrom().isAfter(now))
+            .max(Comparator.comparing(JwtKey::getActiveFrom))
+            .orElseThrow(() -> new IllegalStateException("No active JWT signing key"));
+    }
+
+    /**
+     * @param kid the id of a key.
+     * @return the public key to verify tokens signed with that key, or {@code null} if it is unknown or expired.
+     */
+    public PublicKey getVerificationKey(String kid) {
+        JwtKey key = getKeys().get(kid);
+        if (key == null) {
+            key = reloadOnMiss().get(kid);
+        }
+        if (key == null || !key.getExpiresAt().isAfter(Instant.now())) {
+            return null;
+        }
+        return key.getKeyPair().getPublic();
+    }
+
+    /**
+     * @return every published key, active or not yet active, which has not expired.
+     */
+    public List<JwtKey> getPublishedKeys() {
+        Instant now = Instant.now();
+        return getKeys()
+            .values()
+            .stream()
+            .filter(key -> key.getExpiresAt().isAfter(now))
+            .sorted(Comparator.comparing(JwtKey::getActiveFrom).reversed())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Reload the keys, and create the next one when the newest key is due for rotation.
+     */
+    @Scheduled(fixedDelayString = "${boatapp.security.authentication.jwt.key-ring.refresh-interval-seconds}", timeUnit = TimeUnit.SECONDS)
+    public void refresh() {
+        try {
+            reload();
+        } catch (DataAccessException e) {
+            // The schema may not be migrated yet: keys are loaded on first use otherwise
+            log.warn("Could not refresh the JWT signing keys: {}", e.getMessage());
+        }
+    }
+
+    private Map<String, JwtKey> getKeys() {
+        Map<String, JwtKey> current = keys;
+        if (current == null) {
+            synchronized (this) {
+                current = keys;
+                if (current == null) {
+                    current = reload();
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Load the keys again, without creating any, unless they were already loaded for a miss less than
+     * {@link #MISS_RELOAD_INTERVAL} ago.
+     */
+    private synchronized Map<String, JwtKey> reloadOnMiss() {
+        Instant now = Instant.now();
+        if (lastMissReload.plus(MISS_RELOAD_INTERVAL).isAfter(now)) {
+            return keys;
+        }
+        lastMissReload = now;
+        log.debug("Reloading the JWT signing keys for an unknown key id");
+        Map<String, JwtKey> reloaded = keyStore
+            .findAllNotExpired(now)
+            .stream()
+            .collect(Collectors.toUnmodifiableMap(JwtKey::getKid, Function.identity()));
+        keys = reloaded;
+        return reloaded;
+    }
+
+    private synchronized Map<String, JwtKey> reload() {
+        Instant now = Instant.now();
+        keyStore.deleteExpired(now);
+        List<JwtKey> loaded = keyStore.findAllNotExpired(now);
+        Instant newestActiveFrom = loaded.stream().map(JwtKey::getActiveFrom).max(Comparator.naturalOrder()).orElse(null);
+        if (newestActiveFrom == null) {
+            // First start: the key must sign right away
+            loaded.add(create(now));
+        } else if (!newestActiveFrom.plus(rotationPeriod).minus(publishAhead).isAfter(now)) {
+            loaded.add(create(now.plus(publishAhead)));
+        }
+        Map<String, JwtKey> reloaded = loaded.stream().collect(Collectors.toUnmodifiableMap(JwtKey::getKid, Function.identity()));
+        keys = reloaded;
+        return reloaded;
+    }
+
+    private JwtKey create(Instant activeFrom) {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance(KEY_ALGORITHM);
+            generator.initialize(new ECGenParameterSpec(CURVE));
+            // Signs during a rotation period at most, then verifies its tokens until they expire
+            Instant expiresAt = activeFrom.plus(rotationPeriod).plus(maxTokenValidity);
+            JwtKey key = new JwtKey(UUID.randomUUID().toString(), generator.generateKeyPair(), activeFrom, expiresAt);
+            keyStore.save(key);
+            log.info("Created JWT signing key {}", key);
+            return key;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not create a JWT signing key", e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.openwt.boatapp.security.jwt;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Storage of the {@link JwtKeyRing} keys, shared by every node of the application.
+ */
+public interface JwtKeyStore {
+    /**
+     * @param now the current time.
+     * @return the keys which have not expired yet.
+     */
+    List<JwtKey> findAllNotExpired(Instant now);
+
+    /**
+     * Store a new key.
+     *
+     * @param key the key.
+     */
+    void save(JwtKey key);
+
+    /**
+     * Delete the expired keys.
+     *
+     * @param now the current time.
+     */
+    void deleteExpired(Instant now);
+}
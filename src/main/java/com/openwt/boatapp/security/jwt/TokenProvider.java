@@ -1,16 +1,22 @@
 package com.openwt.boatapp.security.jwt;
 
+import com.openwt.boatapp.security.AuthoritiesConstants;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
 import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
 import java.security.Key;
-import java.util.Arrays;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,9 +32,29 @@ import org.springframework.stereotype.Component;
 public class TokenProvider {
 
     private static final String AUTHORITIES_KEY = "auth";
+
+    private static final GrantedAuthority[] KNOWN_AUTHORITIES = {
+        new SimpleGrantedAuthority(AuthoritiesConstants.USER),
+        new SimpleGrantedAuthority(AuthoritiesConstants.ADMIN),
+        new SimpleGrantedAuthority(AuthoritiesConstants.ANONYMOUS),
+    };
+
     private final Logger log = LoggerFactory.getLogger(TokenProvider.class);
+
+    private final JwtKeyRing keyRing;
+
+    /**
+     * The HS512 key which signed the tokens before the {@link JwtKeyRing}: they are accepted until they expire, and
+     * until {@link #legacyKeyCutoff} at the latest.
+     */
     private final Key key;
 
+    /**
+     * The time the last token signed with the HS512 key expires: the key ring replaced it at
+     * {@code legacy-secret-retired-at}, and tokens are valid for {@code token-validity-in-millis-for-remember-me} at most.
+     */
+    private final Instant legacyKeyCutoff;
+
     private final JwtParser jwtParser;
 
     private final long tokenValidityInMilliseconds;
@@ -36,17 +62,21 @@ public class TokenProvider {
     private final long tokenValidityInMillisecondsForRememberMe;
 
     public TokenProvider(
+        JwtKeyRing keyRing,
         @Value("${boatapp.security.authentication.jwt.base64-secret}") String secret,
+        @Value("${boatapp.security.authentication.jwt.legacy-secret-retired-at}") String legacySecretRetiredAt,
         @Value("${boatapp.security.authentication.jwt.token-validity-in-millis}") Long tokenValidityInMilliseconds,
         @Value(
             "${boatapp.security.authentication.jwt.token-validity-in-millis-for-remember-me}"
         ) Long tokenValidityInMillisecondsForRememberMe
     ) {
+        this.keyRing = keyRing;
         byte[] keyBytes;
         log.debug("Using a Base64-encoded JWT secret key");
         keyBytes = Decoders.BASE64.decode(secret);
         key = Keys.hmacShaKeyFor(keyBytes);
-        jwtParser = Jwts.parserBuilder().setSigningKey(key).build();
+        legacyKeyCutoff = Instant.parse(legacySecretRetiredAt).plusMillis(tokenValidityInMillisecondsForRememberMe);
+        jwtParser = Jwts.parserBuilder().setSigningKeyResolver(new KeyRingResolver()).build();
         this.tokenValidityInMilliseconds = tokenValidityInMilliseconds;
         this.tokenValidityInMillisecondsForRememberMe = tokenValidityInMillisecondsForRememberMe;
     }
@@ -62,29 +92,88 @@ public class TokenProvider {
             validity = new Date(now + this.tokenValidityInMilliseconds);
         }
 
+        JwtKey signingKey = keyRing.getSigningKey();
         return Jwts
             .builder()
+            .setHeaderParam(JwsHeader.KEY_ID, signingKey.getKid())
             .setSubject(authentication.getName())
             .claim(AUTHORITIES_KEY, authorities)
-            .signWith(key, SignatureAlgorithm.HS512)
+            .signWith(signingKey.getKeyPair().getPrivate(), SignatureAlgorithm.ES256)
             .setExpiration(validity)
             .compact();
     }
 
     public Authentication getAuthentication(String token) {
-        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        return getAuthentication(token, jwtParser.parseClaimsJws(token).getBody());
+    }
+
+    /**
+     * Validate a token and return its claims, so that it is parsed and verified only once.
+     *
+     * @param token the token.
+     * @return the claims of the token, or {@code null} if it is invalid.
+     */
+    public Claims getVerifiedClaims(String token) {
+        try {
+            return jwtParser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            log.info("Invalid JWT token.");
+            log.trace("Invalid JWT token trace.", e);
+        }
+        return null;
+    }
 
-        Collection<? extends GrantedAuthority> authorities = Arrays
-            .stream(claims.get(AUTHORITIES_KEY).toString().split(","))
-            .filter(auth -> !auth.trim().isEmpty())
-            .map(SimpleGrantedAuthority::new)
-            .collect(Collectors.toList());
+    public Authentication getAuthentication(String token, Claims claims) {
+        Collection<? extends GrantedAuthority> authorities = parseAuthorities(claims.get(AUTHORITIES_KEY).toString());
 
         User principal = new User(claims.getSubject(), "", authorities);
 
         return new UsernamePasswordAuthenticationToken(principal, token, authorities);
     }
 
+    /**
+     * Parse the comma-separated authorities of a token, skipping the blank ones, like
+     * {@code Arrays.stream(claim.split(",")).filter(auth -> !auth.trim().isEmpty()).map(SimpleGrantedAuthority::new)}
+     * but without the intermediate arrays and streams. The {@link AuthoritiesConstants} authorities are shared
+     * instances.
+     */
+    static List<GrantedAuthority> parseAuthorities(String claim) {
+        List<GrantedAuthority> authorities = new ArrayList<>(KNOWN_AUTHORITIES.length);
+        int length = claim.length();
+        int start = 0;
+        while (start <= length) {
+            int end = claim.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (!isBlank(claim, start, end)) {
+                authorities.add(authority(claim, start, end));
+            }
+            start = end + 1;
+        }
+        return authorities;
+    }
+
+    private static GrantedAuthority authority(String claim, int start, int end) {
+        for (GrantedAuthority known : KNOWN_AUTHORITIES) {
+            String name = known.getAuthority();
+            if (name.length() == end - start && claim.regionMatches(start, name, 0, name.length())) {
+                return known;
+            }
+        }
+        return new SimpleGrantedAuthority(claim.substring(start, end));
+    }
+
+    private static boolean isBlank(String claim, int start, int end) {
+        for (int i = start; i < end; i++) {
+            // Same definition of blank as String.trim()
+            if (claim.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public boolean validateToken(String authToken) {
         try {
             jwtParser.parseClaimsJws(authToken);
@@ -95,4 +184,32 @@ public class TokenProvider {
         }
         return false;
     }
+
+    /**
+     * Resolves the key verifying a token from its {@code kid} header. Tokens without {@code kid} are verified with the
+     * legacy HS512 key, unless they expire after {@link #legacyKeyCutoff}, so could only have been signed after the key
+     * was retired, or are presented after it.
+     */
+    private class KeyRingResolver extends SigningKeyResolverAdapter {
+
+        @Override
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            String kid = header.getKeyId();
+            if (kid == null) {
+                if (!SignatureAlgorithm.HS512.getValue().equals(header.getAlgorithm())) {
+                    throw new SignatureException("JWT token without key id");
+                }
+                Date expiration = claims.getExpiration();
+                if (expiration == null || expiration.toInstant().isAfter(legacyKeyCutoff) || Instant.now().isAfter(legacyKeyCutoff)) {
+                    throw new SignatureException("JWT token signed with the legacy key after its cutoff " + legacyKeyCutoff);
+                }
+                return key;
+            }
+            Key verificationKey = keyRing.getVerificationKey(kid);
+            if (verificationKey == null) {
+                throw new SignatureException("Unknown JWT key id " + kid);
+            }
+            return verificationKey;
+        }
+    }
 }
@@ -0,0 +1,84 @@
+package com.openwt.boatapp.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache of the {@link Authentication} built from the tokens already verified by the {@link TokenProvider}.
+ * <p>
+ * Clients send the same token with every request: once verified, a token is only looked up. An entry expires with its
+ * token, and the least recently used entries are evicted beyond {@code max-entries}. Only valid tokens are cached.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final TokenProvider tokenProvider;
+
+    private final Cache<String, VerifiedToken> cache;
+
+    public VerifiedTokenCache(
+        TokenProvider tokenProvider,
+        @Value("${boatapp.security.authentication.jwt.verified-token-cache.max-entries}") Long maxEntries
+    ) {
+        this.tokenProvider = tokenProvider;
+        this.cache = Caffeine.newBuilder().maximumSize(maxEntries).expireAfter(new TokenExpiry()).build();
+    }
+
+    /**
+     * @param token the token.
+     * @return the authentication of the token, or {@code null} if it is invalid.
+     */
+    public Authentication getAuthentication(String token) {
+        VerifiedToken verified = cache.getIfPresent(token);
+        if (verified != null) {
+            return verified.authentication;
+        }
+        Claims claims = tokenProvider.getVerifiedClaims(token);
+        if (claims == null) {
+            return null;
+        }
+        Authentication authentication = tokenProvider.getAuthentication(token, claims);
+        Date expiration = claims.getExpiration();
+        if (expiration != null) {
+            cache.put(token, new VerifiedToken(authentication, expiration.getTime()));
+        }
+        return authentication;
+    }
+
+    private static final class VerifiedToken {
+
+        private final Authentication authentication;
+
+        private final long expiresAtMillis;
+
+        private VerifiedToken(Authentication authentication, long expiresAtMillis) {
+            this.authentication = authentication;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    private static final class TokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String token, VerifiedToken verified, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, verified.expiresAtMillis - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, VerifiedToken verified, long currentTime, long currentDuration) {
+            return expireAfterCreate(token, verified, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String token, VerifiedToken verified, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
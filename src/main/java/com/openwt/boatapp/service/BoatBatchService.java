@@ -0,0 +1,245 @@
+package com.openwt.boatapp.service;
+
+import com.openwt.boatapp.domain.Boat;
+import com.openwt.boatapp.repository.BoatRepository;
+import com.openwt.boatapp.service.cache.CacheInvalidation;
+import com.openwt.boatapp.service.cache.CacheInvalidationBus;
+import com.openwt.boatapp.service.dto.BoatBatchItemDTO;
+import com.openwt.boatapp.service.dto.BoatBatchResultDTO;
+import com.openwt.boatapp.service.dto.BoatBatchResultDTO.Status;
+import com.openwt.boatapp.service.dto.BoatDTO;
+import com.openwt.boatapp.service.mapper.BoatMapper;
+import com.openwt.boatapp.service.search.BoatSearchIndex;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service applying batches of creations, updates and deletions of {@link Boat} entities.
+ * <p>
+ * Each chunk of operations is applied in a single transaction, so that Hibernate sends its inserts, updates and deletes
+ * as JDBC batches: the ids of the new boats come from the pooled {@code sequence_generator}, which hands out 50 ids per
+ * database round trip, and the existing boats are loaded with a single query. If the chunk fails, its operations are
+ * applied again one by one, so that only the failing ones are reported as such.
+ * <p>
+ * Chunks are meant to be applied outside of any transaction: within one, they all join it.
+ */
+@Service
+public class BoatBatchService {
+
+    private final Logger log = LoggerFactory.getLogger(BoatBatchService.class);
+
+    private final BoatRepository boatRepository;
+
+    private final BoatMapper boatMapper;
+
+    private final BoatPicService boatPicService;
+
+    private final BoatSearchIndex boatSearchIndex;
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    private final Validator validator;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public BoatBatchService(
+        BoatRepository boatRepository,
+        BoatMapper boatMapper,
+        BoatPicService boatPicService,
+        BoatSearchIndex boatSearchIndex,
+        CacheInvalidationBus cacheInvalidationBus,
+        Validator validator,
+        PlatformTransactionManager transactionManager
+    ) {
+        this.boatRepository = boatRepository;
+        this.boatMapper = boatMapper;
+        this.boatPicService = boatPicService;
+        this.boatSearchIndex = boatSearchIndex;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Validate and apply a chunk of a batch.
+     *
+     * @param items      the operations of the chunk.
+     * @param firstIndex the position of the first operation of the chunk in the batch.
+     * @return the outcome of each operation, in the same order.
+     */
+    public List<BoatBatchResultDTO> apply(List<BoatBatchItemDTO> items, int firstIndex) {
+        log.debug("Request to apply {} Boat batch operations from {}", items.size(), firstIndex);
+        BoatBatchResultDTO[] results = new BoatBatchResultDTO[items.size()];
+        List<Integer> valid = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            String error = validate(items.get(i));
+            if (error == null) {
+                valid.add(i);
+            } else {
+                results[i] = new BoatBatchResultDTO(firstIndex + i, Status.INVALID, items.get(i).getId(), error);
+            }
+        }
+        if (valid.isEmpty()) {
+            return Arrays.asList(results);
+        }
+        try {
+            List<BoatBatchResultDTO> applied = transactionTemplate.execute(status -> applyAll(items, valid, firstIndex));
+            for (int i = 0; i < valid.size(); i++) {
+                results[valid.get(i)] = applied.get(i);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not apply the Boat batch chunk from {}, applying its operations one by one: {}", firstIndex, e.getMessage());
+            for (int i : valid) {
+                results[i] = applyOne(items, i, firstIndex);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private BoatBatchResultDTO applyOne(List<BoatBatchItemDTO> items, int i, int firstIndex) {
+        try {
+            return transactionTemplate.execute(status -> applyAll(items, List.of(i), firstIndex)).get(0);
+        } catch (RuntimeException e) {
+            log.debug("Could not apply the Boat batch operation {}", firstIndex + i, e);
+            return new BoatBatchResultDTO(firstIndex + i, Status.FAILED, idOf(items.get(i)), e.getMessage());
+        }
+    }
+
+    private List<BoatBatchResultDTO> applyAll(List<BoatBatchItemDTO> items, List<Integer> indexes, int firstIndex) {
+        Set<Long> ids = indexes.stream().map(i -> idOf(items.get(i))).filter(Objects::nonNull).collect(Collectors.toSet());
+        Map<Long, Boat> existing = new HashMap<>();
+        for (Boat boat : boatRepository.findAllById(ids)) {
+            existing.put(boat.getId(), boat);
+        }
+        List<BoatBatchResultDTO> results = new ArrayList<>(indexes.size());
+        Set<String> previousPicHashes = new HashSet<>();
+        for (int i : indexes) {
+            results.add(applyItem(items.get(i), firstIndex + i, existing, previousPicHashes));
+        }
+        // Send the batched statements now, so that a failure is reported for this chunk
+        boatRepository.flush();
+        if (!results.isEmpty()) {
+            cacheInvalidationBus.publish(CacheInvalidation.clear(BoatService.BOAT_QUERIES_CACHE));
+        }
+        previousPicHashes.forEach(boatPicService::releaseIfUnreferenced);
+        return results;
+    }
+
+    private BoatBatchResultDTO applyItem(BoatBatchItemDTO item, int index, Map<Long, Boat> existing, Set<String> previousPicHashes) {
+        switch (item.getAction()) {
+            case CREATE:
+                return create(item.getBoat(), index);
+            case UPDATE:
+                return update(item.getBoat(), index, existing, previousPicHashes);
+            case DELETE:
+                return delete(item.getId(), index, existing, previousPicHashes);
+            default:
+                throw new IllegalStateException("Unknown action " + item.getAction());
+        }
+    }
+
+    private BoatBatchResultDTO create(BoatDTO boatDTO, int index) {
+        Boat boat = boatMapper.toEntity(boatDTO);
+        boatPicService.attach(boat, boatDTO.getPic());
+        boat = boatRepository.save(boat);
+        boatSearchIndex.index(boat);
+        return new BoatBatchResultDTO(index, Status.CREATED, boat.getId(), null);
+    }
+
+    private BoatBatchResultDTO update(BoatDTO boatDTO, int index, Map<Long, Boat> existing, Set<String> previousPicHashes) {
+        Boat current = existing.get(boatDTO.getId());
+        if (current == null) {
+            return new BoatBatchResultDTO(index, Status.NOT_FOUND, boatDTO.getId(), "Entity not found");
+        }
+        String previousPicHash = current.getPicHash();
+        Boat boat = boatMapper.toEntity(boatDTO);
+        if (boat.getVersion() == null) {
+            boat.setVersion(current.getVersion());
+        }
+        boatPicService.attach(boat, boatDTO.getPic());
+        // Merged into the boat loaded above, without another select
+        boat = boatRepository.save(boat);
+        boatSearchIndex.index(boat);
+        evict(boat.getId());
+        if (previousPicHash != null && !previousPicHash.equals(boat.getPicHash())) {
+            previousPicHashes.add(previousPicHash);
+        }
+        return new BoatBatchResultDTO(index, Status.UPDATED, boat.getId(), null);
+    }
+
+    private BoatBatchResultDTO delete(Long id, int index, Map<Long, Boat> existing, Set<String> previousPicHashes) {
+        // Removed from the loaded boats, so that a later operation of the chunk on the same boat finds nothing
+        Boat current = existing.remove(id);
+        if (current == null) {
+            return new BoatBatchResultDTO(index, Status.NOT_FOUND, id, "Entity not found");
+        }
+        boatRepository.delete(current);
+        boatSearchIndex.remove(id);
+        evict(id);
+        if (current.getPicHash() != null) {
+            previousPicHashes.add(current.getPicHash());
+        }
+        return new BoatBatchResultDTO(index, Status.DELETED, id, null);
+    }
+
+    private void evict(Long id) {
+        cacheInvalidationBus.publish(CacheInvalidation.evict(BoatService.BOATS_BY_ID_CACHE, id));
+    }
+
+    /**
+     * @return why the operation is invalid, or {@code null} if it is valid.
+     */
+    private String validate(BoatBatchItemDTO item) {
+        if (item.getAction() == null) {
+            return "Missing action";
+        }
+        if (item.getAction() == BoatBatchItemDTO.Action.DELETE) {
+            return item.getId() == null ? "Invalid ID" : null;
+        }
+        BoatDTO boatDTO = item.getBoat();
+        if (boatDTO == null) {
+            return "Missing boat";
+        }
+        if (item.getAction() == BoatBatchItemDTO.Action.CREATE && boatDTO.getId() != null) {
+            return "A new boat cannot already have an ID";
+        }
+        if (item.getAction() == BoatBatchItemDTO.Action.UPDATE) {
+            if (boatDTO.getId() == null) {
+                return "Invalid ID";
+            }
+            if (item.getId() != null && !item.getId().equals(boatDTO.getId())) {
+                return "Invalid ID";
+            }
+        }
+        Set<ConstraintViolation<BoatDTO>> violations = validator.validate(boatDTO);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations
+            .stream()
+            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+            .sorted()
+            .collect(Collectors.joining(", "));
+    }
+
+    private static Long idOf(BoatBatchItemDTO item) {
+        if (item.getAction() != BoatBatchItemDTO.Action.DELETE && item.getBoat() != null) {
+            return item.getBoat().getId();
+        }
+        return item.getId();
+    }
+}
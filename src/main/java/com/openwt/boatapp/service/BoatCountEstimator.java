@@ -0,0 +1,53 @@
+package com.openwt.boatapp.service;
+
+import java.util.Optional;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service estimating the number of {@link com.openwt.boatapp.domain.Boat} entities from the PostgreSQL planner
+ * statistics, without counting them.
+ * <p>
+ * Only the unfiltered count is estimated, from {@code pg_class.reltuples}: estimating a filtered count would need the
+ * criteria translated to SQL a second time, next to {@link BoatQueryService#createSpecification}, so filtered counts
+ * are left to the caller. Estimates are only as fresh as the last {@code ANALYZE}, so they are meant for an order of
+ * magnitude, never for exact paging.
+ */
+@Service
+public class BoatCountEstimator {
+
+    private static final String POSTGRESQL = "PostgreSQL";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean postgresql;
+
+    public BoatCountEstimator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Estimate the number of boats.
+     *
+     * @return the estimated count, or empty if the database does not provide planner statistics, or has not analyzed
+     * the table yet.
+     */
+    public Optional<Long> estimateAll() {
+        if (!isPostgresql()) {
+            return Optional.empty();
+        }
+        Long reltuples = jdbcTemplate.queryForObject("select reltuples::bigint from pg_class where oid = 'boat'::regclass", Long.class);
+        return Optional.ofNullable(reltuples).filter(estimate -> estimate >= 0);
+    }
+
+    private boolean isPostgresql() {
+        if (postgresql == null) {
+            String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()
+            );
+            postgresql = POSTGRESQL.equals(product);
+        }
+        return postgresql;
+    }
+}
@@ -0,0 +1,152 @@
+package com.openwt.boatapp.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openwt.boatapp.domain.Boat;
+import com.openwt.boatapp.service.criteria.BoatCriteria;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service exporting {@link Boat} entities, as newline-delimited JSON or as CSV.
+ * <p>
+ * Boats are read from a database cursor and written one at a time, then detached, so that the memory used does not
+ * depend on the number of boats. Pictures are not exported, only their URL.
+ */
+@Service
+public class BoatExportService {
+
+    /**
+     * The export formats.
+     */
+    public enum Format {
+        NDJSON,
+        CSV,
+    }
+
+    private static final String[] COLUMNS = { "id", "name", "description", "picContentType", "picUrl" };
+
+    private final Logger log = LoggerFactory.getLogger(BoatExportService.class);
+
+    private final BoatQueryService boatQueryService;
+
+    private final EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    private final int fetchSize;
+
+    public BoatExportService(
+        BoatQueryService boatQueryService,
+        EntityManager entityManager,
+        ObjectMapper objectMapper,
+        @Value("${boatapp.export.fetch-size}") int fetchSize
+    ) {
+        this.boatQueryService = boatQueryService;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Write the boats which match the criteria to a stream, ordered by id.
+     * <p>
+     * The read-only transaction, and the database cursor, stay open until the last boat is written.
+     *
+     * @param criteria the criteria which the exported boats should match.
+     * @param format   the export format.
+     * @param out      the stream to write to, which is left open.
+     * @return the number of exported boats.
+     * @throws IOException if writing to the stream failed.
+     */
+    @Transactional(readOnly = true)
+    public long export(BoatCriteria criteria, Format format, OutputStream out) throws IOException {
+        log.debug("Request to export Boats as {} by criteria: {}", format, criteria);
+        try (Stream<Boat> boats = boatQueryService.streamByCriteria(criteria, fetchSize)) {
+            return format == Format.CSV ? writeCsv(boats.iterator(), out) : writeNdjson(boats.iterator(), out);
+        }
+    }
+
+    private long writeNdjson(Iterator<Boat> boats, OutputStream out) throws IOException {
+        long count = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            while (boats.hasNext()) {
+                Boat boat = boats.next();
+                String[] values = valuesOf(boat);
+                generator.writeStartObject();
+                generator.writeNumberField(COLUMNS[0], boat.getId());
+                for (int i = 1; i < COLUMNS.length; i++) {
+                    if (values[i] != null) {
+                        generator.writeStringField(COLUMNS[i], values[i]);
+                    }
+                }
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                entityManager.detach(boat);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private long writeCsv(Iterator<Boat> boats, OutputStream out) throws IOException {
+        long count = 0;
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writeCsvRow(writer, COLUMNS);
+        while (boats.hasNext()) {
+            Boat boat = boats.next();
+            writeCsvRow(writer, valuesOf(boat));
+            entityManager.detach(boat);
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    /**
+     * Write a CSV row as RFC 4180 specifies: fields holding a comma, a quote or a line break are quoted.
+     */
+    private static void writeCsvRow(Writer writer, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String value = values[i];
+            if (value == null) {
+                continue;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private static String[] valuesOf(Boat boat) {
+        return new String[] {
+            boat.getId().toString(),
+            boat.getName(),
+            boat.getDescription(),
+            boat.getPicContentType(),
+            boat.getPicHash() == null ? null : "/api/boats/" + boat.getId() + "/pic",
+        };
+    }
+}
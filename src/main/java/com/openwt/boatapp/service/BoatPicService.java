@@ -0,0 +1,244 @@
+package com.openwt.boatapp.service;
+
+import com.openwt.boatapp.domain.Boat;
+import com.openwt.boatapp.repository.BoatRepository;
+import com.openwt.boatapp.service.dto.BoatDTO;
+import com.openwt.boatapp.service.image.ImageDerivativeService;
+import com.openwt.boatapp.service.image.ImageSize;
+import com.openwt.boatapp.service.image.ImageStore;
+import com.openwt.boatapp.service.image.ImageUpload;
+import com.openwt.boatapp.service.image.StoredImage;
+import com.openwt.boatapp.service.mapper.BoatMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service linking {@link Boat} entities to their picture in the {@link ImageStore}.
+ * <p>
+ * The {@code boat} row only keeps the content hash and the size of its picture, the content itself is stored once
+ * per distinct image. Smaller {@link ImageSize derivatives} of each picture are generated in the background.
+ */
+@Service
+@Transactional
+public class BoatPicService {
+
+    private final Logger log = LoggerFactory.getLogger(BoatPicService.class);
+
+    private final ImageStore imageStore;
+
+    private final BoatRepository boatRepository;
+
+    private final BoatMapper boatMapper;
+
+    private final ImageDerivativeService imageDerivativeService;
+
+    public BoatPicService(
+        ImageStore imageStore,
+        BoatRepository boatRepository,
+        BoatMapper boatMapper,
+        ImageDerivativeService imageDerivativeService
+    ) {
+        this.imageStore = imageStore;
+        this.boatRepository = boatRepository;
+        this.boatMapper = boatMapper;
+        this.imageDerivativeService = imageDerivativeService;
+    }
+
+    /**
+     * Store a picture and reference it from the boat. Its derivatives are generated once the transaction has committed.
+     *
+     * @param boat the boat.
+     * @param pic  the picture content, or {@code null} to remove the picture reference.
+     */
+    public void attach(Boat boat, byte[] pic) {
+        if (pic == null) {
+            boat.setPicHash(null);
+            boat.setPicSize(null);
+            return;
+        }
+        boat.setPicHash(imageStore.store(pic));
+        boat.setPicSize((long) pic.length);
+        imageDerivativeService.generateAfterCommit(boat.getPicHash());
+    }
+
+    /**
+     * Store an uploaded picture and reference it from the boat, with the content type detected from its content.
+     * Its derivatives are generated once the transaction has committed.
+     *
+     * @param boat   the boat.
+     * @param upload the uploaded picture.
+     */
+    public void attach(Boat boat, ImageUpload upload) {
+        try {
+            boat.setPicHash(imageStore.store(upload));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store the picture of Boat " + boat.getId(), e);
+        }
+        boat.setPicSize(upload.getSize());
+        boat.setPicContentType(upload.getContentType());
+        imageDerivativeService.generateAfterCommit(boat.getPicHash());
+    }
+
+    /**
+     * Delete a picture and its derivatives from the image store, if no boat references them anymore. The image store
+     * checks the references again as it deletes, so a picture which a concurrent save has just attached is kept.
+     *
+     * @param picHash the content hash of the picture, may be {@code null}.
+     */
+    public void releaseIfUnreferenced(String picHash) {
+        if (picHash != null && !boatRepository.existsByPicHash(picHash)) {
+            log.debug("Releasing unreferenced picture {}", picHash);
+            for (String derivativeHash : imageDerivativeService.release(picHash)) {
+                if (!derivativeHash.equals(picHash)) {
+                    imageStore.deleteIfUnreferenced(derivativeHash);
+                }
+            }
+            imageStore.deleteIfUnreferenced(picHash);
+        }
+    }
+
+    /**
+     * Load the picture of a boat.
+     *
+     * @param boat the boat.
+     * @return the picture content, or empty if the boat has no picture.
+     */
+    @Transactional(readOnly = true)
+    public Optional<byte[]> load(Boat boat) {
+        return Optional.ofNullable(boat.getPicHash()).flatMap(imageStore::load);
+    }
+
+    /**
+     * Get the metadata of the picture of the "id" boat.
+     *
+     * @param id the id of the boat.
+     * @return the picture metadata, or empty if the boat does not exist or has no picture.
+     */
+    @Transactional(readOnly = true)
+    public Optional<StoredImage> findPic(Long id) {
+        return boatRepository
+            .findById(id)
+            .filter(boat -> boat.getPicHash() != null)
+            .map(boat -> new StoredImage(boat.getPicHash(), boat.getPicSize() == null ? 0 : boat.getPicSize(), boat.getPicContentType()));
+    }
+
+    /**
+     * Get the metadata of a derivative of the picture of the "id" boat.
+     * <p>
+     * Until the derivative is generated, or if the picture can not be decoded, the picture itself is returned.
+     *
+     * @param id   the id of the boat.
+     * @param size the size of the derivative.
+     * @return the derivative metadata, or empty if the boat does not exist or has no picture.
+     */
+    @Transactional(readOnly = true)
+    public Optional<StoredImage> findPic(Long id, ImageSize size) {
+        return findPic(id)
+            .map(
+                pic ->
+                    imageDerivativeService
+                        .find(pic.getHash(), size)
+                        .map(
+                            derivative ->
+                                derivative.getContentType() != null
+                                    ? derivative
+                                    : new StoredImage(derivative.getHash(), derivative.getSize(), pic.getContentType())
+                        )
+                        .orElseGet(
+                            () -> {
+                                imageDerivativeService.generateAfterCommit(pic.getHash());
+                                return pic;
+                            }
+                        )
+            );
+    }
+
+    /**
+     * Write a byte range of a picture to a stream.
+     * <p>
+     * This does not start a transaction of its own, so no database transaction stays open while a slow client
+     * reads the picture.
+     *
+     * @param pic      the picture.
+     * @param position the index of the first byte to write.
+     * @param count    the number of bytes to write.
+     * @param out      the stream to write to.
+     * @return {@code true} if the picture content was found.
+     * @throws IOException if writing to the stream failed.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public boolean transferTo(StoredImage pic, long position, long count, OutputStream out) throws IOException {
+        return imageStore.transferTo(pic.getHash(), position, count, out);
+    }
+
+    /**
+     * Map a boat to its DTO, including the picture content.
+     *
+     * @param boat the boat.
+     * @return the DTO.
+     */
+    @Transactional(readOnly = true)
+    public BoatDTO toDto(Boat boat) {
+        BoatDTO boatDTO = toSummaryDto(boat);
+        load(boat).ifPresent(boatDTO::setPic);
+        return boatDTO;
+    }
+
+    /**
+     * Copy a DTO mapped by {@link #toSummaryDto(Boat)}, and add the picture content to the copy.
+     *
+     * @param summary the DTO without the picture content, left unchanged.
+     * @param picHash the content hash of the picture, may be {@code null}.
+     * @return the DTO including the picture content.
+     */
+    @Transactional(readOnly = true)
+    public BoatDTO withPic(BoatDTO summary, String picHash) {
+        BoatDTO boatDTO = boatMapper.copy(summary);
+        Optional.ofNullable(picHash).flatMap(imageStore::load).ifPresent(boatDTO::setPic);
+        return boatDTO;
+    }
+
+    /**
+     * Map boats to their DTOs for a list. The picture content is not loaded: the DTOs link to the picture thumbnail.
+     *
+     * @param boats the boats.
+     * @return the DTOs.
+     */
+    public List<BoatDTO> toDto(List<Boat> boats) {
+        return boats.stream().map(this::toSummaryDto).collect(Collectors.toList());
+    }
+
+    /**
+     * Map a page of boats to DTOs for a list. The picture content is not loaded: the DTOs link to the picture thumbnail.
+     *
+     * @param boats the page of boats.
+     * @return the page of DTOs.
+     */
+    public Page<BoatDTO> toDto(Page<Boat> boats) {
+        return boats.map(this::toSummaryDto);
+    }
+
+    /**
+     * Map a boat to its DTO without the picture content: the DTO links to the picture thumbnail.
+     *
+     * @param boat the boat.
+     * @return the DTO.
+     */
+    public BoatDTO toSummaryDto(Boat boat) {
+        BoatDTO boatDTO = boatMapper.toDto(boat);
+        if (boat.getPicHash() != null) {
+            boatDTO.setPicUrl("/api/boats/" + boat.getId() + "/pic?size=thumb");
+        }
+        return boatDTO;
+    }
+}
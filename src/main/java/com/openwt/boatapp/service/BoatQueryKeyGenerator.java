@@ -0,0 +1,72 @@
+package com.openwt.boatapp.service;
+
+import com.openwt.boatapp.service.criteria.BoatCriteria;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.stereotype.Component;
+import tech.jhipster.service.filter.Filter;
+import tech.jhipster.service.filter.LongFilter;
+import tech.jhipster.service.filter.StringFilter;
+
+/**
+ * {@link KeyGenerator} of the {@link BoatService#BOAT_QUERIES_CACHE} entries.
+ * <p>
+ * Keys start with a generation number, which {@link #nextGeneration()} bumps on every boat write: entries of older
+ * generations can no longer be looked up, and are left to the size and time-based eviction of the cache. The criteria
+ * are normalized, so that equivalent requests share an entry: empty filters are dropped, {@code in} lists are sorted
+ * and the free-text query is trimmed.
+ */
+@Component("boatQueryKeyGenerator")
+public class BoatQueryKeyGenerator implements KeyGenerator {
+
+    private final AtomicLong generation = new AtomicLong();
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        List<Object> elements = new ArrayList<>(params.length + 2);
+        elements.add(generation.get());
+        elements.add(method.getName());
+        for (Object param : params) {
+            elements.add(param instanceof BoatCriteria ? normalize((BoatCriteria) param) : param);
+        }
+        return new SimpleKey(elements.toArray());
+    }
+
+    /**
+     * Invalidate all the cached query results.
+     */
+    public void nextGeneration() {
+        generation.incrementAndGet();
+    }
+
+    static BoatCriteria normalize(BoatCriteria criteria) {
+        BoatCriteria normalized = criteria.copy();
+        normalized.setId(normalize(normalized.getId(), new LongFilter()));
+        normalized.setName(normalize(normalized.getName(), new StringFilter()));
+        normalized.setDescription(normalize(normalized.getDescription(), new StringFilter()));
+        normalized.setQ(normalized.getQ() == null || normalized.getQ().isBlank() ? null : normalized.getQ().trim());
+        return normalized;
+    }
+
+    private static <T extends Comparable<? super T>, F extends Filter<T>> F normalize(F filter, F empty) {
+        if (filter == null || filter.equals(empty)) {
+            return null;
+        }
+        if (filter.getIn() != null) {
+            filter.setIn(sorted(filter.getIn()));
+        }
+        if (filter.getNotIn() != null) {
+            filter.setNotIn(sorted(filter.getNotIn()));
+        }
+        return filter;
+    }
+
+    private static <T extends Comparable<? super T>> List<T> sorted(List<T> values) {
+        return new ArrayList<>(new TreeSet<>(values));
+    }
+}
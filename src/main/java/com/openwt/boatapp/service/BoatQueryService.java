@@ -1,17 +1,46 @@
 package com.openwt.boatapp.service;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_MODE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 import com.openwt.boatapp.domain.*; // for static metamodels
 import com.openwt.boatapp.domain.Boat;
 import com.openwt.boatapp.repository.BoatRepository;
 import com.openwt.boatapp.service.criteria.BoatCriteria;
+import com.openwt.boatapp.service.dto.BoatCursor;
 import com.openwt.boatapp.service.dto.BoatDTO;
-import com.openwt.boatapp.service.mapper.BoatMapper;
+import com.openwt.boatapp.service.dto.BoatSummaryDTO;
+import com.openwt.boatapp.service.dto.BoatVersion;
+import com.openwt.boatapp.service.search.BoatSearchIndex;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import org.hibernate.CacheMode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import tech.jhipster.service.QueryService;
@@ -20,7 +49,8 @@ import tech.jhipster.service.QueryService;
  * Service for executing complex queries for {@link Boat} entities in the database.
  * The main input is a {@link BoatCriteria} which gets converted to {@link Specification},
  * in a way that all the filters must apply.
- * It returns a {@link List} of {@link BoatDTO} or a {@link Page} of {@link BoatDTO} which fulfills the criteria.
+ * It returns a {@link List} of {@link BoatDTO} or a {@link Page} of {@link BoatDTO} which fulfills the criteria,
+ * or a {@link Page} of the lighter {@link BoatSummaryDTO} for list views.
  */
 @Service
 @Transactional(readOnly = true)
@@ -30,11 +60,26 @@ public class BoatQueryService extends QueryService<Boat> {
 
     private final BoatRepository boatRepository;
 
-    private final BoatMapper boatMapper;
+    private final BoatPicService boatPicService;
+
+    private final EntityManager entityManager;
+
+    private final BoatCountEstimator boatCountEstimator;
+
+    private final BoatSearchIndex boatSearchIndex;
 
-    public BoatQueryService(BoatRepository boatRepository, BoatMapper boatMapper) {
+    public BoatQueryService(
+        BoatRepository boatRepository,
+        BoatPicService boatPicService,
+        EntityManager entityManager,
+        BoatCountEstimator boatCountEstimator,
+        BoatSearchIndex boatSearchIndex
+    ) {
         this.boatRepository = boatRepository;
-        this.boatMapper = boatMapper;
+        this.boatPicService = boatPicService;
+        this.entityManager = entityManager;
+        this.boatCountEstimator = boatCountEstimator;
+        this.boatSearchIndex = boatSearchIndex;
     }
 
     /**
@@ -47,21 +92,174 @@ public class BoatQueryService extends QueryService<Boat> {
     public List<BoatDTO> findByCriteria(BoatCriteria criteria) {
         log.debug("find by criteria : {}", criteria);
         final Specification<Boat> specification = createSpecification(criteria);
-        return boatMapper.toDto(boatRepository.findAll(specification));
+        return boatPicService.toDto(selectBoats(specification, searchText(criteria), Sort.unsorted()).getResultList());
     }
 
     /**
      * Return a {@link Page} of {@link BoatDTO} which matches the criteria from the database.
+     * <p>
+     * Results are cached until the next boat write, see {@link BoatQueryKeyGenerator}.
      *
      * @param criteria The object which holds all the filters, which the entities should match.
      * @param page     The page, which should be returned.
      * @return the matching entities.
      */
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = BoatService.BOAT_QUERIES_CACHE, keyGenerator = "boatQueryKeyGenerator")
     public Page<BoatDTO> findByCriteria(BoatCriteria criteria, Pageable page) {
         log.debug("find by criteria : {}, page: {}", criteria, page);
         final Specification<Boat> specification = createSpecification(criteria);
-        return boatRepository.findAll(specification, page).map(boatMapper::toDto);
+        String q = searchText(criteria);
+        if (q == null || page.getSort().isSorted()) {
+            return boatPicService.toDto(boatRepository.findAll(specification, page));
+        }
+        TypedQuery<Boat> query = selectBoats(specification, q, page.getSort());
+        if (page.isPaged()) {
+            query.setFirstResult((int) page.getOffset());
+            query.setMaxResults(page.getPageSize());
+        }
+        Page<Boat> boats = PageableExecutionUtils.getPage(query.getResultList(), page, () -> boatRepository.count(specification));
+        return boatPicService.toDto(boats);
+    }
+
+    /**
+     * Return a {@link Page} of {@link BoatSummaryDTO} which matches the criteria from the database.
+     * <p>
+     * Only the summary columns are selected, with a constructor query built from the same {@link Specification}
+     * as {@link #findByCriteria(BoatCriteria, Pageable)}.
+     *
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page     The page, which should be returned.
+     * @return the matching summaries.
+     */
+    @Transactional(readOnly = true)
+    public Page<BoatSummaryDTO> findSummariesByCriteria(BoatCriteria criteria, Pageable page) {
+        log.debug("find summaries by criteria : {}, page: {}", criteria, page);
+        final Specification<Boat> specification = createSpecification(criteria);
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BoatSummaryDTO> query = cb.createQuery(BoatSummaryDTO.class);
+        Root<Boat> root = query.from(Boat.class);
+        query.select(cb.construct(BoatSummaryDTO.class, root.get(Boat_.id), root.get(Boat_.name), root.get(Boat_.picHash)));
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        orderBy(query, root, cb, searchText(criteria), page.getSort());
+        TypedQuery<BoatSummaryDTO> typedQuery = entityManager.createQuery(query).setHint(HINT_CACHEABLE, true);
+        if (page.isPaged()) {
+            typedQuery.setFirstResult((int) page.getOffset());
+            typedQuery.setMaxResults(page.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(typedQuery.getResultList(), page, () -> boatRepository.count(specification));
+    }
+
+    /**
+     * Return the ids and versions of the page of boats which {@link #findByCriteria(BoatCriteria, Pageable)} would
+     * return, without reading the boats themselves or counting them.
+     *
+     * @param criteria  The object which holds all the filters, which the entities should match.
+     * @param page      The page, whose boats should be returned.
+     * @param lookAhead The number of boats following the page to return as well, to find out whether there is a next
+     *                  page.
+     * @return the ids and versions of the matching entities, in page order.
+     */
+    @Transactional(readOnly = true)
+    public List<BoatVersion> findVersionsByCriteria(BoatCriteria criteria, Pageable page, int lookAhead) {
+        log.debug("find versions by criteria : {}, page: {}, look-ahead: {}", criteria, page, lookAhead);
+        final Specification<Boat> specification = createSpecification(criteria);
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BoatVersion> query = cb.createQuery(BoatVersion.class);
+        Root<Boat> root = query.from(Boat.class);
+        query.select(cb.construct(BoatVersion.class, root.get(Boat_.id), root.get(Boat_.version)));
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        orderBy(query, root, cb, searchText(criteria), page.getSort());
+        TypedQuery<BoatVersion> typedQuery = entityManager.createQuery(query).setHint(HINT_CACHEABLE, true);
+        if (page.isPaged()) {
+            typedQuery.setFirstResult((int) page.getOffset());
+            typedQuery.setMaxResults(page.getPageSize() + lookAhead);
+        }
+        return typedQuery.getResultList();
+    }
+
+    /**
+     * Return a {@link Slice} of {@link BoatDTO} which matches the criteria from the database, using keyset pagination.
+     * <p>
+     * Instead of skipping rows with an offset, the query seeks right after the {@code (sort key, id)} pair held by the
+     * cursor, so its cost does not depend on how deep the page is. No count query is run: one extra row is fetched to
+     * find out whether there is a next page.
+     *
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param order    The sort order, one of {@link BoatCursor#SORT_PROPERTIES}; ignored when a cursor is given.
+     * @param after    The cursor returned with the previous page, or {@code null} for the first page.
+     * @param size     The page size.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<BoatDTO> findByCriteriaAfter(BoatCriteria criteria, Sort.Order order, BoatCursor after, int size) {
+        log.debug("find by criteria : {}, after: {}, size: {}", criteria, after, size);
+        Sort.Order seekOrder = after != null ? after.getOrder() : order;
+        if (!BoatCursor.SORT_PROPERTIES.contains(seekOrder.getProperty())) {
+            throw new IllegalArgumentException("Cannot seek on property " + seekOrder.getProperty());
+        }
+        Sort sort = "id".equals(seekOrder.getProperty())
+            ? Sort.by(seekOrder)
+            : Sort.by(seekOrder, new Sort.Order(seekOrder.getDirection(), "id"));
+        Specification<Boat> specification = createSpecification(criteria);
+        if (after != null) {
+            specification = specification.and(seekAfter(after));
+        }
+
+        return findSlice(specification, null, PageRequest.of(0, size, sort));
+    }
+
+    /**
+     * Return a {@link Slice} of {@link BoatDTO} which matches the criteria from the database.
+     * <p>
+     * Unlike {@link #findByCriteria(BoatCriteria, Pageable)}, no count query is run: one extra row is fetched to
+     * find out whether there is a next page.
+     *
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page     The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<BoatDTO> findSliceByCriteria(BoatCriteria criteria, Pageable page) {
+        log.debug("find slice by criteria : {}, page: {}", criteria, page);
+        return findSlice(createSpecification(criteria), searchText(criteria), page);
+    }
+
+    /**
+     * Return a {@link Stream} of the {@link Boat} entities which match the criteria from the database, ordered by id.
+     * <p>
+     * The rows are read from a forward-only cursor, {@code fetchSize} at a time, and bypass the second-level cache.
+     * The stream must be consumed and closed within the calling transaction, which should detach each entity once
+     * it is done with it, so that the persistence context does not grow with the number of rows.
+     *
+     * @param criteria  The object which holds all the filters, which the entities should match.
+     * @param fetchSize The number of rows fetched per database round trip.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Stream<Boat> streamByCriteria(BoatCriteria criteria, int fetchSize) {
+        log.debug("stream by criteria : {}", criteria);
+        final Specification<Boat> specification = createSpecification(criteria);
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Boat> query = cb.createQuery(Boat.class);
+        Root<Boat> root = query.from(Boat.class);
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(root).orderBy(cb.asc(root.get(Boat_.id)));
+        return entityManager
+            .createQuery(query)
+            .setHint(HINT_FETCH_SIZE, fetchSize)
+            .setHint(HINT_READONLY, true)
+            .setHint(HINT_CACHE_MODE, CacheMode.IGNORE)
+            .getResultStream();
     }
 
     /**
@@ -71,12 +269,125 @@ public class BoatQueryService extends QueryService<Boat> {
      * @return the number of matching entities.
      */
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = BoatService.BOAT_QUERIES_CACHE, keyGenerator = "boatQueryKeyGenerator")
     public long countByCriteria(BoatCriteria criteria) {
         log.debug("count by criteria : {}", criteria);
         final Specification<Boat> specification = createSpecification(criteria);
         return boatRepository.count(specification);
     }
 
+    /**
+     * Return an estimate of the number of matching entities in the database.
+     * <p>
+     * Without filters on PostgreSQL, the estimate comes from the planner statistics, so no rows are counted. Filtered
+     * counts, and other databases, fall back to {@link #countByCriteria(BoatCriteria)}.
+     *
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @return the estimated number of matching entities.
+     */
+    @Transactional(readOnly = true)
+    public long estimateCountByCriteria(BoatCriteria criteria) {
+        log.debug("estimate count by criteria : {}", criteria);
+        if (criteria == null || criteria.equals(new BoatCriteria())) {
+            Optional<Long> estimate = boatCountEstimator.estimateAll();
+            if (estimate.isPresent()) {
+                return estimate.get();
+            }
+        }
+        return countByCriteria(criteria);
+    }
+
+    /**
+     * Function to build the keyset predicate selecting the entities after a cursor.
+     *
+     * @param after The cursor.
+     * @return the matching {@link Specification} of the entity.
+     */
+    protected Specification<Boat> seekAfter(BoatCursor after) {
+        boolean ascending = after.getOrder().isAscending();
+        return (root, query, cb) -> {
+            Path<Long> id = root.get(Boat_.id);
+            Predicate idAfter = ascending ? cb.greaterThan(id, after.getId()) : cb.lessThan(id, after.getId());
+            if (after.getValue() == null) {
+                return idAfter;
+            }
+            Path<String> key = root.get(after.getOrder().getProperty());
+            Predicate keyAfter = ascending ? cb.greaterThan(key, after.getValue()) : cb.lessThan(key, after.getValue());
+            return cb.or(keyAfter, cb.and(cb.equal(key, after.getValue()), idAfter));
+        };
+    }
+
+    /**
+     * Function to restrict the entities to the candidates found by the {@link BoatSearchIndex}, so that the database
+     * only has to look them up by primary key.
+     *
+     * @param ids The candidate ids, or empty if the index could not narrow the search down.
+     * @return the matching {@link Specification} of the entity, or {@code null} if there are no candidates.
+     */
+    protected Specification<Boat> byIds(Optional<List<Long>> ids) {
+        if (ids.isEmpty()) {
+            return null;
+        }
+        List<Long> candidates = ids.get();
+        return (root, query, cb) -> candidates.isEmpty() ? cb.disjunction() : root.get(Boat_.id).in(candidates);
+    }
+
+    /**
+     * Function to build the full-text search predicate over the name and the description.
+     * <p>
+     * The {@link BoatSearchDocument} of each boat is added to the query, so that {@link #byRelevance} can order the
+     * results by it.
+     *
+     * @param q The free-text query.
+     * @return the matching {@link Specification} of the entity.
+     */
+    protected Specification<Boat> matchesText(String q) {
+        return (root, query, cb) -> {
+            Root<BoatSearchDocument> document = query.from(BoatSearchDocument.class);
+            return cb.and(
+                cb.equal(document.get(BoatSearchDocument_.id), root.get(Boat_.id)),
+                cb.isTrue(cb.function("boat_search_match", Boolean.class, document.get(BoatSearchDocument_.searchVector), cb.literal(q)))
+            );
+        };
+    }
+
+    /**
+     * Function to build the order by decreasing relevance, then by id, of a query filtered by {@link #matchesText}.
+     *
+     * @param q     The free-text query.
+     * @param root  The boats of the query.
+     * @param query The query.
+     * @param cb    The criteria builder.
+     * @return the relevance order.
+     */
+    @SuppressWarnings("unchecked")
+    protected List<Order> byRelevance(String q, Root<Boat> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+        Root<BoatSearchDocument> document = (Root<BoatSearchDocument>) query
+            .getRoots()
+            .stream()
+            .filter(candidate -> BoatSearchDocument.class.equals(candidate.getJavaType()))
+            .findFirst()
+            .orElseThrow(() -> new IllegalStateException("The query is not filtered by a full-text search"));
+        Path<String> searchVector = document.get(BoatSearchDocument_.searchVector);
+        return List.of(cb.desc(cb.function("boat_search_rank", Double.class, searchVector, cb.literal(q))), cb.asc(root.get(Boat_.id)));
+    }
+
+    /**
+     * Function to build the case-insensitive {@code contains} predicate of the string filters.
+     * <p>
+     * Unlike the default {@code upper} comparison, case is folded with {@code lower} and {@link Locale#ROOT}, like the
+     * {@link BoatSearchIndex} does: upper-casing changes the length of some characters, like {@code ß}, and would
+     * reject candidates which the index found.
+     *
+     * @param metaclassFunction The function selecting the string attribute.
+     * @param value             The searched substring.
+     * @return the matching {@link Specification} of the entity.
+     */
+    @Override
+    protected Specification<Boat> likeUpperSpecification(Function<Root<Boat>, Expression<String>> metaclassFunction, String value) {
+        return (root, query, cb) -> cb.like(cb.lower(metaclassFunction.apply(root)), "%" + value.toLowerCase(Locale.ROOT) + "%");
+    }
+
     /**
      * Function to convert {@link BoatCriteria} to a {@link Specification}
      *
@@ -91,11 +402,66 @@ public class BoatQueryService extends QueryService<Boat> {
             }
             if (criteria.getName() != null) {
                 specification = specification.and(buildStringSpecification(criteria.getName(), Boat_.name));
+                if (criteria.getName().getContains() != null) {
+                    specification = specification.and(byIds(boatSearchIndex.findIdsByNameContaining(criteria.getName().getContains())));
+                }
             }
             if (criteria.getDescription() != null) {
                 specification = specification.and(buildStringSpecification(criteria.getDescription(), Boat_.description));
+                if (criteria.getDescription().getContains() != null) {
+                    specification =
+                        specification.and(byIds(boatSearchIndex.findIdsByDescriptionContaining(criteria.getDescription().getContains())));
+                }
+            }
+            if (criteria.getQ() != null && !criteria.getQ().isBlank()) {
+                specification = specification.and(matchesText(criteria.getQ()));
             }
         }
         return specification;
     }
+
+    /**
+     * Select the boats matching a specification, in the given order, or by relevance when the order is unsorted.
+     */
+    private TypedQuery<Boat> selectBoats(Specification<Boat> specification, String q, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Boat> query = cb.createQuery(Boat.class);
+        Root<Boat> root = query.from(Boat.class);
+        query.select(root);
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        orderBy(query, root, cb, q, sort);
+        return entityManager.createQuery(query).setHint(HINT_CACHEABLE, true);
+    }
+
+    /**
+     * Order a query by the sort of the request, or, for an unsorted full-text search, by relevance.
+     */
+    private void orderBy(CriteriaQuery<?> query, Root<Boat> root, CriteriaBuilder cb, String q, Sort sort) {
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        } else if (q != null) {
+            query.orderBy(byRelevance(q, root, query, cb));
+        }
+    }
+
+    /**
+     * @return the free-text query of the criteria, or {@code null} if there is none.
+     */
+    private static String searchText(BoatCriteria criteria) {
+        return criteria == null || criteria.getQ() == null || criteria.getQ().isBlank() ? null : criteria.getQ();
+    }
+
+    private Slice<BoatDTO> findSlice(Specification<Boat> specification, String q, Pageable page) {
+        List<Boat> boats = selectBoats(specification, q, page.getSort())
+            .setFirstResult((int) page.getOffset())
+            .setMaxResults(page.getPageSize() + 1)
+            .getResultList();
+
+        boolean hasNext = boats.size() > page.getPageSize();
+        List<Boat> content = hasNext ? boats.subList(0, page.getPageSize()) : boats;
+        return new SliceImpl<>(boatPicService.toDto(content), page, hasNext);
+    }
 }
@@ -1,6 +1,9 @@
 package com.openwt.boatapp.service;
 
 import com.openwt.boatapp.service.dto.BoatDTO;
+import com.openwt.boatapp.service.dto.BoatUpdateResult;
+import com.openwt.boatapp.service.image.ImageUpload;
+import com.openwt.boatapp.service.image.StoredImage;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -9,21 +12,52 @@ import org.springframework.data.domain.Pageable;
  * Service Interface for managing {@link com.openwt.boatapp.domain.Boat}.
  */
 public interface BoatService {
+    String BOATS_BY_ID_CACHE = "boatsById";
+
+    String BOAT_QUERIES_CACHE = "boatQueries";
+
     /**
-     * Save a boat.
+     * Save a new boat.
+     * <p>
+     * An existing boat is updated if it is still at the version of the DTO, when it has one; prefer
+     * {@link #update(BoatDTO, Long)}, which reports the outcome.
      *
      * @param boatDTO the entity to save.
-     * @return the persisted entity.
+     * @return the persisted entity, with its version.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the boat was updated concurrently.
      */
     BoatDTO save(BoatDTO boatDTO);
 
     /**
-     * Partially updates a boat.
+     * Update a boat, in a single transaction which loads it once.
+     *
+     * @param boatDTO         the entity to update.
+     * @param expectedVersion the version which the boat should still be at, or {@code null} to update any version.
+     * @return the outcome of the update, with the persisted entity if it was updated.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the boat was updated concurrently, after
+     * it was loaded.
+     */
+    BoatUpdateResult update(BoatDTO boatDTO, Long expectedVersion);
+
+    /**
+     * Partially updates a boat, in a single transaction which loads it once. Null fields are left unchanged.
+     *
+     * @param boatDTO         the entity to update partially.
+     * @param expectedVersion the version which the boat should still be at, or {@code null} to update any version.
+     * @return the outcome of the update, with the persisted entity if it was updated.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the boat was updated concurrently, after
+     * it was loaded.
+     */
+    BoatUpdateResult partialUpdate(BoatDTO boatDTO, Long expectedVersion);
+
+    /**
+     * Replace the picture of the "id" boat with an uploaded one.
      *
-     * @param boatDTO the entity to update partially.
-     * @return the persisted entity.
+     * @param id     the id of the entity.
+     * @param upload the uploaded picture.
+     * @return the metadata of the stored picture, or empty if the boat does not exist.
      */
-    Optional<BoatDTO> partialUpdate(BoatDTO boatDTO);
+    Optional<StoredImage> updatePic(Long id, ImageUpload upload);
 
     /**
      * Get all the boats.
@@ -0,0 +1,117 @@
+package com.openwt.boatapp.service;
+
+import com.openwt.boatapp.domain.OneTimeToken;
+import com.openwt.boatapp.domain.User;
+import com.openwt.boatapp.repository.OneTimeTokenRepository;
+import com.openwt.boatapp.service.util.Sha256;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tech.jhipster.security.RandomUtil;
+
+/**
+ * Service issuing and redeeming the one-time tokens sent by email, to activate an account or to reset a password.
+ * <p>
+ * Only the SHA-256 hash of the tokens is stored, so redeeming a token is a single probe of the unique index on the
+ * hash, which also checks the expiry.
+ */
+@Service
+@Transactional
+public class OneTimeTokenService {
+
+    private final Logger log = LoggerFactory.getLogger(OneTimeTokenService.class);
+
+    private final OneTimeTokenRepository oneTimeTokenRepository;
+
+    private final Duration activationValidity;
+
+    private final Duration passwordResetValidity;
+
+    private final int sweeperBatchSize;
+
+    public OneTimeTokenService(
+        OneTimeTokenRepository oneTimeTokenRepository,
+        @Value("${boatapp.one-time-token.activation-validity-in-seconds}") Long activationValidityInSeconds,
+        @Value("${boatapp.one-time-token.password-reset-validity-in-seconds}") Long passwordResetValidityInSeconds,
+        @Value("${boatapp.one-time-token.sweeper.batch-size}") Integer sweeperBatchSize
+    ) {
+        this.oneTimeTokenRepository = oneTimeTokenRepository;
+        this.activationValidity = Duration.ofSeconds(activationValidityInSeconds);
+        this.passwordResetValidity = Duration.ofSeconds(passwordResetValidityInSeconds);
+        this.sweeperBatchSize = sweeperBatchSize;
+    }
+
+    /**
+     * Issue a token to a user, replacing the pending token of the same purpose, if any.
+     *
+     * @param user    the user.
+     * @param purpose what the token can be redeemed for.
+     * @return the token, to send to the user.
+     */
+    public String issue(User user, OneTimeToken.Purpose purpose) {
+        boolean activation = purpose == OneTimeToken.Purpose.ACTIVATION;
+        String token = activation ? RandomUtil.generateActivationKey() : RandomUtil.generateResetKey();
+        // Deleted right away, as Hibernate would flush the insert of the new token first
+        oneTimeTokenRepository.deleteByUserAndPurpose(user, purpose);
+        OneTimeToken oneTimeToken = new OneTimeToken();
+        oneTimeToken.setTokenHash(hash(token));
+        oneTimeToken.setPurpose(purpose);
+        oneTimeToken.setUser(user);
+        oneTimeToken.setExpiresAt(Instant.now().plus(activation ? activationValidity : passwordResetValidity));
+        oneTimeTokenRepository.save(oneTimeToken);
+        log.debug("Issued a {} token for {}", purpose, user.getLogin());
+        return token;
+    }
+
+    /**
+     * Redeem a token: it can not be redeemed again.
+     *
+     * @param token   the token.
+     * @param purpose what the token is redeemed for.
+     * @return the user of the token, or empty if it is unknown, expired, issued for another purpose, or already
+     * redeemed.
+     */
+    public Optional<User> redeem(String token, OneTimeToken.Purpose purpose) {
+        return oneTimeTokenRepository
+            .findOneByTokenHashAndPurposeAndExpiresAtAfter(hash(token), purpose, Instant.now())
+            // Of concurrent redemptions, only the one which deletes the token succeeds
+            .filter(oneTimeToken -> oneTimeTokenRepository.deleteOneById(oneTimeToken.getId()) == 1)
+            .map(OneTimeToken::getUser);
+    }
+
+    /**
+     * Expired tokens are deleted every hour, in batches, so that each delete only holds its locks briefly.
+     * <p>
+     * The activation tokens of the users which are not activated are left to
+     * {@link UserService#removeNotActivatedUsers()}, which deletes these users.
+     * <p>
+     * Run outside of any transaction, each batch is deleted in its own.
+     */
+    @Scheduled(cron = "0 30 * * * ?")
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void removeExpiredTokens() {
+        Instant now = Instant.now();
+        int removed = 0;
+        List<Long> ids;
+        do {
+            ids = oneTimeTokenRepository.findExpiredIds(now, OneTimeToken.Purpose.ACTIVATION, PageRequest.of(0, sweeperBatchSize));
+            if (!ids.isEmpty()) {
+                removed += oneTimeTokenRepository.deleteByIdIn(ids);
+            }
+        } while (ids.size() == sweeperBatchSize);
+        log.debug("Deleted {} expired one-time tokens", removed);
+    }
+
+    private static String hash(String token) {
+        return Sha256.hex(token);
+    }
+}
@@ -0,0 +1,193 @@
+package com.openwt.boatapp.service;
+
+import com.openwt.boatapp.domain.RefreshToken;
+import com.openwt.boatapp.domain.User;
+import com.openwt.boatapp.repository.RefreshTokenRepository;
+import com.openwt.boatapp.repository.UserRepository;
+import com.openwt.boatapp.service.util.Sha256;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service issuing and rotating the refresh tokens, which let clients get a new access token without sending their
+ * password again.
+ * <p>
+ * Refresh tokens are random opaque strings; only their SHA-256 hash is stored. Each refresh consumes the token, and
+ * issues a new one of the same family. Presenting a consumed token again means that it leaked: the whole family is
+ * revoked, which logs out both the legitimate client and the attacker.
+ */
+@Service
+@Transactional
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    private final UserRepository userRepository;
+
+    private final long tokenValidityInMilliseconds;
+
+    private final long tokenValidityInMillisecondsForRememberMe;
+
+    public RefreshTokenService(
+        RefreshTokenRepository refreshTokenRepository,
+        UserRepository userRepository,
+        @Value("${boatapp.security.authentication.refresh-token.token-validity-in-millis}") Long tokenValidityInMilliseconds,
+        @Value(
+            "${boatapp.security.authentication.refresh-token.token-validity-in-millis-for-remember-me}"
+        ) Long tokenValidityInMillisecondsForRememberMe
+    ) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.tokenValidityInMilliseconds = tokenValidityInMilliseconds;
+        this.tokenValidityInMillisecondsForRememberMe = tokenValidityInMillisecondsForRememberMe;
+    }
+
+    /**
+     * Issue the first refresh token of a new family, after a login.
+     *
+     * @param login the login of the authenticated user.
+     * @param rememberMe whether the token should have the longer "remember me" validity.
+     * @return the refresh token.
+     */
+    public String issue(String login, boolean rememberMe) {
+        User user = userRepository.findOneByLogin(login).orElseThrow(() -> new IllegalStateException("User " + login + " not found"));
+        String family = UUID.randomUUID().toString();
+        log.debug("Issuing a new refresh token family {} for {}", family, login);
+        return create(user, family, rememberMe);
+    }
+
+    /**
+     * Consume a refresh token, and issue the next one of its family.
+     *
+     * @param token the refresh token.
+     * @return the authentication of the user and the next refresh token, or empty if the token is unknown, expired,
+     * already used, or if its user is no longer activated.
+     */
+    public Optional<Rotation> rotate(String token) {
+        Optional<RefreshToken> found = refreshTokenRepository.findOneByTokenHash(hash(token));
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        RefreshToken current = found.get();
+        Instant now = Instant.now();
+        if (current.getUsedAt() != null) {
+            log.warn("Refresh token of family {} used twice, revoking the family", current.getFamily());
+            refreshTokenRepository.deleteByFamily(current.getFamily());
+            return Optional.empty();
+        }
+        User user = current.getUser();
+        if (current.getExpiresAt().isBefore(now) || !user.isActivated()) {
+            return Optional.empty();
+        }
+        current.setUsedAt(now);
+        String next = create(user, current.getFamily(), current.isRememberMe());
+        return Optional.of(new Rotation(createAuthentication(user), next, current.isRememberMe()));
+    }
+
+    /**
+     * Revoke every refresh token family of a user, when their password changes: the sessions opened with the old
+     * password have to log in again.
+     *
+     * @param user the user.
+     */
+    public void revokeAll(User user) {
+        int revoked = refreshTokenRepository.deleteByUser(user);
+        log.debug("Revoked {} refresh tokens of {}", revoked, user.getLogin());
+    }
+
+    /**
+     * Expired tokens, used or not, are deleted every day, at 02:00 (am).
+     */
+    @Scheduled(cron = "0 0 2 * * ?")
+    public void removeExpiredTokens() {
+        int removed = refreshTokenRepository.deleteByExpiresAtBefore(Instant.now());
+        log.debug("Deleted {} expired refresh tokens", removed);
+    }
+
+    private String create(User user, String family, boolean rememberMe) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setTokenHash(hash(token));
+        refreshToken.setFamily(family);
+        refreshToken.setUser(user);
+        refreshToken.setRememberMe(rememberMe);
+        refreshToken.setExpiresAt(
+            Instant.now().plusMillis(rememberMe ? tokenValidityInMillisecondsForRememberMe : tokenValidityInMilliseconds)
+        );
+        refreshTokenRepository.save(refreshToken);
+        return token;
+    }
+
+    private static Authentication createAuthentication(User user) {
+        List<GrantedAuthority> authorities = user
+            .getAuthorities()
+            .stream()
+            .map(authority -> new SimpleGrantedAuthority(authority.getName()))
+            .collect(Collectors.toList());
+        return new UsernamePasswordAuthenticationToken(user.getLogin(), null, authorities);
+    }
+
+    private static String hash(String token) {
+        return Sha256.hex(token);
+    }
+
+    /**
+     * The result of a refresh token rotation.
+     */
+    public static final class Rotation {
+
+        private final Authentication authentication;
+
+        private final String refreshToken;
+
+        private final boolean rememberMe;
+
+        Rotation(Authentication authentication, String refreshToken, boolean rememberMe) {
+            this.authentication = authentication;
+            this.refreshToken = refreshToken;
+            this.rememberMe = rememberMe;
+        }
+
+        /**
+         * @return the authentication of the token's user, to create the new access token from.
+         */
+        public Authentication getAuthentication() {
+            return authentication;
+        }
+
+        /**
+         * @return the refresh token replacing the consumed one.
+         */
+        public String getRefreshToken() {
+            return refreshToken;
+        }
+
+        public boolean isRememberMe() {
+            return rememberMe;
+        }
+    }
+}
@@ -2,24 +2,24 @@ package com.openwt.boatapp.service;
 
 import com.openwt.boatapp.config.Constants;
 import com.openwt.boatapp.domain.Authority;
+import com.openwt.boatapp.domain.OneTimeToken;
 import com.openwt.boatapp.domain.User;
 import com.openwt.boatapp.repository.AuthorityRepository;
 import com.openwt.boatapp.repository.UserRepository;
 import com.openwt.boatapp.security.AuthoritiesConstants;
 import com.openwt.boatapp.security.SecurityUtils;
+import com.openwt.boatapp.service.cache.CacheInvalidation;
+import com.openwt.boatapp.service.cache.CacheInvalidationBus;
 import com.openwt.boatapp.service.dto.AdminUserDTO;
 import com.openwt.boatapp.service.dto.UserDTO;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -43,29 +43,36 @@ public class UserService {
 
     private final AuthorityRepository authorityRepository;
 
-    private final CacheManager cacheManager;
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    private final OneTimeTokenService oneTimeTokenService;
+
+    private final RefreshTokenService refreshTokenService;
 
     public UserService(
         UserRepository userRepository,
         PasswordEncoder passwordEncoder,
         AuthorityRepository authorityRepository,
-        CacheManager cacheManager
+        CacheInvalidationBus cacheInvalidationBus,
+        OneTimeTokenService oneTimeTokenService,
+        RefreshTokenService refreshTokenService
     ) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authorityRepository = authorityRepository;
-        this.cacheManager = cacheManager;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.oneTimeTokenService = oneTimeTokenService;
+        this.refreshTokenService = refreshTokenService;
     }
 
     public Optional<User> activateRegistration(String key) {
         log.debug("Activating user for activation key {}", key);
-        return userRepository
-            .findOneByActivationKey(key)
+        return oneTimeTokenService
+            .redeem(key, OneTimeToken.Purpose.ACTIVATION)
             .map(
                 user -> {
                     // activate given user for the registration key.
                     user.setActivated(true);
-                    user.setActivationKey(null);
                     this.clearUserCaches(user);
                     log.debug("Activated user: {}", user);
                     return user;
@@ -75,35 +82,39 @@ public class UserService {
 
     public Optional<User> completePasswordReset(String newPassword, String key) {
         log.debug("Reset user password for reset key {}", key);
-        return userRepository
-            .findOneByResetKey(key)
-            .filter(user -> user.getResetDate().isAfter(Instant.now().minusSeconds(86400)))
+        return oneTimeTokenService
+            .redeem(key, OneTimeToken.Purpose.PASSWORD_RESET)
             .map(
                 user -> {
                     user.setPassword(passwordEncoder.encode(newPassword));
-                    user.setResetKey(null);
-                    user.setResetDate(null);
+                    refreshTokenService.revokeAll(user);
                     this.clearUserCaches(user);
                     return user;
                 }
             );
     }
 
-    public Optional<User> requestPasswordReset(String mail) {
+    /**
+     * Issue a password reset token to the activated user with the given email.
+     *
+     * @param mail the email of the user.
+     * @return the user and the token to send them, or empty if there is no such activated user.
+     */
+    public Optional<IssuedToken> requestPasswordReset(String mail) {
         return userRepository
             .findOneByEmailIgnoreCase(mail)
             .filter(User::isActivated)
-            .map(
-                user -> {
-                    user.setResetKey(RandomUtil.generateResetKey());
-                    user.setResetDate(Instant.now());
-                    this.clearUserCaches(user);
-                    return user;
-                }
-            );
+            .map(user -> new IssuedToken(user, oneTimeTokenService.issue(user, OneTimeToken.Purpose.PASSWORD_RESET)));
     }
 
-    public User registerUser(AdminUserDTO userDTO, String password) {
+    /**
+     * Register a new user, who is not activated until they redeem the returned activation token.
+     *
+     * @param userDTO  the user.
+     * @param password the password of the user.
+     * @return the user and the activation token to send them.
+     */
+    public IssuedToken registerUser(AdminUserDTO userDTO, String password) {
         userRepository
             .findOneByLogin(userDTO.getLogin().toLowerCase())
             .ifPresent(
@@ -138,15 +149,15 @@ public class UserService {
         newUser.setLangKey(userDTO.getLangKey());
         // new user is not active
         newUser.setActivated(false);
-        // new user gets registration key
-        newUser.setActivationKey(RandomUtil.generateActivationKey());
         Set<Authority> authorities = new HashSet<>();
         authorityRepository.findById(AuthoritiesConstants.USER).ifPresent(authorities::add);
         newUser.setAuthorities(authorities);
         userRepository.save(newUser);
+        // new user gets registration key
+        String activationKey = oneTimeTokenService.issue(newUser, OneTimeToken.Purpose.ACTIVATION);
         this.clearUserCaches(newUser);
         log.debug("Created Information for User: {}", newUser);
-        return newUser;
+        return new IssuedToken(newUser, activationKey);
     }
 
     private boolean removeNonActivatedUser(User existingUser) {
@@ -159,7 +170,13 @@ public class UserService {
         return true;
     }
 
-    public User createUser(AdminUserDTO userDTO) {
+    /**
+     * Create an activated user, with a random password which they reset with the returned token.
+     *
+     * @param userDTO the user.
+     * @return the user and the password reset token to send them.
+     */
+    public IssuedToken createUser(AdminUserDTO userDTO) {
         User user = new User();
         user.setLogin(userDTO.getLogin().toLowerCase());
         user.setFirstName(userDTO.getFirstName());
@@ -175,8 +192,6 @@ public class UserService {
         }
         String encryptedPassword = passwordEncoder.encode(RandomUtil.generatePassword());
         user.setPassword(encryptedPassword);
-        user.setResetKey(RandomUtil.generateResetKey());
-        user.setResetDate(Instant.now());
         user.setActivated(true);
         if (userDTO.getAuthorities() != null) {
             Set<Authority> authorities = userDTO
@@ -189,9 +204,10 @@ public class UserService {
             user.setAuthorities(authorities);
         }
         userRepository.save(user);
+        String resetKey = oneTimeTokenService.issue(user, OneTimeToken.Purpose.PASSWORD_RESET);
         this.clearUserCaches(user);
         log.debug("Created Information for User: {}", user);
-        return user;
+        return new IssuedToken(user, resetKey);
     }
 
     /**
@@ -287,6 +303,7 @@ public class UserService {
                     }
                     String encryptedPassword = passwordEncoder.encode(newPassword);
                     user.setPassword(encryptedPassword);
+                    refreshTokenService.revokeAll(user);
                     this.clearUserCaches(user);
                     log.debug("Changed password for User: {}", user);
                 }
@@ -314,14 +331,15 @@ public class UserService {
     }
 
     /**
-     * Not activated users should be automatically deleted after 3 days.
+     * Not activated users should be automatically deleted once their activation token expires, after 3 days by
+     * default. Their token is deleted along, by the database.
      * <p>
      * This is scheduled to get fired everyday, at 01:00 (am).
      */
     @Scheduled(cron = "0 0 1 * * ?")
     public void removeNotActivatedUsers() {
         userRepository
-            .findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(Instant.now().minus(3, ChronoUnit.DAYS))
+            .findAllNotActivatedWithTokenExpiredBefore(OneTimeToken.Purpose.ACTIVATION, Instant.now())
             .forEach(
                 user -> {
                     log.debug("Deleting not activated user {}", user.getLogin());
@@ -341,10 +359,36 @@ public class UserService {
         return authorityRepository.findAll().stream().map(Authority::getName).collect(Collectors.toList());
     }
 
+    /**
+     * A user, with the one-time token just issued to them.
+     */
+    public static final class IssuedToken {
+
+        private final User user;
+
+        private final String token;
+
+        IssuedToken(User user, String token) {
+            this.user = user;
+            this.token = token;
+        }
+
+        public User getUser() {
+            return user;
+        }
+
+        /**
+         * @return the token, to send to the user: only its hash is stored.
+         */
+        public String getToken() {
+            return token;
+        }
+    }
+
     private void clearUserCaches(User user) {
-        Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE)).evict(user.getLogin());
+        cacheInvalidationBus.publish(CacheInvalidation.evict(UserRepository.USERS_BY_LOGIN_CACHE, user.getLogin()));
         if (user.getEmail() != null) {
-            Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE)).evict(user.getEmail());
+            cacheInvalidationBus.publish(CacheInvalidation.evict(UserRepository.USERS_BY_EMAIL_CACHE, user.getEmail()));
         }
     }
 }
@@ -0,0 +1,62 @@
+package com.openwt.boatapp.service.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Base {@link CacheInvalidationBus} handling the local delivery of the invalidations.
+ */
+public abstract class AbstractCacheInvalidationBus implements CacheInvalidationBus {
+
+    private final Logger log = LoggerFactory.getLogger(AbstractCacheInvalidationBus.class);
+
+    private final List<Consumer<CacheInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(CacheInvalidation invalidation) {
+        deliver(invalidation);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        deliver(invalidation);
+                    }
+                }
+            );
+        }
+        broadcast(invalidation);
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidation> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * Send an invalidation to the other nodes, once the surrounding transaction, if any, has committed.
+     *
+     * @param invalidation the invalidation.
+     */
+    protected abstract void broadcast(CacheInvalidation invalidation);
+
+    /**
+     * Deliver an invalidation to the local subscribers.
+     *
+     * @param invalidation the invalidation.
+     */
+    protected void deliver(CacheInvalidation invalidation) {
+        for (Consumer<CacheInvalidation> subscriber : subscribers) {
+            try {
+                subscriber.accept(invalidation);
+            } catch (RuntimeException e) {
+                log.warn("Could not apply {}", invalidation, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.openwt.boatapp.service.cache;
+
+import java.util.Objects;
+
+/**
+ * Invalidation of a cache entry, of a whole cache, or of every cache, broadcast to all the nodes through the
+ * {@link CacheInvalidationBus}.
+ */
+public final class CacheInvalidation {
+
+    private static final CacheInvalidation ALL = new CacheInvalidation(null, null, false);
+
+    private final String cacheName;
+
+    private final String key;
+
+    private final boolean remote;
+
+    private CacheInvalidation(String cacheName, String key, boolean remote) {
+        this.cacheName = cacheName;
+        this.key = key;
+        this.remote = remote;
+    }
+
+    /**
+     * Invalidate one entry of a cache.
+     *
+     * @param cacheName the name of the cache.
+     * @param key the key of the entry, in its string form.
+     * @return the invalidation.
+     */
+    public static CacheInvalidation evict(String cacheName, Object key) {
+        return new CacheInvalidation(Objects.requireNonNull(cacheName), String.valueOf(Objects.requireNonNull(key)), false);
+    }
+
+    /**
+     * Invalidate every entry of a cache.
+     *
+     * @param cacheName the name of the cache.
+     * @return the invalidation.
+     */
+    public static CacheInvalidation clear(String cacheName) {
+        return new CacheInvalidation(Objects.requireNonNull(cacheName), null, false);
+    }
+
+    /**
+     * Invalidate every entry of every cache, when some invalidations may have been missed.
+     *
+     * @return the invalidation.
+     */
+    public static CacheInvalidation all() {
+        return ALL;
+    }
+
+    /**
+     * Mark this invalidation as received from another node, or as covering writes this node may have missed.
+     *
+     * @return the remote invalidation.
+     */
+    CacheInvalidation remote() {
+        return new CacheInvalidation(cacheName, key, true);
+    }
+
+    /**
+     * @return the name of the cache, or {@code null} for every cache.
+     */
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    /**
+     * @return the key of the entry, or {@code null} for the whole cache.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return whether the invalidation comes from the writes of another node, which the caches of Hibernate did not
+     * see on this node.
+     */
+    public boolean isRemote() {
+        return remote;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CacheInvalidation)) {
+            return false;
+        }
+        CacheInvalidation that = (CacheInvalidation) o;
+        return remote == that.remote && Objects.equals(cacheName, that.cacheName) && Objects.equals(key, that.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(cacheName, key, remote);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "CacheInvalidation{" +
+            "cacheName='" + cacheName + "'" +
+            ", key='" + key + "'" +
+            ", remote=" + remote +
+            "}";
+    }
+}
@@ -0,0 +1,26 @@
+package com.openwt.boatapp.service.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts cache invalidations to every node of the cluster, so that caches can keep long time-to-live settings.
+ * <p>
+ * A published invalidation is delivered to the local subscribers right away, and once more after the surrounding
+ * transaction has committed, so that values read by concurrent transactions in between are not kept either. Other
+ * nodes receive it once the transaction has committed, and not at all if it rolls back.
+ */
+public interface CacheInvalidationBus {
+    /**
+     * Publish an invalidation to every node.
+     *
+     * @param invalidation the invalidation.
+     */
+    void publish(CacheInvalidation invalidation);
+
+    /**
+     * Subscribe to the invalidations published by any node.
+     *
+     * @param subscriber the subscriber.
+     */
+    void subscribe(Consumer<CacheInvalidation> subscriber);
+}
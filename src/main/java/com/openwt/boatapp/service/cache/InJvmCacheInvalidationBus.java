@@ -0,0 +1,17 @@
+package com.openwt.boatapp.service.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * {@link CacheInvalidationBus} for a single node: invalidations are only delivered to the subscribers of this JVM.
+ */
+@Service
+@ConditionalOnProperty(name = "boatapp.cache.invalidation.type", havingValue = "in-jvm", matchIfMissing = true)
+public class InJvmCacheInvalidationBus extends AbstractCacheInvalidationBus {
+
+    @Override
+    protected void broadcast(CacheInvalidation invalidation) {
+        // Every subscriber lives in this JVM, and has already been notified
+    }
+}
@@ -0,0 +1,80 @@
+package com.openwt.boatapp.service.cache;
+
+import com.openwt.boatapp.domain.Boat;
+import com.openwt.boatapp.service.BoatQueryKeyGenerator;
+import com.openwt.boatapp.service.BoatService;
+import java.util.Objects;
+import javax.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+/**
+ * Applies the invalidations received from the {@link CacheInvalidationBus} to the caches of this node.
+ * <p>
+ * Boat invalidations are also applied to the Hibernate second-level cache: Hibernate only tracks the writes made
+ * through this node, so the query cache is only cleared for the invalidations received from the other nodes.
+ */
+@Service
+public class LocalCacheInvalidator {
+
+    private final Logger log = LoggerFactory.getLogger(LocalCacheInvalidator.class);
+
+    private final CacheManager cacheManager;
+
+    private final BoatQueryKeyGenerator boatQueryKeyGenerator;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public LocalCacheInvalidator(
+        CacheManager cacheManager,
+        BoatQueryKeyGenerator boatQueryKeyGenerator,
+        EntityManagerFactory entityManagerFactory,
+        CacheInvalidationBus bus
+    ) {
+        this.cacheManager = cacheManager;
+        this.boatQueryKeyGenerator = boatQueryKeyGenerator;
+        this.entityManagerFactory = entityManagerFactory;
+        bus.subscribe(this::invalidate);
+    }
+
+    void invalidate(CacheInvalidation invalidation) {
+        log.trace("Applying {}", invalidation);
+        if (invalidation.getCacheName() == null) {
+            cacheManager.getCacheNames().forEach(cacheName -> clear(cacheName, invalidation.isRemote()));
+            entityManagerFactory.getCache().evictAll();
+        } else if (invalidation.getKey() == null) {
+            clear(invalidation.getCacheName(), invalidation.isRemote());
+        } else {
+            Object key = toKey(invalidation);
+            Objects.requireNonNull(cacheManager.getCache(invalidation.getCacheName())).evict(key);
+            if (BoatService.BOATS_BY_ID_CACHE.equals(invalidation.getCacheName())) {
+                entityManagerFactory.getCache().evict(Boat.class, key);
+            }
+        }
+    }
+
+    private void clear(String cacheName, boolean remote) {
+        if (BoatService.BOAT_QUERIES_CACHE.equals(cacheName)) {
+            // Entries of older generations can no longer be looked up, there is no need to scan the cache
+            boatQueryKeyGenerator.nextGeneration();
+            if (remote) {
+                // Local writes already invalidate the cached queries through the update timestamps of Hibernate
+                entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class).evictDefaultQueryRegion();
+            }
+        } else {
+            Objects.requireNonNull(cacheManager.getCache(cacheName)).clear();
+        }
+    }
+
+    /**
+     * Convert the string form of a key back to the type used by the cache.
+     */
+    private static Object toKey(CacheInvalidation invalidation) {
+        if (BoatService.BOATS_BY_ID_CACHE.equals(invalidation.getCacheName())) {
+            return Long.valueOf(invalidation.getKey());
+        }
+        return invalidation.getKey();
+    }
+}
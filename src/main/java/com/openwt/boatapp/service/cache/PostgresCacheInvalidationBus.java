@@ -0,0 +1,175 @@
+package com.openwt.boatapp.service.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import javax.sql.DataSource;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.stereotype.Service;
+
+/**
+ * {@link CacheInvalidationBus} using PostgreSQL {@code LISTEN/NOTIFY}.
+ * <p>
+ * {@code pg_notify} runs in the transaction of the publisher, so PostgreSQL only delivers the notification once it
+ * has committed. Each node keeps one connection listening to the channel, opened outside of the connection pool: it
+ * is held for the lifetime of the node, and the pool may not recycle it. As notifications sent while that connection
+ * is down are lost, every cache is cleared whenever it is re-established.
+ */
+@Service
+@ConditionalOnProperty(name = "boatapp.cache.invalidation.type", havingValue = "postgresql")
+public class PostgresCacheInvalidationBus extends AbstractCacheInvalidationBus implements SmartLifecycle {
+
+    static final String CHANNEL = "boatapp_cache_invalidation";
+
+    private static final int POLL_TIMEOUT_MILLIS = 500;
+
+    private static final long RECONNECT_DELAY_MILLIS = 5000;
+
+    private final Logger log = LoggerFactory.getLogger(PostgresCacheInvalidationBus.class);
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final DataSource listenerDataSource;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final long reconnectDelayMillis;
+
+    private volatile boolean running;
+
+    private Thread listener;
+
+    @Autowired
+    public PostgresCacheInvalidationBus(DataSourceProperties dataSourceProperties, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this(
+            dataSourceProperties.initializeDataSourceBuilder().type(SimpleDriverDataSource.class).build(),
+            jdbcTemplate,
+            objectMapper,
+            RECONNECT_DELAY_MILLIS
+        );
+    }
+
+    /**
+     * @param listenerDataSource opens the connection listening to the channel, not pooled.
+     * @param jdbcTemplate sends the notifications, in the transaction of the publisher.
+     * @param objectMapper encodes the notifications.
+     * @param reconnectDelayMillis the time to wait before opening a new listening connection.
+     */
+    PostgresCacheInvalidationBus(
+        DataSource listenerDataSource,
+        JdbcTemplate jdbcTemplate,
+        ObjectMapper objectMapper,
+        long reconnectDelayMillis
+    ) {
+        this.listenerDataSource = listenerDataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.reconnectDelayMillis = reconnectDelayMillis;
+    }
+
+    @Override
+    protected void broadcast(CacheInvalidation invalidation) {
+        jdbcTemplate.query("select pg_notify(?, ?)", rs -> null, CHANNEL, encode(invalidation));
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        listener = new Thread(this::listen, "cache-invalidation-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        listener.interrupt();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        boolean reconnecting = false;
+        while (running) {
+            try (Connection connection = listenerDataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                if (reconnecting) {
+                    deliver(CacheInvalidation.all().remote());
+                }
+                log.debug("Listening to cache invalidations on channel {}", CHANNEL);
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            receive(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Lost the cache invalidation channel, reconnecting in {} ms: {}", reconnectDelayMillis, e.getMessage());
+                reconnecting = true;
+                try {
+                    Thread.sleep(reconnectDelayMillis);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void receive(String payload) {
+        try {
+            JsonNode message = objectMapper.readTree(payload);
+            if (nodeId.equals(message.path("node").asText())) {
+                // Already delivered locally when published
+                return;
+            }
+            String cacheName = message.path("cache").isNull() ? null : message.path("cache").asText();
+            String key = message.path("key").isNull() ? null : message.path("key").asText();
+            if (cacheName == null) {
+                deliver(CacheInvalidation.all().remote());
+            } else if (key == null) {
+                deliver(CacheInvalidation.clear(cacheName).remote());
+            } else {
+                deliver(CacheInvalidation.evict(cacheName, key).remote());
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring malformed cache invalidation {}", payload);
+        }
+    }
+
+    private String encode(CacheInvalidation invalidation) {
+        ObjectNode message = objectMapper.createObjectNode();
+        message.put("node", nodeId);
+        message.put("cache", invalidation.getCacheName());
+        message.put("key", invalidation.getKey());
+        return message.toString();
+    }
+}
@@ -13,6 +13,7 @@ import tech.jhipster.service.filter.StringFilter;
  * the Http GET request parameters.
  * For example the following could be a valid request:
  * {@code /boats?id.greaterThan=5&attr1.contains=something&attr2.specified=false}
+ * The {@code q} parameter is a free-text search over the name and the description, ranked by relevance.
  * As Spring is unable to properly convert the types, unless specific {@link Filter} class are used, we need to use
  * fix type specific filters.
  */
@@ -26,12 +27,15 @@ public class BoatCriteria implements Serializable, Criteria {
 
     private StringFilter description;
 
+    private String q;
+
     public BoatCriteria() {}
 
     public BoatCriteria(BoatCriteria other) {
         this.id = other.id == null ? null : other.id.copy();
         this.name = other.name == null ? null : other.name.copy();
         this.description = other.description == null ? null : other.description.copy();
+        this.q = other.q;
     }
 
     @Override
@@ -84,6 +88,14 @@ public class BoatCriteria implements Serializable, Criteria {
         return description;
     }
 
+    public String getQ() {
+        return q;
+    }
+
+    public void setQ(String q) {
+        this.q = q;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -93,12 +105,17 @@ public class BoatCriteria implements Serializable, Criteria {
             return false;
         }
         final BoatCriteria that = (BoatCriteria) o;
-        return Objects.equals(id, that.id) && Objects.equals(name, that.name) && Objects.equals(description, that.description);
+        return (
+            Objects.equals(id, that.id) &&
+            Objects.equals(name, that.name) &&
+            Objects.equals(description, that.description) &&
+            Objects.equals(q, that.q)
+        );
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, name, description);
+        return Objects.hash(id, name, description, q);
     }
 
     // prettier-ignore
@@ -108,6 +125,7 @@ public class BoatCriteria implements Serializable, Criteria {
             (id != null ? "id=" + id + ", " : "") +
             (name != null ? "name=" + name + ", " : "") +
             (description != null ? "description=" + description + ", " : "") +
+            (q != null ? "q=" + q + ", " : "") +
             "}";
     }
 }
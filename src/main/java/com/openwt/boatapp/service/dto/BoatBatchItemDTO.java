@@ -0,0 +1,63 @@
+package com.openwt.boatapp.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * An operation of a batch on {@link com.openwt.boatapp.domain.Boat} entities.
+ * <p>
+ * A {@code CREATE} or an {@code UPDATE} carries the boat, with its id for an update; a {@code DELETE} only carries the
+ * id of the boat.
+ */
+public class BoatBatchItemDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The operations of a batch.
+     */
+    public enum Action {
+        CREATE,
+        UPDATE,
+        DELETE,
+    }
+
+    private Action action;
+
+    private Long id;
+
+    private BoatDTO boat;
+
+    public Action getAction() {
+        return action;
+    }
+
+    public void setAction(Action action) {
+        this.action = action;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public BoatDTO getBoat() {
+        return boat;
+    }
+
+    public void setBoat(BoatDTO boat) {
+        this.boat = boat;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BoatBatchItemDTO{" +
+            "action=" + getAction() +
+            ", id=" + getId() +
+            ", boat=" + getBoat() +
+            "}";
+    }
+}
@@ -0,0 +1,73 @@
+package com.openwt.boatapp.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.io.Serializable;
+
+/**
+ * The outcome of one {@link BoatBatchItemDTO} of a batch.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BoatBatchResultDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The outcomes of a batch operation. Only the first three are persisted.
+     */
+    public enum Status {
+        CREATED,
+        UPDATED,
+        DELETED,
+        INVALID,
+        NOT_FOUND,
+        FAILED,
+    }
+
+    private final int index;
+
+    private final Status status;
+
+    private final Long id;
+
+    private final String message;
+
+    public BoatBatchResultDTO(int index, Status status, Long id, String message) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.message = message;
+    }
+
+    /**
+     * @return the position of the operation in the batch, starting at 0.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @return why the operation was not applied, if it was not.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BoatBatchResultDTO{" +
+            "index=" + getIndex() +
+            ", status=" + getStatus() +
+            ", id=" + getId() +
+            ", message='" + getMessage() + "'" +
+            "}";
+    }
+}
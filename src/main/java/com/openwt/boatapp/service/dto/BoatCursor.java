@@ -0,0 +1,125 @@
+package com.openwt.boatapp.service.dto;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.Set;
+import org.springframework.data.domain.Sort;
+
+/**
+ * An opaque position in a sorted list of {@link com.openwt.boatapp.domain.Boat} entities, used for keyset pagination.
+ * <p>
+ * It holds the sort order, and the sort key and id of the last boat of the previous page; the next page starts right
+ * after this {@code (sort key, id)} pair.
+ */
+public class BoatCursor implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The properties a keyset page can be sorted by. They are all non-null, so {@code (sort key, id)} is a total order.
+     */
+    public static final Set<String> SORT_PROPERTIES = Set.of("id", "name", "description");
+
+    private static final String SEPARATOR = ":";
+
+    private final Sort.Order order;
+
+    private final Long id;
+
+    private final String value;
+
+    public BoatCursor(Sort.Order order, Long id, String value) {
+        if (!SORT_PROPERTIES.contains(order.getProperty())) {
+            throw new IllegalArgumentException("Cannot seek on property " + order.getProperty());
+        }
+        this.order = order;
+        this.id = Objects.requireNonNull(id);
+        this.value = "id".equals(order.getProperty()) ? null : Objects.requireNonNull(value);
+    }
+
+    /**
+     * Create the cursor pointing right after the given boat.
+     *
+     * @param order the sort order of the list.
+     * @param boat  the last boat of the current page.
+     * @return the cursor.
+     */
+    public static BoatCursor after(Sort.Order order, BoatDTO boat) {
+        switch (order.getProperty()) {
+            case "name":
+                return new BoatCursor(order, boat.getId(), boat.getName());
+            case "description":
+                return new BoatCursor(order, boat.getId(), boat.getDescription());
+            default:
+                return new BoatCursor(order, boat.getId(), null);
+        }
+    }
+
+    /**
+     * Decode a cursor.
+     *
+     * @param encoded the cursor, as returned by {@link #encode()}.
+     * @return the cursor.
+     * @throws IllegalArgumentException if the cursor is malformed.
+     */
+    public static BoatCursor decode(String encoded) {
+        String decoded = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+        String[] parts = decoded.split(SEPARATOR, 4);
+        if (parts.length < 3) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        Sort.Order order = new Sort.Order(Sort.Direction.fromString(parts[1]), parts[0]);
+        return new BoatCursor(order, Long.valueOf(parts[2]), parts.length == 4 ? parts[3] : null);
+    }
+
+    /**
+     * Encode this cursor as an opaque, URL-safe string.
+     *
+     * @return the encoded cursor.
+     */
+    public String encode() {
+        String raw = order.getProperty() + SEPARATOR + order.getDirection().name() + SEPARATOR + id + (value != null ? SEPARATOR + value : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Sort.Order getOrder() {
+        return order;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BoatCursor)) {
+            return false;
+        }
+        BoatCursor that = (BoatCursor) o;
+        return order.equals(that.order) && id.equals(that.id) && Objects.equals(value, that.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(order, id, value);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BoatCursor{" +
+            "order=" + getOrder() +
+            ", id=" + getId() +
+            ", value='" + getValue() + "'" +
+            "}";
+    }
+}
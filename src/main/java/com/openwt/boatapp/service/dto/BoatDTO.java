@@ -26,6 +26,10 @@ public class BoatDTO implements Serializable {
 
     private String picContentType;
 
+    private String picUrl;
+
+    private Long version;
+
     public Long getId() {
         return id;
     }
@@ -66,6 +70,22 @@ public class BoatDTO implements Serializable {
         this.picContentType = picContentType;
     }
 
+    public String getPicUrl() {
+        return picUrl;
+    }
+
+    public void setPicUrl(String picUrl) {
+        this.picUrl = picUrl;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -95,6 +115,8 @@ public class BoatDTO implements Serializable {
             ", name='" + getName() + "'" +
             ", description='" + getDescription() + "'" +
             ", pic='" + getPic() + "'" +
+            ", picUrl='" + getPicUrl() + "'" +
+            ", version=" + getVersion() +
             "}";
     }
 }
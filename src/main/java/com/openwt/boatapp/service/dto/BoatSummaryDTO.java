@@ -0,0 +1,70 @@
+package com.openwt.boatapp.service.dto;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A lightweight DTO for the {@link com.openwt.boatapp.domain.Boat} entity, used by list views.
+ * <p>
+ * It is selected with a constructor query, so neither the description nor the picture is read from the database.
+ * The picture URL points to its thumbnail.
+ */
+public class BoatSummaryDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+
+    private final String name;
+
+    private final String picUrl;
+
+    public BoatSummaryDTO(Long id, String name, String picHash) {
+        this.id = id;
+        this.name = name;
+        this.picUrl = picHash == null ? null : "/api/boats/" + id + "/pic?size=thumb";
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPicUrl() {
+        return picUrl;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BoatSummaryDTO)) {
+            return false;
+        }
+
+        BoatSummaryDTO boatSummaryDTO = (BoatSummaryDTO) o;
+        if (this.id == null) {
+            return false;
+        }
+        return Objects.equals(this.id, boatSummaryDTO.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.id);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BoatSummaryDTO{" +
+            "id=" + getId() +
+            ", name='" + getName() + "'" +
+            ", picUrl='" + getPicUrl() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,64 @@
+package com.openwt.boatapp.service.dto;
+
+/**
+ * The outcome of an update of a {@link com.openwt.boatapp.domain.Boat}.
+ */
+public final class BoatUpdateResult {
+
+    /**
+     * The outcomes of an update. Only {@link #UPDATED} is persisted.
+     */
+    public enum Status {
+        UPDATED,
+        NOT_FOUND,
+        CONFLICT,
+    }
+
+    private static final BoatUpdateResult NOT_FOUND = new BoatUpdateResult(Status.NOT_FOUND, null);
+
+    private static final BoatUpdateResult CONFLICT = new BoatUpdateResult(Status.CONFLICT, null);
+
+    private final Status status;
+
+    private final BoatDTO boat;
+
+    private BoatUpdateResult(Status status, BoatDTO boat) {
+        this.status = status;
+        this.boat = boat;
+    }
+
+    public static BoatUpdateResult updated(BoatDTO boat) {
+        return new BoatUpdateResult(Status.UPDATED, boat);
+    }
+
+    public static BoatUpdateResult notFound() {
+        return NOT_FOUND;
+    }
+
+    /**
+     * @return the outcome of an update based on a version of the boat which is no longer the current one.
+     */
+    public static BoatUpdateResult conflict() {
+        return CONFLICT;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the updated boat, with its new version, or {@code null} if it was not updated.
+     */
+    public BoatDTO getBoat() {
+        return boat;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BoatUpdateResult{" +
+            "status=" + getStatus() +
+            ", boat=" + getBoat() +
+            "}";
+    }
+}
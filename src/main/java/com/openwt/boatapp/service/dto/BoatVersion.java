@@ -0,0 +1,42 @@
+package com.openwt.boatapp.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * The id and the optimistic locking version of a {@link com.openwt.boatapp.domain.Boat}, which together identify the
+ * state of the boat. Selected with a constructor query, to validate cached copies without reading the boats.
+ */
+public class BoatVersion implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+
+    private final Long version;
+
+    public BoatVersion(Long id, Long version) {
+        this.id = id;
+        this.version = version;
+    }
+
+    public static BoatVersion of(BoatDTO boatDTO) {
+        return new BoatVersion(boatDTO.getId(), boatDTO.getVersion());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BoatVersion{" +
+            "id=" + getId() +
+            ", version=" + getVersion() +
+            "}";
+    }
+}
@@ -0,0 +1,42 @@
+package com.openwt.boatapp.service.image;
+
+import com.openwt.boatapp.service.util.Sha256;
+import java.security.MessageDigest;
+
+/**
+ * Utility class computing the content hashes used as {@link ImageStore} keys: the {@link Sha256} hashes of the
+ * contents.
+ */
+public final class ContentHash {
+
+    private ContentHash() {}
+
+    /**
+     * Create a new digest computing content hashes.
+     *
+     * @return the digest.
+     */
+    public static MessageDigest newDigest() {
+        return Sha256.newDigest();
+    }
+
+    /**
+     * Compute the content hash of the given bytes.
+     *
+     * @param content the content to hash.
+     * @return the lower-case hex-encoded SHA-256 hash.
+     */
+    public static String of(byte[] content) {
+        return Sha256.hex(content);
+    }
+
+    /**
+     * Hex-encode a digest.
+     *
+     * @param digest the digest bytes.
+     * @return the lower-case hex representation.
+     */
+    public static String toHex(byte[] digest) {
+        return Sha256.toHex(digest);
+    }
+}
@@ -0,0 +1,142 @@
+package com.openwt.boatapp.service.image;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+
+/**
+ * {@link ImageStore} keeping images in the {@code boat_image} table.
+ * <p>
+ * This is the default store. It participates in the surrounding transaction, so a rolled back write does not
+ * leave images behind. Ranges are streamed from the JDBC binary stream of the column, so only the driver buffers
+ * the value.
+ * <p>
+ * Concurrent stores of the same image are idempotent: the insert is skipped when the hash already exists, with
+ * {@code on conflict do nothing} on PostgreSQL and {@code merge} on H2.
+ */
+@Service
+@ConditionalOnProperty(name = "boatapp.image-store.type", havingValue = "database", matchIfMissing = true)
+public class DatabaseImageStore implements ImageStore {
+
+    private static final String POSTGRESQL = "PostgreSQL";
+
+    private final Logger log = LoggerFactory.getLogger(DatabaseImageStore.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile String insertSql;
+
+    public DatabaseImageStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public String store(byte[] content) {
+        String hash = ContentHash.of(content);
+        if (!exists(hash)) {
+            log.debug("Storing image {} ({} bytes)", hash, content.length);
+            jdbcTemplate.update(insertSql(), hash, content, content.length);
+        }
+        return hash;
+    }
+
+    @Override
+    public String store(ImageUpload upload) throws IOException {
+        String hash = upload.getHash();
+        if (exists(hash)) {
+            return hash;
+        }
+        log.debug("Storing image {} ({} bytes)", hash, upload.getSize());
+        try (InputStream in = upload.openStream()) {
+            jdbcTemplate.update(
+                insertSql(),
+                ps -> {
+                    ps.setString(1, hash);
+                    ps.setBinaryStream(2, in, upload.getSize());
+                    ps.setLong(3, upload.getSize());
+                }
+            );
+        }
+        return hash;
+    }
+
+    @Override
+    public Optional<byte[]> load(String hash) {
+        List<byte[]> contents = jdbcTemplate.queryForList("select content from boat_image where hash = ?", byte[].class, hash);
+        return contents.stream().findFirst();
+    }
+
+    @Override
+    public boolean transferTo(String hash, long position, long count, OutputStream out) throws IOException {
+        if (count == 0) {
+            return exists(hash);
+        }
+        try {
+            Boolean found = jdbcTemplate.query(
+                "select content from boat_image where hash = ?",
+                (ResultSetExtractor<Boolean>) rs -> {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    try (InputStream in = rs.getBinaryStream(1)) {
+                        StreamUtils.copyRange(in, out, position, position + count - 1);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return true;
+                },
+                hash
+            );
+            return Boolean.TRUE.equals(found);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public boolean exists(String hash) {
+        Integer count = jdbcTemplate.queryForObject("select count(*) from boat_image where hash = ?", Integer.class, hash);
+        return count != null && count > 0;
+    }
+
+    @Override
+    public void deleteIfUnreferenced(String hash) {
+        int deleted = jdbcTemplate.update(
+            "delete from boat_image where hash = ? and not exists (select 1 from boat where pic_hash = ?) " +
+            "and not exists (select 1 from boat_image_derivative where hash = ?)",
+            hash,
+            hash,
+            hash
+        );
+        if (deleted > 0) {
+            log.debug("Deleted image {}", hash);
+        }
+    }
+
+    /**
+     * @return the insert statement of an image, which does nothing if the image is already stored.
+     */
+    private String insertSql() {
+        if (insertSql == null) {
+            String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()
+            );
+            insertSql =
+                POSTGRESQL.equals(product)
+                    ? "insert into boat_image (hash, content, content_size) values (?, ?, ?) on conflict (hash) do nothing"
+                    : "merge into boat_image (hash, content, content_size) key (hash) values (?, ?, ?)";
+        }
+        return insertSql;
+    }
+}
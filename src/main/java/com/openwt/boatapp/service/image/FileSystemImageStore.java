@@ -0,0 +1,182 @@
+package com.openwt.boatapp.service.image;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * {@link ImageStore} keeping every image in its own file, below a two-level directory fan-out derived from the hash.
+ * <p>
+ * Files are written to a temporary file first and then atomically moved in place, so readers never see a partial
+ * image. Deletions are deferred until the surrounding transaction has committed, and only happen if no committed boat
+ * or derivative references the image by then. Reads are served with
+ * {@link FileChannel#transferTo}, so the image never has to be copied into a Java array.
+ */
+@Service
+@ConditionalOnProperty(name = "boatapp.image-store.type", havingValue = "file-system")
+public class FileSystemImageStore implements ImageStore {
+
+    private final Logger log = LoggerFactory.getLogger(FileSystemImageStore.class);
+
+    private final Path directory;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public FileSystemImageStore(@Value("${boatapp.image-store.file-system.directory}") String directory, JdbcTemplate jdbcTemplate) {
+        this.directory = Paths.get(directory);
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public String store(byte[] content) {
+        String hash = ContentHash.of(content);
+        Path target = resolve(hash);
+        if (Files.exists(target)) {
+            return hash;
+        }
+        log.debug("Storing image {} ({} bytes) in {}", hash, content.length, target);
+        try {
+            write(target, temp -> Files.write(temp, content));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store image " + hash, e);
+        }
+        return hash;
+    }
+
+    @Override
+    public String store(ImageUpload upload) throws IOException {
+        String hash = upload.getHash();
+        Path target = resolve(hash);
+        if (Files.exists(target)) {
+            return hash;
+        }
+        log.debug("Storing image {} ({} bytes) in {}", hash, upload.getSize(), target);
+        write(target, temp -> Files.copy(upload.getPath(), temp, StandardCopyOption.REPLACE_EXISTING));
+        return hash;
+    }
+
+    /**
+     * Write an image to a temporary file next to its target, then move it in place.
+     */
+    private void write(Path target, TempFileWriter writer) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            writer.write(temp);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // a concurrent writer stored the same content
+            log.trace("Image {} was stored concurrently", target.getFileName());
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @FunctionalInterface
+    private interface TempFileWriter {
+        void write(Path temp) throws IOException;
+    }
+
+    @Override
+    public Optional<byte[]> load(String hash) {
+        Path path = resolve(hash);
+        if (!Files.exists(path)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Files.readAllBytes(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read image " + hash, e);
+        }
+    }
+
+    @Override
+    public boolean transferTo(String hash, long position, long count, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(resolve(hash), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long transferred = 0;
+            while (transferred < count) {
+                long written = channel.transferTo(position + transferred, count - transferred, target);
+                if (written <= 0) {
+                    break;
+                }
+                transferred += written;
+            }
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean exists(String hash) {
+        return Files.exists(resolve(hash));
+    }
+
+    @Override
+    public void deleteIfUnreferenced(String hash) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        deleteFileIfUnreferenced(hash);
+                    }
+                }
+            );
+        } else {
+            deleteFileIfUnreferenced(hash);
+        }
+    }
+
+    /**
+     * Resolve the file of an image.
+     *
+     * @param hash the content hash of the image.
+     * @return the path of the image file.
+     */
+    Path resolve(String hash) {
+        if (hash.length() < 4 || !hash.chars().allMatch(c -> (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+            throw new IllegalArgumentException("Invalid image hash: " + hash);
+        }
+        return directory.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private void deleteFileIfUnreferenced(String hash) {
+        Integer references = jdbcTemplate.queryForObject(
+            "select (select count(*) from boat where pic_hash = ?) + (select count(*) from boat_image_derivative where hash = ?)",
+            Integer.class,
+            hash,
+            hash
+        );
+        if (references != null && references > 0) {
+            log.debug("Kept image {}, which was referenced again", hash);
+            return;
+        }
+        log.debug("Deleting image {}", hash);
+        try {
+            Files.deleteIfExists(resolve(hash));
+        } catch (IOException e) {
+            log.warn("Could not delete image {}: {}", hash, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.openwt.boatapp.service.image;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service generating and finding the {@link ImageSize derivatives} of the pictures kept in the {@link ImageStore}.
+ * <p>
+ * Derivatives are generated in the background, on the {@code imageDerivativeExecutor}, once the picture is committed.
+ * They are stored in the {@link ImageStore} like any picture, and the {@code boat_image_derivative} table maps each
+ * picture and size to its derivative. Until its derivatives are generated a picture is served as uploaded; a picture
+ * which can not be decoded is mapped to itself, with no content type.
+ */
+@Service
+public class ImageDerivativeService {
+
+    private final Logger log = LoggerFactory.getLogger(ImageDerivativeService.class);
+
+    private final ImageStore imageStore;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Executor executor;
+
+    private final ImageResizer resizer;
+
+    /**
+     * The pictures whose derivatives are queued or being generated on this node.
+     */
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    public ImageDerivativeService(
+        ImageStore imageStore,
+        JdbcTemplate jdbcTemplate,
+        PlatformTransactionManager transactionManager,
+        @Qualifier("imageDerivativeExecutor") Executor executor,
+        @Value("${boatapp.image-store.derivatives.max-pixels}") long maxPixels,
+        @Value("${boatapp.image-store.derivatives.jpeg-quality}") float jpegQuality
+    ) {
+        this.imageStore = imageStore;
+        this.jdbcTemplate = jdbcTemplate;
+        // Also called once a transaction has committed, while its resources are still bound
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.executor = executor;
+        this.resizer = new ImageResizer(maxPixels, jpegQuality);
+    }
+
+    /**
+     * Find a derivative of a picture.
+     *
+     * @param sourceHash the content hash of the picture.
+     * @param size       the size of the derivative.
+     * @return the derivative, with no content type if it is the picture as uploaded, or empty if it has not been
+     * generated.
+     */
+    public Optional<StoredImage> find(String sourceHash, ImageSize size) {
+        List<StoredImage> derivatives = jdbcTemplate.query(
+            "select hash, content_size, content_type from boat_image_derivative where source_hash = ? and variant = ?",
+            (rs, rowNum) -> new StoredImage(rs.getString("hash"), rs.getLong("content_size"), rs.getString("content_type")),
+            sourceHash,
+            size.getParameter()
+        );
+        return derivatives.stream().findFirst();
+    }
+
+    /**
+     * Generate the derivatives of a picture in the background, once the surrounding transaction has committed.
+     *
+     * @param sourceHash the content hash of the picture.
+     */
+    public void generateAfterCommit(String sourceHash) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        submit(sourceHash);
+                    }
+                }
+            );
+        } else {
+            submit(sourceHash);
+        }
+    }
+
+    /**
+     * Generate the derivatives of a picture in the background, unless they are already queued on this node.
+     * <p>
+     * When the executor is saturated the picture is skipped: its derivatives are requested again the next time they
+     * are missing.
+     *
+     * @param sourceHash the content hash of the picture.
+     */
+    public void submit(String sourceHash) {
+        if (!pending.add(sourceHash)) {
+            return;
+        }
+        try {
+            executor.execute(
+                () -> {
+                    try {
+                        generate(sourceHash);
+                    } catch (RuntimeException e) {
+                        log.warn("Could not generate the derivatives of picture {}", sourceHash, e);
+                    } finally {
+                        pending.remove(sourceHash);
+                    }
+                }
+            );
+        } catch (RejectedExecutionException e) {
+            pending.remove(sourceHash);
+            log.debug("Skipped the derivatives of picture {}: {}", sourceHash, e.getMessage());
+        }
+    }
+
+    /**
+     * Generate and store the derivatives of a picture, unless they are already stored.
+     *
+     * @param sourceHash the content hash of the picture.
+     * @return {@code true} if the derivatives are stored.
+     */
+    public boolean generate(String sourceHash) {
+        Integer existing = jdbcTemplate.queryForObject(
+            "select count(*) from boat_image_derivative where source_hash = ?",
+            Integer.class,
+            sourceHash
+        );
+        if (existing != null && existing == ImageSize.values().length) {
+            return true;
+        }
+        Optional<byte[]> source = imageStore.load(sourceHash);
+        if (source.isEmpty()) {
+            return false;
+        }
+        Map<ImageSize, ImageResizer.Derivative> derivatives = resize(sourceHash, source.get());
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> save(sourceHash, derivatives)));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("The derivatives of picture {} were generated concurrently", sourceHash);
+            return true;
+        }
+    }
+
+    private Map<ImageSize, ImageResizer.Derivative> resize(String sourceHash, byte[] source) {
+        try {
+            return resizer.resize(source).orElseGet(() -> asUploaded(sourceHash, source, "unsupported format"));
+        } catch (IOException | RuntimeException e) {
+            return asUploaded(sourceHash, source, e.getMessage());
+        }
+    }
+
+    /**
+     * Map every size of a picture which can not be resized to the picture itself, so that it is not decoded again.
+     */
+    private Map<ImageSize, ImageResizer.Derivative> asUploaded(String sourceHash, byte[] source, String reason) {
+        log.info("Could not resize picture {}, it is served as uploaded: {}", sourceHash, reason);
+        Map<ImageSize, ImageResizer.Derivative> derivatives = new EnumMap<>(ImageSize.class);
+        for (ImageSize size : ImageSize.values()) {
+            derivatives.put(size, new ImageResizer.Derivative(source, null));
+        }
+        return derivatives;
+    }
+
+    /**
+     * Store the derivatives of a picture, unless no boat references it anymore.
+     * <p>
+     * The boats referencing the picture are locked until the derivatives are committed: a save detaching the picture
+     * waits, then releases the derivatives with the picture, and a save which detached it first leaves no boat to
+     * lock, so no derivative is left behind for a released picture.
+     */
+    private boolean save(String sourceHash, Map<ImageSize, ImageResizer.Derivative> derivatives) {
+        List<Long> boatIds = jdbcTemplate.queryForList(
+            "select id from boat where pic_hash = ? order by id for update",
+            Long.class,
+            sourceHash
+        );
+        if (boatIds.isEmpty() || !imageStore.exists(sourceHash)) {
+            // Released while it was resized
+            return false;
+        }
+        jdbcTemplate.update("delete from boat_image_derivative where source_hash = ?", sourceHash);
+        derivatives.forEach(
+            (size, derivative) -> {
+                String hash = imageStore.store(derivative.getContent());
+                jdbcTemplate.update(
+                    "insert into boat_image_derivative (source_hash, variant, hash, content_size, content_type) values (?, ?, ?, ?, ?)",
+                    sourceHash,
+                    size.getParameter(),
+                    hash,
+                    derivative.getContent().length,
+                    derivative.getContentType()
+                );
+            }
+        );
+        log.debug("Generated the derivatives of picture {}", sourceHash);
+        return true;
+    }
+
+    /**
+     * Forget the derivatives of a picture which is being deleted.
+     *
+     * @param sourceHash the content hash of the picture.
+     * @return the content hashes of the derivatives which are no derivative of another picture. The caller deletes
+     * them from the {@link ImageStore}, unless they are referenced otherwise.
+     */
+    public List<String> release(String sourceHash) {
+        List<String> hashes = jdbcTemplate.queryForList(
+            "select distinct hash from boat_image_derivative where source_hash = ?",
+            String.class,
+            sourceHash
+        );
+        jdbcTemplate.update("delete from boat_image_derivative where source_hash = ?", sourceHash);
+        hashes.removeIf(
+            hash -> {
+                Integer references = jdbcTemplate.queryForObject(
+                    "select count(*) from boat_image_derivative where hash = ?",
+                    Integer.class,
+                    hash
+                );
+                return references != null && references > 0;
+            }
+        );
+        return hashes;
+    }
+}
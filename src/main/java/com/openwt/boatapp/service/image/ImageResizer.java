@@ -0,0 +1,294 @@
+package com.openwt.boatapp.service.image;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import org.w3c.dom.NodeList;
+
+/**
+ * Generates the {@link ImageSize derivatives} of a picture with {@code javax.imageio}.
+ * <p>
+ * The picture is decoded once, turned upright according to its EXIF orientation, and each size is scaled down from
+ * the next larger one. Opaque derivatives are encoded as JPEG, the others as PNG. A derivative of an upright picture
+ * which would not be smaller than the picture itself is the picture.
+ */
+public class ImageResizer {
+
+    static final String JPEG = "image/jpeg";
+
+    static final String PNG = "image/png";
+
+    private static final String JPEG_METADATA_FORMAT = "javax_imageio_jpeg_image_1.0";
+
+    private static final String APP1_MARKER_TAG = "225";
+
+    private static final int ORIENTATION_TAG = 0x0112;
+
+    private static final int UPRIGHT = 1;
+
+    private final long maxPixels;
+
+    private final float jpegQuality;
+
+    /**
+     * @param maxPixels   pictures with more pixels are not decoded, so that a small file can not claim gigabytes.
+     * @param jpegQuality the JPEG compression quality, between 0 and 1.
+     */
+    public ImageResizer(long maxPixels, float jpegQuality) {
+        this.maxPixels = maxPixels;
+        this.jpegQuality = jpegQuality;
+    }
+
+    /**
+     * An encoded image.
+     */
+    public static final class Derivative {
+
+        private final byte[] content;
+
+        private final String contentType;
+
+        Derivative(byte[] content, String contentType) {
+            this.content = content;
+            this.contentType = contentType;
+        }
+
+        public byte[] getContent() {
+            return content;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+    }
+
+    /**
+     * Generate every size of a picture.
+     *
+     * @param source the picture content.
+     * @return the derivatives by size, or empty if the picture can not be decoded.
+     * @throws IOException if the picture is corrupt, or could not be encoded.
+     */
+    public Optional<Map<ImageSize, Derivative>> resize(byte[] source) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(source))) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                return Optional.empty();
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    throw new IOException("Picture of " + pixels + " pixels is larger than " + maxPixels);
+                }
+                String[] mimeTypes = reader.getOriginatingProvider().getMIMETypes();
+                String sourceType = mimeTypes != null && mimeTypes.length > 0 ? mimeTypes[0] : null;
+                int orientation = orientation(reader);
+                if (orientation != UPRIGHT) {
+                    // The stored pixels are not displayed as is, so neither is the picture
+                    sourceType = null;
+                }
+                return Optional.of(resize(orient(reader.read(0), orientation), source, sourceType));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private Map<ImageSize, Derivative> resize(BufferedImage image, byte[] source, String sourceType) throws IOException {
+        Map<ImageSize, Derivative> derivatives = new EnumMap<>(ImageSize.class);
+        BufferedImage current = image;
+        for (ImageSize size : ImageSize.values()) {
+            current = scale(current, size.getMaxDimension());
+            Derivative derivative = encode(current);
+            boolean unscaled = current.getWidth() == image.getWidth() && current.getHeight() == image.getHeight();
+            if (unscaled && sourceType != null && derivative.getContent().length >= source.length) {
+                derivative = new Derivative(source, sourceType);
+            }
+            derivatives.put(size, derivative);
+        }
+        return derivatives;
+    }
+
+    /**
+     * Read the EXIF orientation of a JPEG picture.
+     *
+     * @return the orientation, from 1 (upright) to 8; 1 if the picture has none.
+     */
+    private static int orientation(ImageReader reader) throws IOException {
+        IIOMetadata metadata = reader.getImageMetadata(0);
+        if (metadata == null || !Arrays.asList(metadata.getMetadataFormatNames()).contains(JPEG_METADATA_FORMAT)) {
+            return UPRIGHT;
+        }
+        IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(JPEG_METADATA_FORMAT);
+        NodeList markers = root.getElementsByTagName("unknown");
+        for (int i = 0; i < markers.getLength(); i++) {
+            IIOMetadataNode marker = (IIOMetadataNode) markers.item(i);
+            if (APP1_MARKER_TAG.equals(marker.getAttribute("MarkerTag")) && marker.getUserObject() instanceof byte[]) {
+                int orientation = exifOrientation((byte[]) marker.getUserObject());
+                if (orientation >= 1 && orientation <= 8) {
+                    return orientation;
+                }
+            }
+        }
+        return UPRIGHT;
+    }
+
+    /**
+     * Find the orientation tag in the first image file directory of an APP1 segment.
+     *
+     * @param segment the content of the APP1 segment, starting with the {@code Exif} identifier.
+     * @return the orientation, or 0 if the segment has none or is not EXIF.
+     */
+    static int exifOrientation(byte[] segment) {
+        if (segment.length < 14 || !new String(segment, 0, 6, StandardCharsets.ISO_8859_1).equals("Exif\0\0")) {
+            return 0;
+        }
+        ByteBuffer tiff = ByteBuffer.wrap(segment, 6, segment.length - 6).slice();
+        if (tiff.get(0) == 'I' && tiff.get(1) == 'I') {
+            tiff.order(ByteOrder.LITTLE_ENDIAN);
+        } else if (tiff.get(0) != 'M' || tiff.get(1) != 'M') {
+            return 0;
+        }
+        try {
+            int directory = tiff.getInt(4);
+            int entries = Short.toUnsignedInt(tiff.getShort(directory));
+            for (int i = 0; i < entries; i++) {
+                int entry = directory + 2 + 12 * i;
+                if (Short.toUnsignedInt(tiff.getShort(entry)) == ORIENTATION_TAG) {
+                    return Short.toUnsignedInt(tiff.getShort(entry + 8));
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            // Truncated segment
+        }
+        return 0;
+    }
+
+    /**
+     * Turn an image upright.
+     *
+     * @param orientation the EXIF orientation of the image: the stored rows and columns are mirrored and rotated by
+     *                    multiples of 90 degrees.
+     */
+    static BufferedImage orient(BufferedImage image, int orientation) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        AffineTransform transform;
+        switch (orientation) {
+            case 2:
+                transform = new AffineTransform(-1, 0, 0, 1, width, 0);
+                break;
+            case 3:
+                transform = new AffineTransform(-1, 0, 0, -1, width, height);
+                break;
+            case 4:
+                transform = new AffineTransform(1, 0, 0, -1, 0, height);
+                break;
+            case 5:
+                transform = new AffineTransform(0, 1, 1, 0, 0, 0);
+                break;
+            case 6:
+                transform = new AffineTransform(0, 1, -1, 0, height, 0);
+                break;
+            case 7:
+                transform = new AffineTransform(0, -1, -1, 0, height, width);
+                break;
+            case 8:
+                transform = new AffineTransform(0, -1, 1, 0, 0, width);
+                break;
+            default:
+                return image;
+        }
+        boolean transposed = orientation >= 5;
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage oriented = new BufferedImage(transposed ? height : width, transposed ? width : height, type);
+        Graphics2D graphics = oriented.createGraphics();
+        try {
+            graphics.drawImage(image, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return oriented;
+    }
+
+    /**
+     * Scale an image down to fit in a square, keeping its aspect ratio.
+     * <p>
+     * Large ratios are scaled in halving steps: a single bilinear pass would skip most of the source pixels, and alias.
+     */
+    static BufferedImage scale(BufferedImage image, int maxDimension) {
+        int longest = Math.max(image.getWidth(), image.getHeight());
+        if (longest <= maxDimension) {
+            return image;
+        }
+        double ratio = (double) maxDimension / longest;
+        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+        BufferedImage current = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            current = draw(current, width, height);
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private Derivative encode(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (image.getColorModel().hasAlpha()) {
+            ImageIO.write(image, "png", out);
+            return new Derivative(out.toByteArray(), PNG);
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            BufferedImage rgb = image.getType() == BufferedImage.TYPE_INT_RGB ? image : draw(image, image.getWidth(), image.getHeight());
+            writer.write(null, new IIOImage(rgb, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return new Derivative(out.toByteArray(), JPEG);
+    }
+
+    private static BufferedImage draw(BufferedImage image, int width, int height) {
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage scaled = new BufferedImage(width, height, type);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+}
@@ -0,0 +1,54 @@
+package com.openwt.boatapp.service.image;
+
+import java.util.Locale;
+
+/**
+ * The sizes of the derivatives generated from a picture, largest first.
+ */
+public enum ImageSize {
+    /**
+     * The picture, re-encoded at a bounded size, for detail views.
+     */
+    FULL(1600),
+
+    /**
+     * For cards and lists with large tiles.
+     */
+    CARD(480),
+
+    /**
+     * For list tiles.
+     */
+    THUMB(160);
+
+    private final int maxDimension;
+
+    ImageSize(int maxDimension) {
+        this.maxDimension = maxDimension;
+    }
+
+    /**
+     * @return the maximum width and height of the derivative, in pixels.
+     */
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    /**
+     * @return the name of the size, as used in URLs.
+     */
+    public String getParameter() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Parse the name of a size, as used in URLs.
+     *
+     * @param parameter the name, like {@code thumb}.
+     * @return the size.
+     * @throws IllegalArgumentException if there is no such size.
+     */
+    public static ImageSize fromParameter(String parameter) {
+        return valueOf(parameter.toUpperCase(Locale.ROOT));
+    }
+}
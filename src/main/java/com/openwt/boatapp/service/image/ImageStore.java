@@ -0,0 +1,70 @@
+package com.openwt.boatapp.service.image;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Optional;
+
+/**
+ * Content-addressed storage for binary images.
+ * <p>
+ * Images are keyed by the hex-encoded SHA-256 hash of their content, so storing the same bytes twice
+ * only keeps a single copy. Entities only reference the hash.
+ */
+public interface ImageStore {
+    /**
+     * Store an image, unless an image with the same content is already stored.
+     *
+     * @param content the image content.
+     * @return the content hash under which the image is stored.
+     */
+    String store(byte[] content);
+
+    /**
+     * Store an uploaded image, unless an image with the same content is already stored, without loading it in memory.
+     *
+     * @param upload the uploaded image.
+     * @return the content hash under which the image is stored.
+     * @throws IOException if the upload could not be read.
+     */
+    String store(ImageUpload upload) throws IOException;
+
+    /**
+     * Load an image.
+     *
+     * @param hash the content hash of the image.
+     * @return the image content, or empty if no image is stored under this hash.
+     */
+    Optional<byte[]> load(String hash);
+
+    /**
+     * Write a byte range of an image to a stream, without loading the whole image in memory.
+     * <p>
+     * Nothing is written if no image is stored under this hash.
+     *
+     * @param hash     the content hash of the image.
+     * @param position the index of the first byte to write.
+     * @param count    the number of bytes to write.
+     * @param out      the stream to write to; it is not closed.
+     * @return {@code true} if the image was found.
+     * @throws IOException if writing to the stream failed.
+     */
+    boolean transferTo(String hash, long position, long count, OutputStream out) throws IOException;
+
+    /**
+     * Check whether an image is stored.
+     *
+     * @param hash the content hash of the image.
+     * @return {@code true} if an image is stored under this hash.
+     */
+    boolean exists(String hash);
+
+    /**
+     * Delete an image, unless a boat or a derivative references it.
+     * <p>
+     * The references are checked by the deletion itself, so that an image which a boat has just referenced is not
+     * deleted by a concurrent release.
+     *
+     * @param hash the content hash of the image.
+     */
+    void deleteIfUnreferenced(String hash);
+}
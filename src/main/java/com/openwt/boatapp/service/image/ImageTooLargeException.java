@@ -0,0 +1,13 @@
+package com.openwt.boatapp.service.image;
+
+/**
+ * Thrown when an uploaded image is larger than allowed.
+ */
+public class ImageTooLargeException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ImageTooLargeException(long maxSize) {
+        super("Image is larger than " + maxSize + " bytes");
+    }
+}
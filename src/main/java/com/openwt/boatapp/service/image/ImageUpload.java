@@ -0,0 +1,186 @@
+package com.openwt.boatapp.service.image;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An uploaded image, spooled to a temporary file so that it is never held in memory.
+ * <p>
+ * The content is hashed while it is received, and its type is detected from its first bytes, so that an unsupported
+ * or oversized upload is rejected as soon as it is known to be, before the rest of it is read. The temporary file is
+ * deleted when the upload is closed.
+ */
+public final class ImageUpload implements AutoCloseable {
+
+    /**
+     * The content types of the supported images.
+     */
+    public static final List<String> CONTENT_TYPES = List.of("image/jpeg", "image/png", "image/gif", "image/webp");
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * The number of bytes needed to detect the type of an image.
+     */
+    private static final int HEAD_SIZE = 12;
+
+    private static final byte[] JPEG = { (byte) 0xff, (byte) 0xd8, (byte) 0xff };
+
+    private static final byte[] PNG = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' };
+
+    private static final byte[] GIF87A = "GIF87a".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] GIF89A = "GIF89a".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] RIFF = "RIFF".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] WEBP = "WEBP".getBytes(StandardCharsets.US_ASCII);
+
+    private final Path path;
+
+    private final String hash;
+
+    private final long size;
+
+    private final String contentType;
+
+    private ImageUpload(Path path, String hash, long size, String contentType) {
+        this.path = path;
+        this.hash = hash;
+        this.size = size;
+        this.contentType = contentType;
+    }
+
+    /**
+     * Receive an image, through a buffer of a fixed size.
+     *
+     * @param in      the image content; it is not closed.
+     * @param maxSize the maximum size of the image, in bytes.
+     * @return the upload, which the caller must close.
+     * @throws ImageTooLargeException        if the image is larger than {@code maxSize}.
+     * @throws UnsupportedImageTypeException if the image is not in a supported format.
+     * @throws IOException                   if the image could not be received.
+     */
+    public static ImageUpload receive(InputStream in, long maxSize) throws IOException {
+        MessageDigest digest = ContentHash.newDigest();
+        Path path = Files.createTempFile("boat-pic-", ".upload");
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            byte[] head = new byte[HEAD_SIZE];
+            int headLength = 0;
+            String contentType = null;
+            long size = 0;
+            try (OutputStream out = Files.newOutputStream(path)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxSize) {
+                        throw new ImageTooLargeException(maxSize);
+                    }
+                    if (contentType == null) {
+                        int copied = Math.min(read, HEAD_SIZE - headLength);
+                        System.arraycopy(buffer, 0, head, headLength, copied);
+                        headLength += copied;
+                        if (headLength == HEAD_SIZE) {
+                            contentType = detectContentType(head);
+                        }
+                    }
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                }
+            }
+            if (contentType == null) {
+                contentType = detectContentType(Arrays.copyOf(head, headLength));
+            }
+            return new ImageUpload(path, ContentHash.toHex(digest.digest()), size, contentType);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+    }
+
+    /**
+     * Detect the type of an image from its magic number.
+     *
+     * @param head the first bytes of the image.
+     * @return the content type.
+     * @throws UnsupportedImageTypeException if the image is not in a supported format.
+     */
+    static String detectContentType(byte[] head) {
+        if (startsWith(head, 0, JPEG)) {
+            return CONTENT_TYPES.get(0);
+        }
+        if (startsWith(head, 0, PNG)) {
+            return CONTENT_TYPES.get(1);
+        }
+        if (startsWith(head, 0, GIF87A) || startsWith(head, 0, GIF89A)) {
+            return CONTENT_TYPES.get(2);
+        }
+        if (startsWith(head, 0, RIFF) && startsWith(head, 8, WEBP)) {
+            return CONTENT_TYPES.get(3);
+        }
+        throw new UnsupportedImageTypeException();
+    }
+
+    private static boolean startsWith(byte[] head, int offset, byte[] magic) {
+        if (head.length < offset + magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (head[offset + i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the content hash of the image.
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    /**
+     * @return the size of the image, in bytes.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return the content type of the image, detected from its content.
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Open the content of the image.
+     *
+     * @return a stream of the content, which the caller must close.
+     * @throws IOException if the content could not be read.
+     */
+    public InputStream openStream() throws IOException {
+        return Files.newInputStream(path);
+    }
+
+    /**
+     * @return the temporary file holding the image.
+     */
+    Path getPath() {
+        return path;
+    }
+
+    @Override
+    public void close() throws IOException {
+        Files.deleteIfExists(path);
+    }
+}
@@ -0,0 +1,63 @@
+package com.openwt.boatapp.service.image;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Metadata of an image kept in the {@link ImageStore}.
+ */
+public class StoredImage implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String hash;
+
+    private final long size;
+
+    private final String contentType;
+
+    public StoredImage(String hash, long size, String contentType) {
+        this.hash = hash;
+        this.size = size;
+        this.contentType = contentType;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StoredImage)) {
+            return false;
+        }
+        StoredImage that = (StoredImage) o;
+        return size == that.size && Objects.equals(hash, that.hash) && Objects.equals(contentType, that.contentType);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(hash, size, contentType);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "StoredImage{" +
+            "hash='" + getHash() + "'" +
+            ", size=" + getSize() +
+            ", contentType='" + getContentType() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,13 @@
+package com.openwt.boatapp.service.image;
+
+/**
+ * Thrown when an uploaded image is not in one of the {@link ImageUpload#CONTENT_TYPES supported formats}.
+ */
+public class UnsupportedImageTypeException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UnsupportedImageTypeException() {
+        super("Unsupported image type");
+    }
+}
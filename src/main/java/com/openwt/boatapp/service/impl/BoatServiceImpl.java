@@ -2,12 +2,23 @@ package com.openwt.boatapp.service.impl;
 
 import com.openwt.boatapp.domain.Boat;
 import com.openwt.boatapp.repository.BoatRepository;
+import com.openwt.boatapp.service.BoatPicService;
 import com.openwt.boatapp.service.BoatService;
+import com.openwt.boatapp.service.cache.CacheInvalidation;
+import com.openwt.boatapp.service.cache.CacheInvalidationBus;
 import com.openwt.boatapp.service.dto.BoatDTO;
+import com.openwt.boatapp.service.dto.BoatUpdateResult;
+import com.openwt.boatapp.service.image.ImageUpload;
+import com.openwt.boatapp.service.image.StoredImage;
 import com.openwt.boatapp.service.mapper.BoatMapper;
+import com.openwt.boatapp.service.search.BoatSearchIndex;
+import java.io.Serializable;
+import java.util.Objects;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -26,53 +37,184 @@ public class BoatServiceImpl implements BoatService {
 
     private final BoatMapper boatMapper;
 
-    public BoatServiceImpl(BoatRepository boatRepository, BoatMapper boatMapper) {
+    private final BoatPicService boatPicService;
+
+    private final BoatSearchIndex boatSearchIndex;
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    private final Cache boatsByIdCache;
+
+    public BoatServiceImpl(
+        BoatRepository boatRepository,
+        BoatMapper boatMapper,
+        BoatPicService boatPicService,
+        BoatSearchIndex boatSearchIndex,
+        CacheInvalidationBus cacheInvalidationBus,
+        CacheManager cacheManager
+    ) {
         this.boatRepository = boatRepository;
         this.boatMapper = boatMapper;
+        this.boatPicService = boatPicService;
+        this.boatSearchIndex = boatSearchIndex;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.boatsByIdCache = Objects.requireNonNull(cacheManager.getCache(BOATS_BY_ID_CACHE));
     }
 
     @Override
     public BoatDTO save(BoatDTO boatDTO) {
         log.debug("Request to save Boat : {}", boatDTO);
+        String previousPicHash = boatDTO.getId() == null ? null : boatRepository.findPicHashById(boatDTO.getId()).orElse(null);
         Boat boat = boatMapper.toEntity(boatDTO);
-        boat = boatRepository.save(boat);
-        return boatMapper.toDto(boat);
+        if (boat.getId() != null && boat.getVersion() == null) {
+            // No version to check against, update the current one
+            boatRepository.findVersionById(boat.getId()).ifPresent(boat::setVersion);
+        }
+        boatPicService.attach(boat, boatDTO.getPic());
+        // Flushed so that the returned version is the incremented one
+        boat = boatRepository.saveAndFlush(boat);
+        boatSearchIndex.index(boat);
+        clearBoatCaches(boat.getId());
+        if (!Objects.equals(previousPicHash, boat.getPicHash())) {
+            boatPicService.releaseIfUnreferenced(previousPicHash);
+        }
+        BoatDTO result = boatMapper.toDto(boat);
+        result.setPic(boatDTO.getPic());
+        return result;
+    }
+
+    @Override
+    public BoatUpdateResult update(BoatDTO boatDTO, Long expectedVersion) {
+        log.debug("Request to update Boat : {}", boatDTO);
+        return update(boatDTO, expectedVersion, false);
     }
 
     @Override
-    public Optional<BoatDTO> partialUpdate(BoatDTO boatDTO) {
+    public BoatUpdateResult partialUpdate(BoatDTO boatDTO, Long expectedVersion) {
         log.debug("Request to partially update Boat : {}", boatDTO);
+        return update(boatDTO, expectedVersion, true);
+    }
+
+    /**
+     * Apply an update to the boat loaded, possibly from the second-level cache, in this transaction. The flush
+     * issues a single {@code update ... where id = ? and version = ?}, which fails if the boat was updated since.
+     */
+    private BoatUpdateResult update(BoatDTO boatDTO, Long expectedVersion, boolean partial) {
+        Optional<Boat> found = boatRepository.findById(boatDTO.getId());
+        if (found.isEmpty()) {
+            return BoatUpdateResult.notFound();
+        }
+        Boat boat = found.get();
+        if (expectedVersion != null && !expectedVersion.equals(boat.getVersion())) {
+            return BoatUpdateResult.conflict();
+        }
+        String previousPicHash = boat.getPicHash();
+        if (partial) {
+            boatMapper.partialUpdate(boat, boatDTO);
+            if (boatDTO.getPic() != null) {
+                boatPicService.attach(boat, boatDTO.getPic());
+            }
+        } else {
+            boatMapper.update(boat, boatDTO);
+            boatPicService.attach(boat, boatDTO.getPic());
+        }
+        // Flushed so that the returned version is the incremented one
+        boatRepository.flush();
+        boatSearchIndex.index(boat);
+        clearBoatCaches(boat.getId());
+        if (!Objects.equals(previousPicHash, boat.getPicHash())) {
+            boatPicService.releaseIfUnreferenced(previousPicHash);
+        }
+        if (partial) {
+            return BoatUpdateResult.updated(boatPicService.toDto(boat));
+        }
+        BoatDTO result = boatMapper.toDto(boat);
+        result.setPic(boatDTO.getPic());
+        return BoatUpdateResult.updated(result);
+    }
 
+    @Override
+    public Optional<StoredImage> updatePic(Long id, ImageUpload upload) {
+        log.debug("Request to update the picture of Boat : {}", id);
         return boatRepository
-            .findById(boatDTO.getId())
+            .findById(id)
             .map(
                 existingBoat -> {
-                    boatMapper.partialUpdate(existingBoat, boatDTO);
-
-                    return existingBoat;
+                    String previousPicHash = existingBoat.getPicHash();
+                    boatPicService.attach(existingBoat, upload);
+                    Boat updatedBoat = boatRepository.save(existingBoat);
+                    boatSearchIndex.index(updatedBoat);
+                    clearBoatCaches(id);
+                    if (!Objects.equals(previousPicHash, updatedBoat.getPicHash())) {
+                        boatPicService.releaseIfUnreferenced(previousPicHash);
+                    }
+                    return new StoredImage(updatedBoat.getPicHash(), updatedBoat.getPicSize(), updatedBoat.getPicContentType());
                 }
-            )
-            .map(boatRepository::save)
-            .map(boatMapper::toDto);
+            );
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<BoatDTO> findAll(Pageable pageable) {
         log.debug("Request to get all Boats");
-        return boatRepository.findAll(pageable).map(boatMapper::toDto);
+        return boatPicService.toDto(boatRepository.findAll(pageable));
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The cache only keeps the boat without its picture content, which is loaded from the image store into a copy of
+     * the cached DTO: callers may change the returned DTO, and the pictures are not duplicated in the cache.
+     */
     @Override
     @Transactional(readOnly = true)
     public Optional<BoatDTO> findOne(Long id) {
         log.debug("Request to get Boat : {}", id);
-        return boatRepository.findById(id).map(boatMapper::toDto);
+        CachedBoat cached = boatsByIdCache.get(id, CachedBoat.class);
+        if (cached == null) {
+            Optional<Boat> boat = boatRepository.findById(id);
+            if (boat.isEmpty()) {
+                return Optional.empty();
+            }
+            cached = new CachedBoat(boatPicService.toSummaryDto(boat.get()), boat.get().getPicHash());
+            boatsByIdCache.put(id, cached);
+        }
+        return Optional.of(boatPicService.withPic(cached.boat, cached.picHash));
     }
 
     @Override
     public void delete(Long id) {
         log.debug("Request to delete Boat : {}", id);
+        String picHash = boatRepository.findPicHashById(id).orElse(null);
         boatRepository.deleteById(id);
+        boatSearchIndex.remove(id);
+        clearBoatCaches(id);
+        boatPicService.releaseIfUnreferenced(picHash);
+    }
+
+    /**
+     * The invalidations are applied right away, then again once the transaction has committed, by the
+     * {@link CacheInvalidationBus}: a boat which a concurrent {@link #findOne(Long)} cached before the commit is not kept.
+     */
+    private void clearBoatCaches(Long id) {
+        cacheInvalidationBus.publish(CacheInvalidation.evict(BOATS_BY_ID_CACHE, id));
+        cacheInvalidationBus.publish(CacheInvalidation.clear(BOAT_QUERIES_CACHE));
+    }
+
+    /**
+     * Entry of the {@link #BOATS_BY_ID_CACHE} cache.
+     */
+    private static final class CachedBoat implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BoatDTO boat;
+
+        private final String picHash;
+
+        private CachedBoat(BoatDTO boat, String picHash) {
+            this.boat = boat;
+            this.picHash = picHash;
+        }
     }
 }
@@ -2,10 +2,48 @@ package com.openwt.boatapp.service.mapper;
 
 import com.openwt.boatapp.domain.Boat;
 import com.openwt.boatapp.service.dto.BoatDTO;
+import org.mapstruct.BeanMapping;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+import org.mapstruct.Named;
+import org.mapstruct.NullValuePropertyMappingStrategy;
 
 /**
  * Mapper for the entity {@link Boat} and its DTO {@link BoatDTO}.
+ * <p>
+ * The picture content lives in the {@link com.openwt.boatapp.service.image.ImageStore}, so it is not mapped here:
+ * see {@link com.openwt.boatapp.service.BoatPicService}.
  */
 @Mapper(componentModel = "spring", uses = {})
-public interface BoatMapper extends EntityMapper<BoatDTO, Boat> {}
+public interface BoatMapper extends EntityMapper<BoatDTO, Boat> {
+    @Override
+    @Mapping(target = "pic", ignore = true)
+    @Mapping(target = "picUrl", ignore = true)
+    BoatDTO toDto(Boat boat);
+
+    @Override
+    @Mapping(target = "picHash", ignore = true)
+    @Mapping(target = "picSize", ignore = true)
+    Boat toEntity(BoatDTO boatDTO);
+
+    /**
+     * @param boatDTO the DTO to copy.
+     * @return a new DTO with the same properties.
+     */
+    BoatDTO copy(BoatDTO boatDTO);
+
+    @Named("update")
+    @Mapping(target = "picHash", ignore = true)
+    @Mapping(target = "picSize", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    void update(@MappingTarget Boat entity, BoatDTO dto);
+
+    @Override
+    @Named("partialUpdate")
+    @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "picHash", ignore = true)
+    @Mapping(target = "picSize", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    void partialUpdate(@MappingTarget Boat entity, BoatDTO dto);
+}
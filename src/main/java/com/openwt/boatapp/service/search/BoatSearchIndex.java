@@ -0,0 +1,229 @@
+package com.openwt.boatapp.service.search;
+
+import com.openwt.boatapp.domain.Boat;
+import com.openwt.boatapp.repository.BoatRepository;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * In-memory trigram index over {@link Boat#getName()} and {@link Boat#getDescription()}, answering {@code contains}
+ * filters without scanning the {@code boat} table.
+ * <p>
+ * The index is rebuilt from the database once the application is ready, and then kept in sync by
+ * {@link com.openwt.boatapp.service.BoatService} after each committed write. Until the first rebuild has completed, or
+ * when {@code boatapp.search.index.enabled} is {@code false}, no candidates are returned and the database is queried as
+ * usual. Candidates are a superset of the matching boats: the {@code contains} predicate is still checked by the
+ * database on the candidate ids, folding case with {@code lower} like the index does with {@link java.util.Locale#ROOT}.
+ * Writes which do not go through the service are not seen by the index.
+ */
+@Service
+public class BoatSearchIndex {
+
+    private final Logger log = LoggerFactory.getLogger(BoatSearchIndex.class);
+
+    private final BoatRepository boatRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+
+    private final int maxCandidates;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private TrigramIndex names = new TrigramIndex();
+
+    private TrigramIndex descriptions = new TrigramIndex();
+
+    private List<Update> pendingUpdates;
+
+    private volatile boolean ready;
+
+    public BoatSearchIndex(
+        BoatRepository boatRepository,
+        PlatformTransactionManager transactionManager,
+        @Value("${boatapp.search.index.enabled}") boolean enabled,
+        @Value("${boatapp.search.index.max-candidates}") int maxCandidates
+    ) {
+        this.boatRepository = boatRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.enabled = enabled;
+        this.maxCandidates = maxCandidates;
+    }
+
+    /**
+     * Rebuild the index, streaming every boat from the database.
+     * <p>
+     * Writes committed during the rebuild are replayed on the new index before it replaces the current one.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        log.debug("Rebuilding the boat search index");
+        lock.writeLock().lock();
+        try {
+            pendingUpdates = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        TrigramIndex newNames = new TrigramIndex();
+        TrigramIndex newDescriptions = new TrigramIndex();
+        try {
+            transactionTemplate.executeWithoutResult(
+                status -> {
+                    try (Stream<BoatRepository.SearchText> texts = boatRepository.streamAllSearchTexts()) {
+                        texts.forEach(
+                            text -> {
+                                newNames.put(text.getId(), text.getName());
+                                newDescriptions.put(text.getId(), text.getDescription());
+                            }
+                        );
+                    }
+                }
+            );
+        } catch (RuntimeException e) {
+            log.warn("Could not rebuild the boat search index, falling back to database queries", e);
+            lock.writeLock().lock();
+            try {
+                pendingUpdates = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            pendingUpdates.forEach(update -> update.applyTo(newNames, newDescriptions));
+            pendingUpdates = null;
+            names = newNames;
+            descriptions = newDescriptions;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Boat search index rebuilt with {} boats", newNames.size());
+    }
+
+    /**
+     * Index a boat once the surrounding transaction has committed.
+     *
+     * @param boat the saved boat.
+     */
+    public void index(Boat boat) {
+        long id = boat.getId();
+        String name = boat.getName();
+        String description = boat.getDescription();
+        afterCommit(
+            (currentNames, currentDescriptions) -> {
+                currentNames.put(id, name);
+                currentDescriptions.put(id, description);
+            }
+        );
+    }
+
+    /**
+     * Remove a boat from the index once the surrounding transaction has committed.
+     *
+     * @param id the id of the deleted boat.
+     */
+    public void remove(Long id) {
+        afterCommit(
+            (currentNames, currentDescriptions) -> {
+                currentNames.remove(id);
+                currentDescriptions.remove(id);
+            }
+        );
+    }
+
+    /**
+     * Find the ids of the boats whose name may contain the given text, ignoring case.
+     *
+     * @param text the searched text.
+     * @return the candidate ids, or empty if the index can not narrow the search down.
+     */
+    public Optional<List<Long>> findIdsByNameContaining(String text) {
+        return findCandidates(text, index -> index.names);
+    }
+
+    /**
+     * Find the ids of the boats whose description may contain the given text, ignoring case.
+     *
+     * @param text the searched text.
+     * @return the candidate ids, or empty if the index can not narrow the search down.
+     */
+    public Optional<List<Long>> findIdsByDescriptionContaining(String text) {
+        return findCandidates(text, index -> index.descriptions);
+    }
+
+    private Optional<List<Long>> findCandidates(String text, Function<BoatSearchIndex, TrigramIndex> field) {
+        // LIKE wildcards are not escaped by the criteria, so they can not be looked up as plain text
+        if (!ready || text == null || text.indexOf('%') >= 0 || text.indexOf('_') >= 0) {
+            return Optional.empty();
+        }
+        long[] candidates;
+        lock.readLock().lock();
+        try {
+            candidates = field.apply(this).candidates(text, maxCandidates);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return Optional.ofNullable(candidates).map(ids -> Arrays.stream(ids).boxed().collect(Collectors.toList()));
+    }
+
+    private void afterCommit(Update update) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        apply(update);
+                    }
+                }
+            );
+        } else {
+            apply(update);
+        }
+    }
+
+    private void apply(Update update) {
+        lock.writeLock().lock();
+        try {
+            update.applyTo(names, descriptions);
+            if (pendingUpdates != null) {
+                pendingUpdates.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Update {
+        void applyTo(TrigramIndex names, TrigramIndex descriptions);
+    }
+}
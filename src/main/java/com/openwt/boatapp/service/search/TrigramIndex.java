@@ -0,0 +1,156 @@
+package com.openwt.boatapp.service.search;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Inverted index from the trigrams of a text field to the sorted ids of the documents containing them.
+ * <p>
+ * A substring of a document contains only trigrams of that document, so intersecting the postings of the trigrams of
+ * a needle yields a superset of the documents containing it. Postings are sorted primitive {@code long} arrays, so
+ * document ids are never boxed. This class is not thread-safe.
+ */
+final class TrigramIndex {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    private final Map<Long, long[]> documents = new HashMap<>();
+
+    /**
+     * Index a document, replacing its previous text.
+     *
+     * @param id the id of the document.
+     * @param text the text of the document.
+     */
+    void put(long id, String text) {
+        remove(id);
+        long[] trigrams = text == null ? EMPTY : trigrams(text);
+        for (long trigram : trigrams) {
+            postings.computeIfAbsent(trigram, key -> new Postings()).add(id);
+        }
+        documents.put(id, trigrams);
+    }
+
+    /**
+     * Remove a document from the index.
+     *
+     * @param id the id of the document.
+     */
+    void remove(long id) {
+        long[] trigrams = documents.remove(id);
+        if (trigrams == null) {
+            return;
+        }
+        for (long trigram : trigrams) {
+            Postings list = postings.get(trigram);
+            list.remove(id);
+            if (list.size == 0) {
+                postings.remove(trigram);
+            }
+        }
+    }
+
+    /**
+     * Find the documents which may contain the needle, ignoring case.
+     *
+     * @param needle the searched substring.
+     * @param limit the maximum number of candidates.
+     * @return the sorted candidate ids, or {@code null} if the needle is shorter than a trigram or matches more than
+     * {@code limit} documents.
+     */
+    long[] candidates(String needle, int limit) {
+        long[] trigrams = trigrams(needle);
+        if (trigrams.length == 0) {
+            return null;
+        }
+        Postings[] lists = new Postings[trigrams.length];
+        for (int i = 0; i < trigrams.length; i++) {
+            lists[i] = postings.get(trigrams[i]);
+            if (lists[i] == null) {
+                return EMPTY;
+            }
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+        long[] result = new long[lists[0].size];
+        int size = 0;
+        for (int i = 0; i < lists[0].size; i++) {
+            long id = lists[0].ids[i];
+            boolean inAll = true;
+            for (int j = 1; j < lists.length && inAll; j++) {
+                inAll = lists[j].contains(id);
+            }
+            if (inAll) {
+                if (size == limit) {
+                    return null;
+                }
+                result[size++] = id;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    int size() {
+        return documents.size();
+    }
+
+    static long[] trigrams(String text) {
+        String lowerCase = text.toLowerCase(Locale.ROOT);
+        if (lowerCase.length() < 3) {
+            return EMPTY;
+        }
+        long[] trigrams = new long[lowerCase.length() - 2];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = ((long) lowerCase.charAt(i) << 32) | ((long) lowerCase.charAt(i + 1) << 16) | lowerCase.charAt(i + 2);
+        }
+        Arrays.sort(trigrams);
+        int distinct = 0;
+        for (int i = 0; i < trigrams.length; i++) {
+            if (i == 0 || trigrams[i] != trigrams[distinct - 1]) {
+                trigrams[distinct++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, distinct);
+    }
+
+    /**
+     * Growable sorted array of document ids.
+     */
+    private static final class Postings {
+
+        private long[] ids = new long[4];
+
+        private int size;
+
+        void add(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            int insertion = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1));
+            }
+            System.arraycopy(ids, insertion, ids, insertion + 1, size - insertion);
+            ids[insertion] = id;
+            size++;
+        }
+
+        void remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+    }
+}
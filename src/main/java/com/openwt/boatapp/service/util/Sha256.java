@@ -0,0 +1,63 @@
+package com.openwt.boatapp.service.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Utility class computing hex-encoded SHA-256 hashes, of picture contents as well as of the tokens stored hashed.
+ */
+public final class Sha256 {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private Sha256() {}
+
+    /**
+     * Create a new SHA-256 digest.
+     *
+     * @return the digest.
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Hash the given bytes.
+     *
+     * @param content the bytes to hash.
+     * @return the lower-case hex-encoded SHA-256 hash.
+     */
+    public static String hex(byte[] content) {
+        return toHex(newDigest().digest(content));
+    }
+
+    /**
+     * Hash the UTF-8 encoding of the given text.
+     *
+     * @param text the text to hash.
+     * @return the lower-case hex-encoded SHA-256 hash.
+     */
+    public static String hex(String text) {
+        return hex(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Hex-encode a digest.
+     *
+     * @param digest the digest bytes.
+     * @return the lower-case hex representation.
+     */
+    public static String toHex(byte[] digest) {
+        char[] hex = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xf];
+        }
+        return new String(hex);
+    }
+}
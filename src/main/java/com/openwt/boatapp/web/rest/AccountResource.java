@@ -65,8 +65,8 @@ public class AccountResource {
         if (isPasswordLengthInvalid(managedUserVM.getPassword())) {
             throw new InvalidPasswordException();
         }
-        User user = userService.registerUser(managedUserVM, managedUserVM.getPassword());
-        mailService.sendActivationEmail(user);
+        UserService.IssuedToken registration = userService.registerUser(managedUserVM, managedUserVM.getPassword());
+        mailService.sendActivationEmail(registration.getUser(), registration.getToken());
     }
 
     /**
@@ -159,9 +159,9 @@ public class AccountResource {
      */
     @PostMapping(path = "/account/reset-password/init")
     public void requestPasswordReset(@RequestBody String mail) {
-        Optional<User> user = userService.requestPasswordReset(mail);
-        if (user.isPresent()) {
-            mailService.sendPasswordResetMail(user.get());
+        Optional<UserService.IssuedToken> reset = userService.requestPasswordReset(mail);
+        if (reset.isPresent()) {
+            mailService.sendPasswordResetMail(reset.get().getUser(), reset.get().getToken());
         } else {
             // Pretend the request has been successful to prevent checking which emails really exist
             // but log that an invalid attempt has been made
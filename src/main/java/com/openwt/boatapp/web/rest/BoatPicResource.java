@@ -0,0 +1,221 @@
+package com.openwt.boatapp.web.rest;
+
+import com.openwt.boatapp.service.BoatPicService;
+import com.openwt.boatapp.service.BoatService;
+import com.openwt.boatapp.service.image.ImageSize;
+import com.openwt.boatapp.service.image.ImageTooLargeException;
+import com.openwt.boatapp.service.image.ImageUpload;
+import com.openwt.boatapp.service.image.StoredImage;
+import com.openwt.boatapp.service.image.UnsupportedImageTypeException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * REST controller serving and replacing the raw picture of a {@link com.openwt.boatapp.domain.Boat}.
+ * <p>
+ * Pictures are streamed from the image store straight to the response, with a strong ETag derived from the content
+ * hash and support for single byte ranges. Smaller derivatives of the pictures are served on request.
+ * <p>
+ * Uploaded pictures are streamed to a temporary file through a fixed-size buffer, hashed on the fly, and rejected as
+ * soon as they exceed {@code boatapp.image-store.upload.max-size} or are not in a supported format. At most
+ * {@code boatapp.image-store.upload.max-concurrent} uploads are received at once.
+ */
+@RestController
+@RequestMapping("/api")
+public class BoatPicResource {
+
+    private static final String BYTES = "bytes";
+
+    private final Logger log = LoggerFactory.getLogger(BoatPicResource.class);
+
+    private final BoatPicService boatPicService;
+
+    private final BoatService boatService;
+
+    private final long maxUploadSize;
+
+    private final Semaphore uploads;
+
+    public BoatPicResource(
+        BoatPicService boatPicService,
+        BoatService boatService,
+        @Value("${boatapp.image-store.upload.max-size}") long maxUploadSize,
+        @Value("${boatapp.image-store.upload.max-concurrent}") int maxConcurrentUploads
+    ) {
+        this.boatPicService = boatPicService;
+        this.boatService = boatService;
+        this.maxUploadSize = maxUploadSize;
+        this.uploads = new Semaphore(maxConcurrentUploads);
+    }
+
+    /**
+     * {@code GET  /boats/:id/pic} : get the picture of the "id" boat.
+     *
+     * @param id       the id of the boat.
+     * @param size     the size of the picture: {@code thumb}, {@code card} or {@code full}, or none for the picture as
+     *                 uploaded.
+     * @param request  the HTTP request.
+     * @param response the HTTP response the picture is written to, with status {@code 200 (OK)},
+     *                 {@code 206 (Partial Content)} for a byte range, {@code 304 (Not Modified)} if the client's copy is
+     *                 current, {@code 416 (Range Not Satisfiable)} for an invalid byte range,
+     *                 {@code 400 (Bad Request)} if the size is unknown, or {@code 404 (Not Found)} if the boat has no picture.
+     * @throws IOException if writing the picture failed.
+     */
+    @GetMapping("/boats/{id}/pic")
+    public void getBoatPic(
+        @PathVariable Long id,
+        @RequestParam(value = "size", required = false) String size,
+        HttpServletRequest request,
+        HttpServletResponse response
+    ) throws IOException {
+        log.debug("REST request to get the picture of Boat : {}, size: {}", id, size);
+        Optional<StoredImage> found;
+        if (size == null) {
+            found = boatPicService.findPic(id);
+        } else {
+            ImageSize imageSize;
+            try {
+                imageSize = ImageSize.fromParameter(size);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid picture size");
+            }
+            found = boatPicService.findPic(id, imageSize);
+        }
+        StoredImage pic = found.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        String etag = "\"" + pic.getHash() + "\"";
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+            return;
+        }
+
+        long length = pic.getSize();
+        long position = 0;
+        long count = length;
+        HttpRange range = resolveRange(request, etag);
+        if (range != null) {
+            position = range.getRangeStart(length);
+            if (position >= length) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, BYTES + " */" + length);
+                return;
+            }
+            long end = range.getRangeEnd(length);
+            count = end - position + 1;
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, BYTES + " " + position + "-" + end + "/" + length);
+        }
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, BYTES);
+        response.setContentType(pic.getContentType() != null ? pic.getContentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setContentLengthLong(count);
+        if (!boatPicService.transferTo(pic, position, count, response.getOutputStream())) {
+            log.warn("Picture {} of Boat {} is missing from the image store", pic.getHash(), id);
+            response.reset();
+            response.sendError(HttpStatus.NOT_FOUND.value());
+        }
+    }
+
+    /**
+     * {@code PUT  /boats/:id/pic} : replace the picture of the "id" boat with the raw request body.
+     *
+     * @param id      the id of the boat.
+     * @param request the HTTP request, whose body is the picture.
+     * @return the {@link ResponseEntity} with status {@code 204 (No Content)} and the ETag of the new picture,
+     * {@code 404 (Not Found)} if the boat does not exist, {@code 413 (Payload Too Large)} if the picture is too large,
+     * {@code 415 (Unsupported Media Type)} if it is not a JPEG, PNG, GIF or WebP image, or
+     * {@code 503 (Service Unavailable)} if too many pictures are being uploaded.
+     * @throws IOException if the body could not be read.
+     */
+    @PutMapping(value = "/boats/{id}/pic", consumes = { MediaType.APPLICATION_OCTET_STREAM_VALUE, "image/*" })
+    public ResponseEntity<Void> updateBoatPic(@PathVariable Long id, HttpServletRequest request) throws IOException {
+        log.debug("REST request to update the picture of Boat : {}", id);
+        return upload(id, request.getContentLengthLong(), request.getInputStream());
+    }
+
+    /**
+     * {@code PUT  /boats/:id/pic} : replace the picture of the "id" boat with the {@code file} part of a form.
+     * <p>
+     * The part is spooled to disk by the servlet container, then streamed like a raw body.
+     *
+     * @param id   the id of the boat.
+     * @param file the picture.
+     * @return the {@link ResponseEntity} with the same statuses as a raw upload.
+     * @throws IOException if the part could not be read.
+     */
+    @PutMapping(value = "/boats/{id}/pic", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Void> updateBoatPicForm(@PathVariable Long id, @RequestPart("file") MultipartFile file) throws IOException {
+        log.debug("REST request to update the picture of Boat : {} from a form", id);
+        try (InputStream in = file.getInputStream()) {
+            return upload(id, file.getSize(), in);
+        }
+    }
+
+    private ResponseEntity<Void> upload(Long id, long declaredSize, InputStream in) throws IOException {
+        try {
+            if (declaredSize > maxUploadSize) {
+                throw new ImageTooLargeException(maxUploadSize);
+            }
+            if (!uploads.tryAcquire()) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many pictures are being uploaded");
+            }
+            try (ImageUpload upload = ImageUpload.receive(in, maxUploadSize)) {
+                StoredImage pic = boatService.updatePic(id, upload).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+                return ResponseEntity.noContent().eTag("\"" + pic.getHash() + "\"").build();
+            } finally {
+                uploads.release();
+            }
+        } catch (ImageTooLargeException e) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, e.getMessage());
+        } catch (UnsupportedImageTypeException e) {
+            throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, e.getMessage());
+        }
+    }
+
+    /**
+     * Resolve the single byte range requested by the client, if any.
+     * <p>
+     * Multiple ranges, malformed ranges and ranges conditioned on another version ({@code If-Range}) are ignored,
+     * and the whole picture is sent instead.
+     */
+    private HttpRange resolveRange(HttpServletRequest request, String etag) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring invalid range {}", rangeHeader);
+            return null;
+        }
+    }
+}
@@ -1,24 +1,48 @@
 package com.openwt.boatapp.web.rest;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.openwt.boatapp.repository.BoatRepository;
+import com.openwt.boatapp.service.BoatBatchService;
+import com.openwt.boatapp.service.BoatExportService;
 import com.openwt.boatapp.service.BoatQueryService;
 import com.openwt.boatapp.service.BoatService;
 import com.openwt.boatapp.service.criteria.BoatCriteria;
+import com.openwt.boatapp.service.dto.BoatBatchItemDTO;
+import com.openwt.boatapp.service.dto.BoatBatchResultDTO;
+import com.openwt.boatapp.service.dto.BoatCursor;
 import com.openwt.boatapp.service.dto.BoatDTO;
+import com.openwt.boatapp.service.dto.BoatSummaryDTO;
+import com.openwt.boatapp.service.dto.BoatUpdateResult;
+import com.openwt.boatapp.service.dto.BoatVersion;
+import com.openwt.boatapp.service.util.Sha256;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -27,32 +51,65 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
 import tech.jhipster.web.util.PaginationUtil;
 
 /**
  * REST controller for managing {@link com.openwt.boatapp.domain.Boat}.
+ * <p>
+ * Boats and pages of boats carry a strong ETag derived from the ids and versions of the boats, and for pages from the
+ * total count or the presence of a next page, which the paging headers hold. A conditional GET
+ * whose {@code If-None-Match} still matches is answered {@code 304 (Not Modified)} from the versions alone, and an
+ * update whose {@code If-Match} no longer matches is rejected with {@code 412 (Precondition Failed)}.
  */
 @RestController
 @RequestMapping("/api")
 public class BoatResource extends AbstractController {
 
     private static final String ENTITY_NAME = "boat";
+    private static final String COUNT_EXACT = "exact";
+    private static final String COUNT_NONE = "none";
+    private static final String COUNT_ESTIMATE = "estimate";
+    private static final String TOTAL_COUNT_ESTIMATE_HEADER = "X-Total-Count-Estimate";
     private final Logger log = LoggerFactory.getLogger(BoatResource.class);
     private final BoatService boatService;
     private final BoatRepository boatRepository;
     private final BoatQueryService boatQueryService;
+    private final BoatBatchService boatBatchService;
+    private final BoatExportService boatExportService;
+    private final ObjectMapper objectMapper;
 
     @Value("${boatapp.clientApp.name}")
     private String applicationName;
 
-    public BoatResource(BoatService boatService, BoatRepository boatRepository, BoatQueryService boatQueryService) {
+    @Value("${boatapp.batch.chunk-size}")
+    private int batchChunkSize;
+
+    @Value("${boatapp.export.timeout-in-seconds}")
+    private long exportTimeoutInSeconds;
+
+    public BoatResource(
+        BoatService boatService,
+        BoatRepository boatRepository,
+        BoatQueryService boatQueryService,
+        BoatBatchService boatBatchService,
+        BoatExportService boatExportService,
+        ObjectMapper objectMapper
+    ) {
         this.boatService = boatService;
         this.boatRepository = boatRepository;
         this.boatQueryService = boatQueryService;
+        this.boatBatchService = boatBatchService;
+        this.boatExportService = boatExportService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -69,22 +126,70 @@ public class BoatResource extends AbstractController {
             return ResponseEntity.badRequest().headers(createAlert("A new boat cannot already have an ID")).build();
         }
         BoatDTO result = boatService.save(boatDTO);
-        return ResponseEntity.created(new URI("/api/boats/" + result.getId())).headers(createAlert(applicationName)).body(result);
+        return ResponseEntity
+            .created(new URI("/api/boats/" + result.getId()))
+            .eTag(etagOf(result))
+            .headers(createAlert(applicationName))
+            .body(result);
+    }
+
+    /**
+     * {@code POST  /boats/batch} : Create, update and delete boats in bulk.
+     * <p>
+     * The body is either a JSON array of operations, or one operation per line ({@code application/x-ndjson}). It is
+     * read as a stream, and applied in chunks of {@code boatapp.batch.chunk-size} operations, each in its own
+     * transaction, so the chunks applied before a failure stay applied. An operation which can not be parsed ends the
+     * batch, and is reported as invalid.
+     *
+     * @param body the operations.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the outcome of each operation.
+     * @throws IOException if the body can not be read.
+     */
+    @PostMapping(value = "/boats/batch", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<List<BoatBatchResultDTO>> applyBoatBatch(InputStream body) throws IOException {
+        log.debug("REST request to apply a Boat batch");
+        List<BoatBatchResultDTO> results = new ArrayList<>();
+        List<BoatBatchItemDTO> chunk = new ArrayList<>(batchChunkSize);
+        int index = 0;
+        String parseError = null;
+        try (MappingIterator<BoatBatchItemDTO> items = objectMapper.readerFor(BoatBatchItemDTO.class).readValues(body)) {
+            while (items.hasNextValue()) {
+                chunk.add(items.nextValue());
+                index++;
+                if (chunk.size() == batchChunkSize) {
+                    results.addAll(boatBatchService.apply(chunk, index - chunk.size()));
+                    chunk.clear();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            parseError = e.getOriginalMessage();
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(boatBatchService.apply(chunk, index - chunk.size()));
+        }
+        if (parseError != null) {
+            results.add(new BoatBatchResultDTO(index, BoatBatchResultDTO.Status.INVALID, null, parseError));
+        }
+        return ResponseEntity.ok().headers(createAlert(applicationName)).body(results);
     }
 
     /**
      * {@code PUT  /boats/:id} : Updates an existing boat.
      *
      * @param id      the id of the boatDTO to save.
+     * @param ifMatch the ETags of the versions which may be updated, if any.
      * @param boatDTO the boatDTO to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated boatDTO,
      * or with status {@code 400 (Bad Request)} if the boatDTO is not valid,
+     * or with status {@code 409 (Conflict)} if the version of the boatDTO is not the current one,
+     * or with status {@code 412 (Precondition Failed)} if {@code If-Match} does not match the current version,
      * or with status {@code 500 (Internal Server Error)} if the boatDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/boats/{id}")
     public ResponseEntity<BoatDTO> updateBoat(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @Valid @RequestBody BoatDTO boatDTO
     ) throws URISyntaxException {
         log.debug("REST request to update Boat : {}, {}", id, boatDTO);
@@ -95,28 +200,32 @@ public class BoatResource extends AbstractController {
             return ResponseEntity.badRequest().headers(createAlert("Invalid ID")).build();
         }
 
-        if (!boatRepository.existsById(id)) {
-            return ResponseEntity.badRequest().headers(createAlert("Entity not found")).build();
+        BoatUpdateResult result;
+        try {
+            result = boatService.update(boatDTO, expectedVersion(ifMatch, id, boatDTO));
+        } catch (OptimisticLockingFailureException e) {
+            result = BoatUpdateResult.conflict();
         }
-
-        BoatDTO result = boatService.save(boatDTO);
-        return ResponseEntity.ok().headers(createAlert(applicationName)).body(result);
+        return toResponse(result, ifMatch).headers(createAlert(applicationName)).body(result.getBoat());
     }
 
     /**
      * {@code PATCH  /boats/:id} : Partial updates given fields of an existing boat, field will ignore if it is null
      *
      * @param id      the id of the boatDTO to save.
+     * @param ifMatch the ETags of the versions which may be updated, if any.
      * @param boatDTO the boatDTO to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated boatDTO,
-     * or with status {@code 400 (Bad Request)} if the boatDTO is not valid,
-     * or with status {@code 404 (Not Found)} if the boatDTO is not found,
+     * or with status {@code 400 (Bad Request)} if the boatDTO is not valid or not found,
+     * or with status {@code 409 (Conflict)} if the version of the boatDTO is not the current one,
+     * or with status {@code 412 (Precondition Failed)} if {@code If-Match} does not match the current version,
      * or with status {@code 500 (Internal Server Error)} if the boatDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/boats/{id}", consumes = "application/merge-patch+json")
     public ResponseEntity<BoatDTO> partialUpdateBoat(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @NotNull @RequestBody BoatDTO boatDTO
     ) throws URISyntaxException {
         log.debug("REST request to partial update Boat partially : {}, {}", id, boatDTO);
@@ -127,30 +236,172 @@ public class BoatResource extends AbstractController {
             return ResponseEntity.badRequest().headers(createAlert("Invalid ID")).build();
         }
 
-        if (!boatRepository.existsById(id)) {
-            return ResponseEntity.badRequest().headers(createAlert("Entity not found")).build();
+        BoatUpdateResult result;
+        try {
+            result = boatService.partialUpdate(boatDTO, expectedVersion(ifMatch, id, boatDTO));
+        } catch (OptimisticLockingFailureException e) {
+            result = BoatUpdateResult.conflict();
         }
-
-        Optional<BoatDTO> result = boatService.partialUpdate(boatDTO);
-
-        return result.map(ResponseEntity::ok).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        return toResponse(result, ifMatch).body(result.getBoat());
     }
 
     /**
      * {@code GET  /boats} : get all the boats.
+     * <p>
+     * The {@code count} parameter selects how the total is computed: {@code exact} (default) runs a count query and
+     * returns it in the {@code X-Total-Count} header, {@code none} skips it, and {@code estimate} returns an estimate
+     * from the database statistics in the {@code X-Total-Count-Estimate} header instead.
      *
      * @param pageable the pagination information.
      * @param criteria the criteria which the requested entities should match.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of boats in body.
+     * @param count    the count mode: {@code exact}, {@code none} or {@code estimate}.
+     * @param request  the web request, for its conditional headers.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of boats in body,
+     * or with status {@code 304 (Not Modified)} if {@code If-None-Match} matches the ETag of the page,
+     * or with status {@code 400 (Bad Request)} if the count mode is unknown.
      */
     @GetMapping("/boats")
-    public ResponseEntity<List<BoatDTO>> getAllBoats(BoatCriteria criteria, Pageable pageable) {
-        log.debug("REST request to get Boats by criteria: {}", criteria);
-        Page<BoatDTO> page = boatQueryService.findByCriteria(criteria, pageable);
+    public ResponseEntity<List<BoatDTO>> getAllBoats(
+        BoatCriteria criteria,
+        Pageable pageable,
+        @RequestParam(value = "count", defaultValue = COUNT_EXACT) String count,
+        WebRequest request
+    ) {
+        log.debug("REST request to get Boats by criteria: {}, count: {}", criteria, count);
+        if (!COUNT_EXACT.equals(count) && !COUNT_NONE.equals(count) && !COUNT_ESTIMATE.equals(count)) {
+            return ResponseEntity.badRequest().headers(createAlert("Invalid count mode")).build();
+        }
+        if (
+            request.getHeader(HttpHeaders.IF_NONE_MATCH) != null &&
+            request.checkNotModified(currentEtagOfPage(criteria, pageable, count))
+        ) {
+            return null;
+        }
+        if (COUNT_EXACT.equals(count)) {
+            Page<BoatDTO> page = boatQueryService.findByCriteria(criteria, pageable);
+            HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+            String etag = etagOfBoats(page.getContent(), pagingOf(count, page.getTotalElements()));
+            return ResponseEntity.ok().eTag(etag).headers(headers).body(page.getContent());
+        }
+        Slice<BoatDTO> slice = boatQueryService.findSliceByCriteria(criteria, pageable);
+        HttpHeaders headers = generateSliceHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice);
+        if (COUNT_ESTIMATE.equals(count)) {
+            headers.add(TOTAL_COUNT_ESTIMATE_HEADER, Long.toString(boatQueryService.estimateCountByCriteria(criteria)));
+        }
+        String etag = etagOfBoats(slice.getContent(), pagingOf(count, slice.hasNext()));
+        return ResponseEntity.ok().eTag(etag).headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * {@code GET  /boats?after=:cursor} : get the boats following a cursor, using keyset pagination.
+     * <p>
+     * An empty cursor requests the first page, sorted by the first {@code sort} parameter. While there are more boats,
+     * the response has a {@code Link} header with a {@code next} relation holding the cursor of the next page.
+     * No total count is computed.
+     *
+     * @param criteria the criteria which the requested entities should match.
+     * @param after    the cursor of the requested page, empty for the first page.
+     * @param pageable the page size and sort order; the page number is ignored.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of boats in body,
+     * or with status {@code 400 (Bad Request)} if the cursor or sort order is invalid.
+     */
+    @GetMapping(value = "/boats", params = { "after", "fields!=summary" })
+    public ResponseEntity<List<BoatDTO>> getAllBoatsAfter(BoatCriteria criteria, @RequestParam("after") String after, Pageable pageable) {
+        log.debug("REST request to get Boats by criteria: {}, after: {}", criteria, after);
+        Slice<BoatDTO> slice;
+        Sort.Order order = pageable.getSort().stream().findFirst().orElse(Sort.Order.asc("id"));
+        try {
+            BoatCursor cursor = after.isEmpty() ? null : BoatCursor.decode(after);
+            slice = boatQueryService.findByCriteriaAfter(criteria, order, cursor, pageable.getPageSize());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().headers(createAlert("Invalid cursor")).build();
+        }
+        HttpHeaders headers = new HttpHeaders();
+        if (slice.hasNext()) {
+            Sort.Order seekOrder = slice.getSort().stream().findFirst().orElse(order);
+            String next = BoatCursor.after(seekOrder, slice.getContent().get(slice.getNumberOfElements() - 1)).encode();
+            String link = ServletUriComponentsBuilder
+                .fromCurrentRequest()
+                .replaceQueryParam("page")
+                .replaceQueryParam("after", next)
+                .toUriString();
+            headers.add(HttpHeaders.LINK, "<" + link + ">; rel=\"next\"");
+        }
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * {@code GET  /boats?fields=summary} : get the summaries of all the boats, for list views.
+     * <p>
+     * Only the id, the name and the picture URL of each boat are read and returned. Summaries are paged by offset
+     * only, so a keyset cursor is rejected rather than ignored.
+     *
+     * @param pageable the pagination information.
+     * @param criteria the criteria which the requested entities should match.
+     * @param after    a keyset cursor, which is not supported.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of boat summaries in body,
+     * or with status {@code 400 (Bad Request)} if a cursor is given.
+     */
+    @GetMapping(value = "/boats", params = "fields=summary")
+    public ResponseEntity<List<BoatSummaryDTO>> getAllBoatSummaries(
+        BoatCriteria criteria,
+        Pageable pageable,
+        @RequestParam(value = "after", required = false) String after
+    ) {
+        log.debug("REST request to get Boat summaries by criteria: {}", criteria);
+        if (after != null) {
+            return ResponseEntity.badRequest().headers(createAlert("Summaries do not support keyset pagination")).build();
+        }
+        Page<BoatSummaryDTO> page = boatQueryService.findSummariesByCriteria(criteria, pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * {@code GET  /boats/export} : export all the boats, as newline-delimited JSON or as CSV.
+     * <p>
+     * The boats are streamed from a database cursor to the response, so the export does not hold them in memory.
+     * Pictures are not exported, only their URL.
+     * <p>
+     * The export runs asynchronously with its own timeout, {@code boatapp.export.timeout-in-seconds}, rather than the
+     * one of the other asynchronous requests.
+     *
+     * @param criteria the criteria which the exported entities should match.
+     * @param format   the export format: {@code ndjson} (default) or {@code csv}.
+     * @param response the response the boats are written to.
+     * @return the {@link WebAsyncTask} writing the boats, with status {@code 200 (OK)}.
+     * @throws ResponseStatusException {@code 400 (Bad Request)} if the format is unknown.
+     */
+    @GetMapping("/boats/export")
+    public WebAsyncTask<Void> exportBoats(
+        BoatCriteria criteria,
+        @RequestParam(value = "format", defaultValue = "ndjson") String format,
+        HttpServletResponse response
+    ) {
+        log.debug("REST request to export Boats by criteria: {}, format: {}", criteria, format);
+        BoatExportService.Format exportFormat;
+        MediaType mediaType;
+        if ("ndjson".equals(format)) {
+            exportFormat = BoatExportService.Format.NDJSON;
+            mediaType = MediaType.APPLICATION_NDJSON;
+        } else if ("csv".equals(format)) {
+            exportFormat = BoatExportService.Format.CSV;
+            mediaType = new MediaType("text", "csv", StandardCharsets.UTF_8);
+        } else {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid export format");
+        }
+        response.setContentType(mediaType.toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("boats." + format).build().toString());
+        return new WebAsyncTask<>(
+            TimeUnit.SECONDS.toMillis(exportTimeoutInSeconds),
+            () -> {
+                // Written straight to the response, which the null result leaves untouched
+                boatExportService.export(criteria, exportFormat, response.getOutputStream());
+                return null;
+            }
+        );
+    }
+
     /**
      * {@code GET  /boats/count} : count all the boats.
      *
@@ -166,14 +417,25 @@ public class BoatResource extends AbstractController {
     /**
      * {@code GET  /boats/:id} : get the "id" boat.
      *
-     * @param id the id of the boatDTO to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the boatDTO, or with status {@code 404 (Not Found)}.
+     * @param id      the id of the boatDTO to retrieve.
+     * @param request the web request, for its conditional headers.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the boatDTO,
+     * or with status {@code 304 (Not Modified)} if {@code If-None-Match} matches the current version,
+     * or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/boats/{id}")
-    public ResponseEntity<BoatDTO> getBoat(@PathVariable Long id) {
+    public ResponseEntity<BoatDTO> getBoat(@PathVariable Long id, WebRequest request) {
         log.debug("REST request to get Boat : {}", id);
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            Optional<Long> version = boatRepository.findVersionById(id);
+            if (version.isPresent() && request.checkNotModified(etagOf(id, version.get()))) {
+                return null;
+            }
+        }
         Optional<BoatDTO> boatDTO = boatService.findOne(id);
-        return boatDTO.map(ResponseEntity::ok).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        return boatDTO
+            .map(boat -> ResponseEntity.ok().eTag(etagOf(boat)).body(boat))
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
     /**
@@ -189,6 +451,124 @@ public class BoatResource extends AbstractController {
         return ResponseEntity.noContent().headers(createAlert(applicationName)).build();
     }
 
+    /**
+     * Generate the pagination {@code Link} header of a slice, which unlike a page has no known last page.
+     */
+    private HttpHeaders generateSliceHttpHeaders(UriComponentsBuilder uriBuilder, Slice<?> slice) {
+        List<String> links = new ArrayList<>();
+        if (slice.hasNext()) {
+            links.add(prepareLink(uriBuilder, slice.getNumber() + 1, slice.getSize(), "next"));
+        }
+        if (slice.hasPrevious()) {
+            links.add(prepareLink(uriBuilder, slice.getNumber() - 1, slice.getSize(), "prev"));
+        }
+        links.add(prepareLink(uriBuilder, 0, slice.getSize(), "first"));
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.LINK, String.join(",", links));
+        return headers;
+    }
+
+    private String prepareLink(UriComponentsBuilder uriBuilder, int pageNumber, int pageSize, String relType) {
+        String uri = uriBuilder
+            .replaceQueryParam("page", Integer.toString(pageNumber))
+            .replaceQueryParam("size", Integer.toString(pageSize))
+            .toUriString();
+        return "<" + uri + ">; rel=\"" + relType + "\"";
+    }
+
+    /**
+     * The version which an update should be conditioned on: the one of the first {@code If-Match} ETag of the boat,
+     * none if {@code If-Match} is {@code *}, or the version of the DTO without {@code If-Match}.
+     * <p>
+     * An {@code If-Match} without any ETag of the boat can not match, and is rejected without reading the boat.
+     */
+    private Long expectedVersion(String ifMatch, Long id, BoatDTO boatDTO) {
+        if (ifMatch == null) {
+            return boatDTO.getVersion();
+        }
+        String prefix = "\"" + id + "-";
+        for (String candidate : ifMatch.split(",")) {
+            String etag = candidate.trim();
+            if ("*".equals(etag)) {
+                return null;
+            }
+            if (etag.startsWith(prefix) && etag.endsWith("\"") && etag.length() > prefix.length() + 1) {
+                try {
+                    return Long.valueOf(etag.substring(prefix.length(), etag.length() - 1));
+                } catch (NumberFormatException e) {
+                    log.trace("Ignoring invalid ETag {}", etag);
+                }
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "The boat has been modified");
+    }
+
+    /**
+     * Start the response to an update from its outcome. A conflict is a failed precondition when the client sent
+     * {@code If-Match}.
+     */
+    private ResponseEntity.BodyBuilder toResponse(BoatUpdateResult result, String ifMatch) {
+        switch (result.getStatus()) {
+            case UPDATED:
+                return ResponseEntity.ok().eTag(etagOf(result.getBoat()));
+            case NOT_FOUND:
+                return ResponseEntity.badRequest().headers(createAlert("Entity not found"));
+            case CONFLICT:
+                HttpStatus status = ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT;
+                throw new ResponseStatusException(status, "The boat has been modified");
+            default:
+                throw new IllegalStateException("Unknown update status " + result.getStatus());
+        }
+    }
+
+    private static String etagOf(Long id, Long version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    private static String etagOf(BoatDTO boatDTO) {
+        return etagOf(boatDTO.getId(), boatDTO.getVersion());
+    }
+
+    /**
+     * The ETag which a page read now would have, from the versions of its boats and the figure of its paging headers,
+     * without reading the boats themselves.
+     */
+    private String currentEtagOfPage(BoatCriteria criteria, Pageable pageable, String count) {
+        if (COUNT_EXACT.equals(count)) {
+            List<BoatVersion> versions = boatQueryService.findVersionsByCriteria(criteria, pageable, 0);
+            return etagOf(versions, pagingOf(count, boatQueryService.countByCriteria(criteria)));
+        }
+        List<BoatVersion> versions = boatQueryService.findVersionsByCriteria(criteria, pageable, 1);
+        boolean hasNext = pageable.isPaged() && versions.size() > pageable.getPageSize();
+        return etagOf(hasNext ? versions.subList(0, pageable.getPageSize()) : versions, pagingOf(count, hasNext));
+    }
+
+    /**
+     * The figure of the paging headers of a page: its total count, or whether there is a next page. An estimated
+     * count is left out, as it changes with the database statistics rather than with the boats.
+     */
+    private static String pagingOf(String count, Object figure) {
+        return count + "=" + figure;
+    }
+
+    private static String etagOfBoats(List<BoatDTO> boats, String paging) {
+        List<BoatVersion> versions = new ArrayList<>(boats.size());
+        boats.forEach(boat -> versions.add(BoatVersion.of(boat)));
+        return etagOf(versions, paging);
+    }
+
+    /**
+     * The ETag of a page, hashed from the ids and versions of its boats in order, then from its paging figure.
+     */
+    private static String etagOf(List<BoatVersion> versions, String paging) {
+        MessageDigest digest = Sha256.newDigest();
+        for (BoatVersion version : versions) {
+            digest.update((version.getId() + "-" + version.getVersion() + "\n").getBytes(StandardCharsets.US_ASCII));
+        }
+        digest.update(paging.getBytes(StandardCharsets.US_ASCII));
+        return "\"" + Sha256.toHex(digest.digest()) + "\"";
+    }
+
     private HttpHeaders createAlert(String applicationName) {
         return super.createAlert(applicationName, BoatResource.ENTITY_NAME);
     }
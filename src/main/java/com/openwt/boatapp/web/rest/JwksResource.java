@@ -0,0 +1,80 @@
+package com.openwt.boatapp.web.rest;
+
+import com.openwt.boatapp.security.jwt.JwtKey;
+import com.openwt.boatapp.security.jwt.JwtKeyRing;
+import java.math.BigInteger;
+import java.security.interfaces.ECPublicKey;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller publishing the public keys of the {@link JwtKeyRing} as a JSON Web Key Set (RFC 7517), so that other
+ * services can verify the JWT tokens without sharing a secret.
+ */
+@RestController
+public class JwksResource {
+
+    private static final int P256_COORDINATE_BYTES = 32;
+
+    private final Logger log = LoggerFactory.getLogger(JwksResource.class);
+
+    private final JwtKeyRing keyRing;
+
+    private final CacheControl cacheControl;
+
+    public JwksResource(
+        JwtKeyRing keyRing,
+        @Value("${boatapp.security.authentication.jwt.key-ring.refresh-interval-seconds}") Long refreshIntervalSeconds
+    ) {
+        this.keyRing = keyRing;
+        // Keys are published ahead by more than the refresh interval: a cached set still has the next key in time
+        this.cacheControl = CacheControl.maxAge(refreshIntervalSeconds, TimeUnit.SECONDS).cachePublic();
+    }
+
+    /**
+     * {@code GET /.well-known/jwks.json} : get the public keys verifying the JWT tokens.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the key set.
+     */
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, List<Map<String, String>>>> getJwks() {
+        log.debug("REST request to get the JSON Web Key Set");
+        List<Map<String, String>> keys = keyRing.getPublishedKeys().stream().map(JwksResource::toJwk).collect(Collectors.toList());
+        return ResponseEntity.ok().cacheControl(cacheControl).body(Map.of("keys", keys));
+    }
+
+    private static Map<String, String> toJwk(JwtKey key) {
+        ECPublicKey publicKey = (ECPublicKey) key.getKeyPair().getPublic();
+        Map<String, String> jwk = new LinkedHashMap<>();
+        jwk.put("kty", "EC");
+        jwk.put("crv", "P-256");
+        jwk.put("x", encodeCoordinate(publicKey.getW().getAffineX()));
+        jwk.put("y", encodeCoordinate(publicKey.getW().getAffineY()));
+        jwk.put("kid", key.getKid());
+        jwk.put("use", "sig");
+        jwk.put("alg", "ES256");
+        return jwk;
+    }
+
+    /**
+     * Encode a coordinate as RFC 7518 requires: unsigned, big-endian, padded to the size of the curve.
+     */
+    private static String encodeCoordinate(BigInteger coordinate) {
+        byte[] bytes = coordinate.toByteArray();
+        byte[] padded = new byte[P256_COORDINATE_BYTES];
+        int length = Math.min(bytes.length, P256_COORDINATE_BYTES);
+        System.arraycopy(bytes, bytes.length - length, padded, P256_COORDINATE_BYTES - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(padded);
+    }
+}
@@ -3,15 +3,22 @@ package com.openwt.boatapp.web.rest;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.openwt.boatapp.security.jwt.JWTFilter;
 import com.openwt.boatapp.security.jwt.TokenProvider;
+import com.openwt.boatapp.service.RefreshTokenService;
 import com.openwt.boatapp.web.rest.vm.LoginVM;
+import com.openwt.boatapp.web.rest.vm.RefreshTokenVM;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import javax.validation.Valid;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -24,28 +31,98 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api")
 public class UserJWTController {
 
+    private static final String RETRY_AFTER_SECONDS = "1";
+
     private final TokenProvider tokenProvider;
 
     private final AuthenticationManagerBuilder authenticationManagerBuilder;
 
-    public UserJWTController(TokenProvider tokenProvider, AuthenticationManagerBuilder authenticationManagerBuilder) {
+    private final Executor authenticationExecutor;
+
+    private final RefreshTokenService refreshTokenService;
+
+    public UserJWTController(
+        TokenProvider tokenProvider,
+        AuthenticationManagerBuilder authenticationManagerBuilder,
+        @Qualifier("authenticationExecutor") Executor authenticationExecutor,
+        RefreshTokenService refreshTokenService
+    ) {
         this.tokenProvider = tokenProvider;
         this.authenticationManagerBuilder = authenticationManagerBuilder;
+        this.authenticationExecutor = authenticationExecutor;
+        this.refreshTokenService = refreshTokenService;
     }
 
+    /**
+     * {@code POST  /authenticate} : verify the credentials of a user, and create an access token and a refresh token.
+     * <p>
+     * The password is verified on the authentication executor, which releases the request thread meanwhile.
+     *
+     * @param loginVM the credentials.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the token in body, with status
+     * {@code 401 (Unauthorized)} if the credentials are invalid, or with status {@code 503 (Service Unavailable)} if
+     * too many logins are already being verified.
+     */
     @PostMapping("/authenticate")
-    public ResponseEntity<JWTToken> authorize(@Valid @RequestBody LoginVM loginVM) {
+    public CompletableFuture<ResponseEntity<JWTToken>> authorize(@Valid @RequestBody LoginVM loginVM) {
         UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
             loginVM.getUsername(),
             loginVM.getPassword()
         );
 
-        Authentication authentication = authenticationManagerBuilder.getObject().authenticate(authenticationToken);
-        SecurityContextHolder.getContext().setAuthentication(authentication);
-        String jwt = tokenProvider.createToken(authentication, loginVM.isRememberMe());
+        try {
+            return CompletableFuture
+                .supplyAsync(
+                    () -> {
+                        Authentication authentication = authenticationManagerBuilder.getObject().authenticate(authenticationToken);
+                        String refreshToken = refreshTokenService.issue(authentication.getName(), loginVM.isRememberMe());
+                        return createResponse(authentication, loginVM.isRememberMe(), refreshToken);
+                    },
+                    authenticationExecutor
+                )
+                .exceptionally(UserJWTController::unauthorized);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(
+                ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS).build()
+            );
+        }
+    }
+
+    /**
+     * {@code POST  /authenticate/refresh} : exchange a refresh token for a new access token, without checking the
+     * password again.
+     * <p>
+     * The refresh token is consumed, and a new one is returned with the access token.
+     *
+     * @param refreshTokenVM the refresh token.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the tokens in body, or with status
+     * {@code 401 (Unauthorized)} if the refresh token is unknown, expired or was already used.
+     */
+    @PostMapping("/authenticate/refresh")
+    public ResponseEntity<JWTToken> refresh(@Valid @RequestBody RefreshTokenVM refreshTokenVM) {
+        return refreshTokenService
+            .rotate(refreshTokenVM.getRefreshToken())
+            .map(rotation -> createResponse(rotation.getAuthentication(), rotation.isRememberMe(), rotation.getRefreshToken()))
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+    }
+
+    /**
+     * Answer a failed authentication with a {@code 401 (Unauthorized)}: the exception of the future is not translated
+     * once the request is dispatched again. Other failures are rethrown.
+     */
+    private static ResponseEntity<JWTToken> unauthorized(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        if (cause instanceof AuthenticationException) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        throw failure instanceof CompletionException ? (CompletionException) failure : new CompletionException(failure);
+    }
+
+    private ResponseEntity<JWTToken> createResponse(Authentication authentication, boolean rememberMe, String refreshToken) {
+        String jwt = tokenProvider.createToken(authentication, rememberMe);
         HttpHeaders httpHeaders = new HttpHeaders();
         httpHeaders.add(JWTFilter.AUTHORIZATION_HEADER, "Bearer " + jwt);
-        return new ResponseEntity<>(new JWTToken(jwt), httpHeaders, HttpStatus.OK);
+        return new ResponseEntity<>(new JWTToken(jwt, refreshToken), httpHeaders, HttpStatus.OK);
     }
 
     /**
@@ -55,8 +132,11 @@ public class UserJWTController {
 
         private String idToken;
 
-        JWTToken(String idToken) {
+        private String refreshToken;
+
+        JWTToken(String idToken, String refreshToken) {
             this.idToken = idToken;
+            this.refreshToken = refreshToken;
         }
 
         @JsonProperty("id_token")
@@ -67,5 +147,14 @@ public class UserJWTController {
         void setIdToken(String idToken) {
             this.idToken = idToken;
         }
+
+        @JsonProperty("refresh_token")
+        String getRefreshToken() {
+            return refreshToken;
+        }
+
+        void setRefreshToken(String refreshToken) {
+            this.refreshToken = refreshToken;
+        }
     }
 }
@@ -121,8 +121,9 @@ public class UserResource extends AbstractController {
         } else if (userRepository.findOneByEmailIgnoreCase(userDTO.getEmail()).isPresent()) {
             throw new EmailAlreadyUsedException();
         } else {
-            User newUser = userService.createUser(userDTO);
-            mailService.sendCreationEmail(newUser);
+            UserService.IssuedToken creation = userService.createUser(userDTO);
+            User newUser = creation.getUser();
+            mailService.sendCreationEmail(newUser, creation.getToken());
             return ResponseEntity
                 .created(new URI("/api/admin/users/" + newUser.getLogin()))
                 .headers(createAlert(applicationName, "A user is created with identifier " + newUser.getLogin()))
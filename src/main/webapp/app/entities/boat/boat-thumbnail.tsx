@@ -0,0 +1,33 @@
+import React, { useEffect, useState } from 'react';
+import axios from 'axios';
+
+/**
+ * Thumbnail of a boat picture, loaded with the credentials of the user, as lists only link to the pictures.
+ */
+export const BoatThumbnail = ({ url }: { url: string }) => {
+  const [src, setSrc] = useState<string>(null);
+
+  useEffect(() => {
+    let objectUrl: string = null;
+    let cancelled = false;
+    axios.get<Blob>(url, { responseType: 'blob' }).then(
+      response => {
+        if (!cancelled) {
+          objectUrl = URL.createObjectURL(response.data);
+          setSrc(objectUrl);
+        }
+      },
+      () => setSrc(null)
+    );
+    return () => {
+      cancelled = true;
+      if (objectUrl) {
+        URL.revokeObjectURL(objectUrl);
+      }
+    };
+  }, [url]);
+
+  return src ? <img src={src} style={{ maxHeight: '30px' }} /> : null;
+};
+
+export default BoatThumbnail;
@@ -2,10 +2,11 @@ import React, { useState, useEffect } from 'react';
 import InfiniteScroll from 'react-infinite-scroll-component';
 import { Link, RouteComponentProps } from 'react-router-dom';
 import { Button, Table } from 'reactstrap';
-import { openFile, byteSize, Translate, getSortState } from 'react-jhipster';
+import { Translate, getSortState } from 'react-jhipster';
 import { FontAwesomeIcon } from '@fortawesome/react-fontawesome';
 
 import { getEntities, reset } from './boat.reducer';
+import { BoatThumbnail } from './boat-thumbnail';
 import { IBoat } from 'app/shared/model/boat.model';
 import { APP_DATE_FORMAT, APP_LOCAL_DATE_FORMAT } from 'app/config/constants';
 import { ASC, DESC, ITEMS_PER_PAGE, SORT } from 'app/shared/util/pagination.constants';
@@ -127,7 +128,7 @@ export const Boat = (props: RouteComponentProps<{ url: string }>) => {
                   <th className="hand" onClick={sort('description')}>
                     Description <FontAwesomeIcon icon="sort" />
                   </th>
-                  <th className="hand" onClick={sort('pic')}>
+                  <th className="hand" onClick={sort('picSize')}>
                     Pic <FontAwesomeIcon icon="sort" />
                   </th>
                   <th />
@@ -144,17 +145,13 @@ export const Boat = (props: RouteComponentProps<{ url: string }>) => {
                     <td>{boat.name}</td>
                     <td>{boat.description}</td>
                     <td>
-                      {boat.pic ? (
+                      {boat.picUrl ? (
                         <div>
-                          {boat.picContentType ? (
-                            <a onClick={openFile(boat.picContentType, boat.pic)}>
-                              <img src={`data:${boat.picContentType};base64,${boat.pic}`} style={{ maxHeight: '30px' }} />
-                              &nbsp;
-                            </a>
-                          ) : null}
-                          <span>
-                            {boat.picContentType}, {byteSize(boat.pic)}
-                          </span>
+                          <Link to={`${match.url}/${boat.id}`}>
+                            <BoatThumbnail url={boat.picUrl.replace(/^\//, '')} />
+                            &nbsp;
+                          </Link>
+                          <span>{boat.picContentType}</span>
                         </div>
                       ) : null}
                     </td>
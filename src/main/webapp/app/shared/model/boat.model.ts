@@ -4,6 +4,8 @@ export interface IBoat {
   description?: string;
   picContentType?: string | null;
   pic?: string | null;
+  picUrl?: string | null;
+  version?: number;
 }
 
 export const defaultValue: Readonly<IBoat> = {};
@@ -0,0 +1,87 @@
+import _root_.io.gatling.core.scenario.Simulation
+import ch.qos.logback.classic.{Level, LoggerContext}
+import io.gatling.core.Predef._
+import io.gatling.http.Predef._
+import org.slf4j.LoggerFactory
+
+import java.util.concurrent.atomic.AtomicReference
+import scala.concurrent.duration._
+
+/**
+ * Throughput of the Boat entity at 1k, then 10k concurrent connections.
+ *
+ * Every virtual user holds its own connection and reads boats without pausing, so the throughput of each step is
+ * bounded by the server. Run it once against the default profiles and once with the 'virtual-threads' profile, and
+ * compare the requests per second and response times of the "(1000)" and "(10000)" requests of both reports.
+ *
+ * 10k connections need a file descriptor limit above 10k on both the injector and the server (ulimit -n).
+ */
+class BoatConcurrencyGatlingTest extends Simulation {
+
+    val context: LoggerContext = LoggerFactory.getILoggerFactory.asInstanceOf[LoggerContext]
+    // Log all HTTP requests
+    //context.getLogger("io.gatling.http").setLevel(Level.valueOf("TRACE"))
+    // Log failed HTTP requests
+    //context.getLogger("io.gatling.http").setLevel(Level.valueOf("DEBUG"))
+
+    val baseURL = Option(System.getProperty("baseURL")) getOrElse """http://localhost:8080"""
+
+    val steps = Option(System.getProperty("users")).map(_.split(",").map(_.trim.toInt).toSeq) getOrElse Seq(1000, 10000)
+
+    val ramp = Integer.getInteger("ramp", 1) minutes
+
+    val steadyState = Integer.getInteger("duration", 3) minutes
+
+    val httpConf = http
+        .baseUrl(baseURL)
+        .acceptHeader("*/*")
+        .acceptEncodingHeader("gzip, deflate")
+        .connectionHeader("keep-alive")
+        .userAgentHeader("Mozilla/5.0 (Macintosh; Intel Mac OS X 10.10; rv:33.0) Gecko/20100101 Firefox/33.0")
+
+    val headers_http_authentication = Map(
+        "Content-Type" -> """application/json""",
+        "Accept" -> """application/json"""
+    )
+
+    val headers_http_authenticated = Map(
+        "Accept" -> """application/json""",
+        "Authorization" -> "${access_token}"
+    )
+
+    // Logging in hashes a password, so the token is obtained once and shared by all the virtual users
+    val accessToken = new AtomicReference[String]()
+
+    val authentication = scenario("Authentication")
+        .exec(http("Authentication")
+        .post("/api/authenticate")
+        .headers(headers_http_authentication)
+        .body(StringBody("""{"username":"admin", "password":"admin"}""")).asJson
+        .check(header("Authorization").saveAs("access_token"))).exitHereIfFailed
+        .exec { session =>
+            accessToken.set(session("access_token").as[String])
+            session
+        }
+
+    def connections(users: Int) = scenario(s"$users concurrent connections")
+        .exec(_.set("access_token", accessToken.get))
+        .during(ramp + steadyState) {
+            exec(http(s"Get all boats ($users)")
+            .get("/api/boats?size=20")
+            .headers(headers_http_authenticated)
+            .check(status.is(200))
+            .check(jsonPath("$[*].id").findRandom.optional.saveAs("boat_id")))
+            .doIf("${boat_id.exists()}") {
+                exec(http(s"Get boat ($users)")
+                .get("/api/boats/${boat_id}")
+                .headers(headers_http_authenticated)
+                .check(status.is(200)))
+            }
+        }
+
+    val load = steps.map(users => connections(users).inject(rampUsers(users) during ramp))
+
+    setUp(
+        load.foldLeft(authentication.inject(atOnceUsers(1)))((previous, step) => previous.andThen(step))
+    ).protocols(httpConf)
+}
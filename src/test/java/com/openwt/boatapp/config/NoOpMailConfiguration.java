@@ -15,7 +15,7 @@ public class NoOpMailConfiguration {
 
     public NoOpMailConfiguration() {
         mockMailService = mock(MailService.class);
-        doNothing().when(mockMailService).sendActivationEmail(any());
+        doNothing().when(mockMailService).sendActivationEmail(any(), any());
     }
 
     @Bean
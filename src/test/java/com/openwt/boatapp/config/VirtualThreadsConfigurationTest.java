@@ -0,0 +1,83 @@
+package com.openwt.boatapp.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import io.undertow.servlet.api.DeploymentInfo;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.task.TaskSchedulingAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.web.embedded.undertow.UndertowServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Tests the executors of the {@value Constants#SPRING_PROFILE_VIRTUAL_THREADS} profile, on the running JVM.
+ */
+class VirtualThreadsConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+        .withConfiguration(AutoConfigurations.of(TaskSchedulingAutoConfiguration.class))
+        .withUserConfiguration(SchedulingConfiguration.class, VirtualThreadsConfiguration.class)
+        .withPropertyValues(
+            "spring.profiles.active=" + Constants.SPRING_PROFILE_VIRTUAL_THREADS,
+            "spring.task.scheduling.thread-name-prefix=virtual-scheduling-"
+        );
+
+    @Test
+    void shouldRunOnVirtualThreadsFromJava21() {
+        assumeTrue(VirtualThreads.isSupported(), "Virtual threads need Java 21");
+        AtomicReference<ExecutorService> requestExecutor = new AtomicReference<>();
+        contextRunner.run(
+            context -> {
+                requestExecutor.set(context.getBean("requestExecutor", ExecutorService.class));
+                assertThat(isVirtual(requestExecutor.get().submit(Thread::currentThread).get())).isTrue();
+                assertThat(deploymentExecutor(context.getBean(WebServerFactoryCustomizer.class))).isSameAs(requestExecutor.get());
+
+                Thread schedulingThread = context.getBean(ThreadPoolTaskScheduler.class).submit(Thread::currentThread).get();
+                assertThat(isVirtual(schedulingThread)).isTrue();
+                assertThat(schedulingThread.getName()).startsWith("virtual-scheduling-");
+            }
+        );
+        assertThat(requestExecutor.get().isShutdown()).isTrue();
+    }
+
+    @Test
+    void shouldKeepPlatformThreadsBeforeJava21() {
+        assumeFalse(VirtualThreads.isSupported(), "Virtual threads are available");
+        contextRunner.run(
+            context -> {
+                assertThat(context).doesNotHaveBean("requestExecutor");
+                assertThat(deploymentExecutor(context.getBean(WebServerFactoryCustomizer.class))).isNull();
+
+                Thread schedulingThread = context.getBean(ThreadPoolTaskScheduler.class).submit(Thread::currentThread).get();
+                // Virtual threads are always daemon threads
+                assertThat(schedulingThread.isDaemon()).isFalse();
+                assertThat(schedulingThread.getName()).startsWith("virtual-scheduling-");
+            }
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object deploymentExecutor(WebServerFactoryCustomizer<?> customizer) {
+        UndertowServletWebServerFactory factory = new UndertowServletWebServerFactory();
+        ((WebServerFactoryCustomizer<UndertowServletWebServerFactory>) customizer).customize(factory);
+        DeploymentInfo deploymentInfo = new DeploymentInfo();
+        factory.getDeploymentInfoCustomizers().forEach(deploymentInfoCustomizer -> deploymentInfoCustomizer.customize(deploymentInfo));
+        return deploymentInfo.getExecutor();
+    }
+
+    private static boolean isVirtual(Thread thread) throws ReflectiveOperationException {
+        return (boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+    }
+
+    @Configuration
+    @EnableScheduling
+    static class SchedulingConfiguration {}
+}
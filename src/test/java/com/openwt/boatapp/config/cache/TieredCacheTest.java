@@ -0,0 +1,84 @@
+package com.openwt.boatapp.config.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class TieredCacheTest {
+
+    private final OffHeapStore offHeap = new OffHeapStore(4096, 1024);
+
+    private final TieredCache cache = new TieredCache(
+        "test",
+        Caffeine.newBuilder().maximumSize(1).executor(Runnable::run),
+        null,
+        offHeap,
+        Duration.ofHours(1)
+    );
+
+    @Test
+    void movesEvictedEntriesOffHeapAndBack() {
+        cache.put(1L, "first");
+        cache.put(2L, "second");
+        cache.getNativeCache().cleanUp();
+
+        assertThat(cache.nearSize()).isEqualTo(1);
+        assertThat(offHeap.size()).isEqualTo(1);
+
+        assertThat(cache.get(1L, String.class)).isEqualTo("first");
+        assertThat(cache.get(2L, String.class)).isEqualTo("second");
+        assertThat(cache.offHeapHitCount()).isPositive();
+    }
+
+    @Test
+    void evictsFromBothTiers() {
+        cache.put(1L, "first");
+        cache.put(2L, "second");
+        cache.getNativeCache().cleanUp();
+
+        cache.evict(1L);
+        cache.evict(2L);
+
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.get(2L)).isNull();
+        assertThat(offHeap.size()).isZero();
+    }
+
+    @Test
+    void keepsNullValues() {
+        cache.put(1L, null);
+
+        assertThat(cache.get(1L)).isNotNull();
+        assertThat(cache.get(1L).get()).isNull();
+    }
+
+    @Test
+    void offHeapStoreEvictsOldestSlab() {
+        OffHeapStore store = new OffHeapStore(2048, 1024);
+        store.put("a", new byte[600]);
+        store.put("b", new byte[600]);
+        store.put("c", new byte[600]);
+
+        assertThat(store.get("a")).isNull();
+        assertThat(store.get("b")).hasSize(600);
+        assertThat(store.get("c")).hasSize(600);
+        assertThat(store.evictionCount()).isEqualTo(1);
+        assertThat(store.usedBytes()).isEqualTo(1200);
+        assertThat(store.put("d", new byte[2000])).isFalse();
+    }
+
+    @Test
+    void offHeapStoreKeepsValuesFillingTheLargestSlab() {
+        OffHeapStore store = new OffHeapStore(2L * OffHeapStore.MAX_SLAB_BYTES, OffHeapStore.MAX_SLAB_BYTES);
+        byte[] value = new byte[OffHeapStore.MAX_SLAB_BYTES];
+        value[value.length - 1] = 1;
+
+        assertThat(store.put("a", value)).isTrue();
+        assertThat(store.get("a")).isEqualTo(value);
+        assertThat(store.usedBytes()).isEqualTo(OffHeapStore.MAX_SLAB_BYTES);
+        assertThatIllegalArgumentException().isThrownBy(() -> new OffHeapStore(1L << 25, 1 << 24));
+    }
+}
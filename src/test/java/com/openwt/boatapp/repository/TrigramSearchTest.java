@@ -0,0 +1,35 @@
+package com.openwt.boatapp.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class TrigramSearchTest {
+
+    private static final String DOCUMENT = "kittiwake\nsails like an albatross";
+
+    @Test
+    void matchesWhenEveryTermMatches() {
+        assertThat(TrigramSearch.match(DOCUMENT, "Kittiwake sails")).isTrue();
+        assertThat(TrigramSearch.match(DOCUMENT, "kittiwake motor")).isFalse();
+    }
+
+    @Test
+    void matchesMisspelledTerms() {
+        assertThat(TrigramSearch.match(DOCUMENT, "albtross")).isTrue();
+        assertThat(TrigramSearch.match(DOCUMENT, "pelican")).isFalse();
+    }
+
+    @Test
+    void blankQueriesDoNotMatch() {
+        assertThat(TrigramSearch.match(DOCUMENT, " - ")).isFalse();
+        assertThat(TrigramSearch.match(null, "kittiwake")).isNull();
+    }
+
+    @Test
+    void nameHitsRankAboveDescriptionHits() {
+        assertThat(TrigramSearch.rank(DOCUMENT, "kittiwake")).isEqualTo(1.0);
+        assertThat(TrigramSearch.rank(DOCUMENT, "albatross")).isEqualTo(0.4);
+        assertThat(TrigramSearch.rank(DOCUMENT, "kittiwake albatross")).isEqualTo(0.7);
+    }
+}
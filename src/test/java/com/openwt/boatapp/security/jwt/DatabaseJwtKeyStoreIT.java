@@ -0,0 +1,94 @@
+package com.openwt.boatapp.security.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.openwt.boatapp.IntegrationTest;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for {@link DatabaseJwtKeyStore}. Keys are saved in their own transactions, so they are deleted
+ * after each test, in a transaction of its own as well.
+ */
+@IntegrationTest
+class DatabaseJwtKeyStoreIT {
+
+    private static final String KID = "database-jwt-key-store-it";
+
+    @Autowired
+    private DatabaseJwtKeyStore keyStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private KeyPair keyPair;
+
+    private Instant now;
+
+    @BeforeEach
+    public void init() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(JwtKeyRing.KEY_ALGORITHM);
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        keyPair = generator.generateKeyPair();
+        now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update("delete from jwt_signing_key where kid = ?", KID));
+    }
+
+    @Test
+    void assertThatPrivateKeyIsStoredEncrypted() {
+        keyStore.save(new JwtKey(KID, keyPair, now, now.plus(1, ChronoUnit.HOURS)));
+
+        String stored = jdbcTemplate.queryForObject("select private_key from jwt_signing_key where kid = ?", String.class, KID);
+        assertThat(stored)
+            .startsWith(DatabaseJwtKeyStore.ENCRYPTED_PREFIX)
+            .doesNotContain(Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded()));
+        assertThat(keyStore.findAllNotExpired(now))
+            .filteredOn(key -> KID.equals(key.getKid()))
+            .singleElement()
+            .satisfies(key -> assertThat(key.getKeyPair().getPrivate().getEncoded()).isEqualTo(keyPair.getPrivate().getEncoded()));
+    }
+
+    @Test
+    void assertThatUnencryptedPrivateKeyIsStillRead() {
+        Base64.Encoder encoder = Base64.getEncoder();
+        // Committed, as save does, so that findAllNotExpired reads it
+        transactionTemplate.executeWithoutResult(
+            status ->
+                jdbcTemplate.update(
+                    "insert into jwt_signing_key (kid, public_key, private_key, active_from, expires_at) values (?, ?, ?, ?, ?)",
+                    KID,
+                    encoder.encodeToString(keyPair.getPublic().getEncoded()),
+                    encoder.encodeToString(keyPair.getPrivate().getEncoded()),
+                    Timestamp.from(now),
+                    Timestamp.from(now.plus(1, ChronoUnit.HOURS))
+                )
+        );
+
+        assertThat(keyStore.findAllNotExpired(now))
+            .filteredOn(key -> KID.equals(key.getKid()))
+            .singleElement()
+            .satisfies(key -> assertThat(key.getKeyPair().getPrivate().getEncoded()).isEqualTo(keyPair.getPrivate().getEncoded()));
+    }
+}
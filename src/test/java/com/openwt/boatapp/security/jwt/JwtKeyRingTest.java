@@ -0,0 +1,87 @@
+package com.openwt.boatapp.security.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class JwtKeyRingTest {
+
+    private static final long ROTATION_PERIOD_SECONDS = 3600;
+
+    private static final long PUBLISH_AHEAD_SECONDS = 600;
+
+    private static final long REFRESH_INTERVAL_SECONDS = 60;
+
+    private InMemoryJwtKeyStore keyStore;
+
+    private JwtKeyRing keyRing;
+
+    @BeforeEach
+    public void setup() {
+        keyStore = new InMemoryJwtKeyStore();
+        keyRing = new JwtKeyRing(keyStore, ROTATION_PERIOD_SECONDS, PUBLISH_AHEAD_SECONDS, REFRESH_INTERVAL_SECONDS, 60000L);
+    }
+
+    @Test
+    void testFirstKeyIsActive() {
+        JwtKey signingKey = keyRing.getSigningKey();
+
+        assertThat(signingKey.getActiveFrom()).isBeforeOrEqualTo(Instant.now());
+        assertThat(signingKey.getExpiresAt()).isAfter(Instant.now().plusSeconds(ROTATION_PERIOD_SECONDS));
+        assertThat(keyRing.getVerificationKey(signingKey.getKid())).isEqualTo(signingKey.getKeyPair().getPublic());
+        assertThat(keyRing.getPublishedKeys()).containsExactly(signingKey);
+    }
+
+    @Test
+    void testNextKeyIsPublishedAhead() {
+        JwtKey current = keyRing.getSigningKey();
+        // A key due for rotation within the publish-ahead window
+        Instant activeFrom = Instant.now().minusSeconds(ROTATION_PERIOD_SECONDS - PUBLISH_AHEAD_SECONDS / 2);
+        keyStore.deleteExpired(Instant.MAX);
+        JwtKey old = new JwtKey("old", current.getKeyPair(), activeFrom, activeFrom.plusSeconds(2 * ROTATION_PERIOD_SECONDS));
+        keyStore.save(old);
+
+        keyRing.refresh();
+
+        List<JwtKey> published = keyRing.getPublishedKeys();
+        assertThat(published).hasSize(2).last().isEqualTo(old);
+        assertThat(published.get(0).getActiveFrom()).isAfter(Instant.now());
+        // Not active yet: the old key keeps signing, and the new one already verifies
+        assertThat(keyRing.getSigningKey()).isEqualTo(old);
+        assertThat(keyRing.getVerificationKey(published.get(0).getKid())).isNotNull();
+    }
+
+    @Test
+    void testExpiredKeyIsRemoved() {
+        JwtKey current = keyRing.getSigningKey();
+        Instant activeFrom = Instant.now().minusSeconds(3 * ROTATION_PERIOD_SECONDS);
+        keyStore.save(new JwtKey("expired", current.getKeyPair(), activeFrom, Instant.now().minusSeconds(1)));
+
+        keyRing.refresh();
+
+        assertThat(keyRing.getVerificationKey("expired")).isNull();
+        assertThat(keyRing.getPublishedKeys()).containsExactly(current);
+    }
+
+    @Test
+    void testUnknownKeyIdReloadsKeysOnce() {
+        JwtKey current = keyRing.getSigningKey();
+        // Saved by another node since the last refresh
+        keyStore.save(new JwtKey("other", current.getKeyPair(), Instant.now(), current.getExpiresAt()));
+        assertThat(keyRing.getVerificationKey("other")).isEqualTo(current.getKeyPair().getPublic());
+
+        keyStore.save(new JwtKey("another", current.getKeyPair(), Instant.now(), current.getExpiresAt()));
+        // Within the minimum interval between reloads
+        assertThat(keyRing.getVerificationKey("another")).isNull();
+    }
+
+    @Test
+    void testRefreshIntervalMustBeShorterThanPublishAhead() {
+        assertThatIllegalArgumentException()
+            .isThrownBy(() -> new JwtKeyRing(keyStore, ROTATION_PERIOD_SECONDS, PUBLISH_AHEAD_SECONDS, PUBLISH_AHEAD_SECONDS, 60000L));
+    }
+}
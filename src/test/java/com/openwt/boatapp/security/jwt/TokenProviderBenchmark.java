@@ -0,0 +1,101 @@
+package com.openwt.boatapp.security.jwt;
+
+import com.openwt.boatapp.security.AuthoritiesConstants;
+import io.jsonwebtoken.Claims;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * JMH benchmark of the first-seen token path of the {@link JWTFilter}, once the signature is verified.
+ * <p>
+ * Not part of the test suite. Run {@link #main(String[])} from the IDE, or with the test classpath, and read the
+ * {@code gc.alloc.rate.norm} lines: they give the bytes allocated per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenProviderBenchmark {
+
+    private static final String BASE64_SECRET =
+        "fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8";
+
+    private static final String AUTHORITIES_CLAIM = AuthoritiesConstants.ADMIN + "," + AuthoritiesConstants.USER;
+
+    private TokenProvider tokenProvider;
+
+    private String token;
+
+    private Claims claims;
+
+    @Setup
+    public void setup() {
+        tokenProvider =
+            new TokenProvider(
+                new JwtKeyRing(new InMemoryJwtKeyStore(), 604800L, 3600L, 300L, 60000L),
+                BASE64_SECRET,
+                Instant.now().toString(),
+                60000L,
+                60000L
+            );
+        token =
+            tokenProvider.createToken(
+                new UsernamePasswordAuthenticationToken(
+                    "admin",
+                    "admin",
+                    List.of(new SimpleGrantedAuthority(AuthoritiesConstants.ADMIN), new SimpleGrantedAuthority(AuthoritiesConstants.USER))
+                ),
+                false
+            );
+        claims = tokenProvider.getVerifiedClaims(token);
+    }
+
+    /**
+     * The authorities parsing used before, as a baseline.
+     */
+    @Benchmark
+    public List<GrantedAuthority> parseAuthoritiesWithStreams() {
+        return Arrays
+            .stream(AUTHORITIES_CLAIM.split(","))
+            .filter(auth -> !auth.trim().isEmpty())
+            .map(SimpleGrantedAuthority::new)
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<GrantedAuthority> parseAuthorities() {
+        return TokenProvider.parseAuthorities(AUTHORITIES_CLAIM);
+    }
+
+    @Benchmark
+    public Authentication getAuthentication() {
+        return tokenProvider.getAuthentication(token, claims);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TokenProviderBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -3,15 +3,20 @@ package com.openwt.boatapp.security.jwt;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import com.openwt.boatapp.security.AuthoritiesConstants;
+import io.jsonwebtoken.JwsHeader;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -24,14 +29,18 @@ class TokenProviderTest {
 
     private static final long ONE_MINUTE = 60000;
 
+    private static final String BASE64_SECRET =
+        "fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8";
+
     private Key key;
     private TokenProvider tokenProvider;
 
     @BeforeEach
     public void setup() {
-        String base64Secret = "fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8";
-        tokenProvider = new TokenProvider(base64Secret, ONE_MINUTE, ONE_MINUTE);
-        key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret));
+        // The legacy key was retired a minute from now, so legacy tokens are accepted if they expire within two minutes
+        String retiredAt = Instant.now().plusMillis(ONE_MINUTE).toString();
+        tokenProvider = new TokenProvider(createKeyRing(), BASE64_SECRET, retiredAt, ONE_MINUTE, ONE_MINUTE);
+        key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(BASE64_SECRET));
 
         ReflectionTestUtils.setField(tokenProvider, "key", key);
         ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", ONE_MINUTE);
@@ -86,12 +95,104 @@ class TokenProviderTest {
     void testKeyIsSetFromBase64SecretWhenSecretIsEmpty() {
         final String base64Secret = "fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8";
 
-        TokenProvider tokenProvider = new TokenProvider(base64Secret, ONE_MINUTE, ONE_MINUTE);
+        TokenProvider tokenProvider = new TokenProvider(createKeyRing(), base64Secret, Instant.now().toString(), ONE_MINUTE, ONE_MINUTE);
 
         Key key = (Key) ReflectionTestUtils.getField(tokenProvider, "key");
         assertThat(key).isNotNull().isEqualTo(Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret)));
     }
 
+    @Test
+    void testTokenIsSignedWithKeyRing() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        JwsHeader<?> header = Jwts.parserBuilder().setSigningKey(verificationKey()).build().parseClaimsJws(token).getHeader();
+        assertThat(header.getAlgorithm()).isEqualTo(SignatureAlgorithm.ES256.getValue());
+        assertThat(header.getKeyId()).isEqualTo(keyRing().getSigningKey().getKid());
+        assertThat(tokenProvider.validateToken(token)).isTrue();
+    }
+
+    @Test
+    void testLegacyTokenIsValid() {
+        String legacyToken = Jwts
+            .builder()
+            .setSubject("anonymous")
+            .claim("auth", AuthoritiesConstants.ANONYMOUS)
+            .signWith(key, SignatureAlgorithm.HS512)
+            .setExpiration(new Date(new Date().getTime() + ONE_MINUTE))
+            .compact();
+
+        assertThat(tokenProvider.validateToken(legacyToken)).isTrue();
+    }
+
+    @Test
+    void testReturnFalseWhenLegacyTokenExpiresAfterCutoff() {
+        // Valid longer than any token signed before the legacy key was retired
+        String legacyToken = Jwts
+            .builder()
+            .setSubject("anonymous")
+            .claim("auth", AuthoritiesConstants.ANONYMOUS)
+            .signWith(key, SignatureAlgorithm.HS512)
+            .setExpiration(new Date(new Date().getTime() + 3 * ONE_MINUTE))
+            .compact();
+
+        assertThat(tokenProvider.validateToken(legacyToken)).isFalse();
+    }
+
+    @Test
+    void testReturnFalseWhenLegacyTokenIsPresentedAfterCutoff() {
+        String legacyToken = Jwts
+            .builder()
+            .setSubject("anonymous")
+            .claim("auth", AuthoritiesConstants.ANONYMOUS)
+            .signWith(key, SignatureAlgorithm.HS512)
+            .setExpiration(new Date(new Date().getTime() + ONE_MINUTE))
+            .compact();
+        String retiredAt = Instant.now().minusMillis(2 * ONE_MINUTE).toString();
+        TokenProvider retiredTokenProvider = new TokenProvider(createKeyRing(), BASE64_SECRET, retiredAt, ONE_MINUTE, ONE_MINUTE);
+
+        assertThat(retiredTokenProvider.validateToken(legacyToken)).isFalse();
+    }
+
+    @Test
+    void testReturnFalseWhenKeyIdIsUnknown() {
+        String token = Jwts
+            .builder()
+            .setHeaderParam(JwsHeader.KEY_ID, "unknown")
+            .setSubject("anonymous")
+            .signWith(key, SignatureAlgorithm.HS512)
+            .setExpiration(new Date(new Date().getTime() + ONE_MINUTE))
+            .compact();
+
+        assertThat(tokenProvider.validateToken(token)).isFalse();
+    }
+
+    @Test
+    void testParseAuthoritiesLikeSplit() {
+        for (String claim : new String[] { "", ",", "ROLE_USER", "ROLE_USER,ROLE_ADMIN", " ,ROLE_USER,, ROLE_CUSTOM ,", "ROLE_USERS" }) {
+            List<GrantedAuthority> expected = Arrays
+                .stream(claim.split(","))
+                .filter(auth -> !auth.trim().isEmpty())
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toList());
+
+            assertThat(TokenProvider.parseAuthorities(claim)).as(claim).isEqualTo(expected);
+        }
+        assertThat(TokenProvider.parseAuthorities(AuthoritiesConstants.ADMIN).get(0))
+            .isSameAs(TokenProvider.parseAuthorities(AuthoritiesConstants.ADMIN).get(0));
+    }
+
+    private static JwtKeyRing createKeyRing() {
+        return new JwtKeyRing(new InMemoryJwtKeyStore(), 604800L, 3600L, 300L, ONE_MINUTE);
+    }
+
+    private JwtKeyRing keyRing() {
+        return (JwtKeyRing) ReflectionTestUtils.getField(tokenProvider, "keyRing");
+    }
+
+    private Key verificationKey() {
+        return keyRing().getSigningKey().getKeyPair().getPublic();
+    }
+
     private Authentication createAuthentication() {
         Collection<GrantedAuthority> authorities = new ArrayList<>();
         authorities.add(new SimpleGrantedAuthority(AuthoritiesConstants.ANONYMOUS));
@@ -0,0 +1,127 @@
+package com.openwt.boatapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.openwt.boatapp.IntegrationTest;
+import com.openwt.boatapp.domain.Boat;
+import com.openwt.boatapp.repository.BoatRepository;
+import com.openwt.boatapp.service.dto.BoatDTO;
+import com.openwt.boatapp.service.dto.BoatUpdateResult;
+import com.openwt.boatapp.service.mapper.BoatMapper;
+import java.nio.charset.StandardCharsets;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the updates of {@link BoatService}.
+ */
+@IntegrationTest
+@Transactional
+class BoatServiceIT {
+
+    private static final String DEFAULT_NAME = "AAAAAAAAAA";
+    private static final String UPDATED_NAME = "BBBBBBBBBB";
+    private static final String DEFAULT_DESCRIPTION = "AAAAAAAAAA";
+    private static final String DEFAULT_PIC_CONTENT_TYPE = "image/jpg";
+
+    @Autowired
+    private BoatService boatService;
+
+    @Autowired
+    private BoatRepository boatRepository;
+
+    @Autowired
+    private BoatMapper boatMapper;
+
+    @Autowired
+    private BoatPicService boatPicService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManager em;
+
+    private Boat boat;
+
+    @BeforeEach
+    public void init() {
+        boat = boatRepository.saveAndFlush(createEntity());
+    }
+
+    private static Boat createEntity() {
+        return new Boat().name(DEFAULT_NAME).description(DEFAULT_DESCRIPTION).picContentType(DEFAULT_PIC_CONTENT_TYPE);
+    }
+
+    @Test
+    void assertThatUpdateIncrementsVersion() {
+        long version = boat.getVersion();
+        BoatDTO boatDTO = boatMapper.toDto(boat);
+        boatDTO.setName(UPDATED_NAME);
+
+        BoatUpdateResult result = boatService.update(boatDTO, version);
+
+        assertThat(result.getStatus()).isEqualTo(BoatUpdateResult.Status.UPDATED);
+        assertThat(result.getBoat().getName()).isEqualTo(UPDATED_NAME);
+        assertThat(result.getBoat().getVersion()).isEqualTo(version + 1);
+        assertThat(boatRepository.findVersionById(boat.getId())).contains(version + 1);
+    }
+
+    @Test
+    void assertThatUpdateOfStaleVersionIsRejected() {
+        long version = boat.getVersion();
+        BoatDTO boatDTO = boatMapper.toDto(boat);
+        boatDTO.setName(UPDATED_NAME);
+
+        BoatUpdateResult result = boatService.update(boatDTO, version + 1);
+
+        assertThat(result.getStatus()).isEqualTo(BoatUpdateResult.Status.CONFLICT);
+        assertThat(result.getBoat()).isNull();
+        em.refresh(boat);
+        assertThat(boat.getName()).isEqualTo(DEFAULT_NAME);
+        assertThat(boat.getVersion()).isEqualTo(version);
+    }
+
+    @Test
+    void assertThatUpdateWithoutVersionUpdatesAnyVersion() {
+        BoatDTO boatDTO = new BoatDTO();
+        boatDTO.setId(boat.getId());
+        boatDTO.setName(UPDATED_NAME);
+
+        BoatUpdateResult result = boatService.partialUpdate(boatDTO, null);
+
+        assertThat(result.getStatus()).isEqualTo(BoatUpdateResult.Status.UPDATED);
+        assertThat(result.getBoat().getName()).isEqualTo(UPDATED_NAME);
+        assertThat(result.getBoat().getDescription()).isEqualTo(boat.getDescription());
+    }
+
+    @Test
+    void assertThatUpdateOfMissingBoatIsNotFound() {
+        BoatDTO boatDTO = boatMapper.toDto(boat);
+        boatDTO.setId(Long.MAX_VALUE);
+
+        assertThat(boatService.update(boatDTO, null).getStatus()).isEqualTo(BoatUpdateResult.Status.NOT_FOUND);
+        assertThat(boatService.partialUpdate(boatDTO, null).getStatus()).isEqualTo(BoatUpdateResult.Status.NOT_FOUND);
+    }
+
+    @Test
+    void assertThatFindOneReturnsCopiesOfTheCachedBoat() {
+        byte[] pic = "boaty mcboatface".getBytes(StandardCharsets.UTF_8);
+        boatPicService.attach(boat, pic);
+        boatRepository.saveAndFlush(boat);
+        cacheManager.getCache(BoatService.BOATS_BY_ID_CACHE).clear();
+
+        BoatDTO first = boatService.findOne(boat.getId()).orElseThrow();
+        first.setName(UPDATED_NAME);
+        BoatDTO second = boatService.findOne(boat.getId()).orElseThrow();
+
+        assertThat(cacheManager.getCache(BoatService.BOATS_BY_ID_CACHE).get(boat.getId())).isNotNull();
+        assertThat(first.getPic()).isEqualTo(pic);
+        assertThat(second.getName()).isEqualTo(DEFAULT_NAME);
+        assertThat(second.getPic()).isEqualTo(pic).isNotSameAs(first.getPic());
+    }
+}
@@ -0,0 +1,98 @@
+package com.openwt.boatapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.openwt.boatapp.IntegrationTest;
+import com.openwt.boatapp.domain.OneTimeToken;
+import com.openwt.boatapp.domain.User;
+import com.openwt.boatapp.repository.OneTimeTokenRepository;
+import com.openwt.boatapp.repository.UserRepository;
+import com.openwt.boatapp.service.util.Sha256;
+import java.time.Instant;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link OneTimeTokenService}.
+ */
+@IntegrationTest
+@Transactional
+class OneTimeTokenServiceIT {
+
+    @Autowired
+    private OneTimeTokenService oneTimeTokenService;
+
+    @Autowired
+    private OneTimeTokenRepository oneTimeTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    public void init() {
+        user = new User();
+        user.setLogin("one-time-token");
+        user.setEmail("one-time-token@localhost");
+        user.setPassword(RandomStringUtils.random(60));
+        user.setActivated(true);
+        user.setLangKey("en");
+        userRepository.saveAndFlush(user);
+    }
+
+    @Test
+    void assertThatTokenIsRedeemedOnce() {
+        String token = oneTimeTokenService.issue(user, OneTimeToken.Purpose.PASSWORD_RESET);
+
+        assertThat(oneTimeTokenService.redeem(token, OneTimeToken.Purpose.ACTIVATION)).isNotPresent();
+        assertThat(oneTimeTokenService.redeem(token, OneTimeToken.Purpose.PASSWORD_RESET)).contains(user);
+        assertThat(oneTimeTokenService.redeem(token, OneTimeToken.Purpose.PASSWORD_RESET)).isNotPresent();
+    }
+
+    @Test
+    void assertThatNewTokenReplacesPendingOne() {
+        String first = oneTimeTokenService.issue(user, OneTimeToken.Purpose.PASSWORD_RESET);
+        String second = oneTimeTokenService.issue(user, OneTimeToken.Purpose.PASSWORD_RESET);
+
+        assertThat(oneTimeTokenService.redeem(first, OneTimeToken.Purpose.PASSWORD_RESET)).isNotPresent();
+        assertThat(oneTimeTokenService.redeem(second, OneTimeToken.Purpose.PASSWORD_RESET)).contains(user);
+    }
+
+    @Test
+    void assertThatTokenIsNotStoredInClear() {
+        String token = oneTimeTokenService.issue(user, OneTimeToken.Purpose.ACTIVATION);
+
+        assertThat(oneTimeTokenRepository.findAll()).extracting(OneTimeToken::getTokenHash).hasSize(1).doesNotContain(token);
+    }
+
+    @Test
+    void assertThatExpiredTokensAreRemoved() {
+        for (int i = 0; i < 5; i++) {
+            User other = new User();
+            other.setLogin("one-time-token-" + i);
+            other.setPassword(RandomStringUtils.random(60));
+            other.setActivated(true);
+            userRepository.saveAndFlush(other);
+            saveToken(other, "expired-" + i, Instant.now().minusSeconds(60));
+        }
+        String pending = oneTimeTokenService.issue(user, OneTimeToken.Purpose.PASSWORD_RESET);
+
+        oneTimeTokenService.removeExpiredTokens();
+
+        assertThat(oneTimeTokenRepository.count()).isEqualTo(1);
+        assertThat(oneTimeTokenService.redeem(pending, OneTimeToken.Purpose.PASSWORD_RESET)).contains(user);
+    }
+
+    private void saveToken(User owner, String rawToken, Instant expiresAt) {
+        OneTimeToken token = new OneTimeToken();
+        token.setTokenHash(Sha256.hex(rawToken));
+        token.setPurpose(OneTimeToken.Purpose.PASSWORD_RESET);
+        token.setUser(owner);
+        token.setExpiresAt(expiresAt);
+        oneTimeTokenRepository.saveAndFlush(token);
+    }
+}
@@ -4,8 +4,11 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.when;
 
 import com.openwt.boatapp.IntegrationTest;
+import com.openwt.boatapp.domain.OneTimeToken;
 import com.openwt.boatapp.domain.User;
+import com.openwt.boatapp.repository.OneTimeTokenRepository;
 import com.openwt.boatapp.repository.UserRepository;
+import com.openwt.boatapp.service.util.Sha256;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
@@ -18,6 +21,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.auditing.AuditingHandler;
 import org.springframework.data.auditing.DateTimeProvider;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.transaction.annotation.Transactional;
 import tech.jhipster.security.RandomUtil;
 
@@ -46,6 +51,18 @@ class UserServiceIT {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private OneTimeTokenService oneTimeTokenService;
+
+    @Autowired
+    private OneTimeTokenRepository oneTimeTokenRepository;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
     @Autowired
     private AuditingHandler auditingHandler;
 
@@ -74,14 +91,13 @@ class UserServiceIT {
     @Transactional
     void assertThatUserMustExistToResetPassword() {
         userRepository.saveAndFlush(user);
-        Optional<User> maybeUser = userService.requestPasswordReset("invalid.login@localhost");
-        assertThat(maybeUser).isNotPresent();
+        Optional<UserService.IssuedToken> maybeReset = userService.requestPasswordReset("invalid.login@localhost");
+        assertThat(maybeReset).isNotPresent();
 
-        maybeUser = userService.requestPasswordReset(user.getEmail());
-        assertThat(maybeUser).isPresent();
-        assertThat(maybeUser.orElse(null).getEmail()).isEqualTo(user.getEmail());
-        assertThat(maybeUser.orElse(null).getResetDate()).isNotNull();
-        assertThat(maybeUser.orElse(null).getResetKey()).isNotNull();
+        maybeReset = userService.requestPasswordReset(user.getEmail());
+        assertThat(maybeReset).isPresent();
+        assertThat(maybeReset.orElse(null).getUser().getEmail()).isEqualTo(user.getEmail());
+        assertThat(maybeReset.orElse(null).getToken()).isNotNull();
     }
 
     @Test
@@ -90,22 +106,20 @@ class UserServiceIT {
         user.setActivated(false);
         userRepository.saveAndFlush(user);
 
-        Optional<User> maybeUser = userService.requestPasswordReset(user.getLogin());
-        assertThat(maybeUser).isNotPresent();
+        Optional<UserService.IssuedToken> maybeReset = userService.requestPasswordReset(user.getLogin());
+        assertThat(maybeReset).isNotPresent();
         userRepository.delete(user);
     }
 
     @Test
     @Transactional
     void assertThatResetKeyMustNotBeOlderThan24Hours() {
-        Instant daysAgo = Instant.now().minus(25, ChronoUnit.HOURS);
         String resetKey = RandomUtil.generateResetKey();
         user.setActivated(true);
-        user.setResetDate(daysAgo);
-        user.setResetKey(resetKey);
         userRepository.saveAndFlush(user);
+        saveToken(resetKey, OneTimeToken.Purpose.PASSWORD_RESET, Instant.now().minus(1, ChronoUnit.HOURS));
 
-        Optional<User> maybeUser = userService.completePasswordReset("johndoe2", user.getResetKey());
+        Optional<User> maybeUser = userService.completePasswordReset("johndoe2", resetKey);
         assertThat(maybeUser).isNotPresent();
         userRepository.delete(user);
     }
@@ -113,13 +127,11 @@ class UserServiceIT {
     @Test
     @Transactional
     void assertThatResetKeyMustBeValid() {
-        Instant daysAgo = Instant.now().minus(25, ChronoUnit.HOURS);
         user.setActivated(true);
-        user.setResetDate(daysAgo);
-        user.setResetKey("1234");
         userRepository.saveAndFlush(user);
+        oneTimeTokenService.issue(user, OneTimeToken.Purpose.PASSWORD_RESET);
 
-        Optional<User> maybeUser = userService.completePasswordReset("johndoe2", user.getResetKey());
+        Optional<User> maybeUser = userService.completePasswordReset("johndoe2", "1234");
         assertThat(maybeUser).isNotPresent();
         userRepository.delete(user);
     }
@@ -128,54 +140,81 @@ class UserServiceIT {
     @Transactional
     void assertThatUserCanResetPassword() {
         String oldPassword = user.getPassword();
-        Instant daysAgo = Instant.now().minus(2, ChronoUnit.HOURS);
-        String resetKey = RandomUtil.generateResetKey();
         user.setActivated(true);
-        user.setResetDate(daysAgo);
-        user.setResetKey(resetKey);
         userRepository.saveAndFlush(user);
+        String resetKey = oneTimeTokenService.issue(user, OneTimeToken.Purpose.PASSWORD_RESET);
 
-        Optional<User> maybeUser = userService.completePasswordReset("johndoe2", user.getResetKey());
+        Optional<User> maybeUser = userService.completePasswordReset("johndoe2", resetKey);
         assertThat(maybeUser).isPresent();
-        assertThat(maybeUser.orElse(null).getResetDate()).isNull();
-        assertThat(maybeUser.orElse(null).getResetKey()).isNull();
         assertThat(maybeUser.orElse(null).getPassword()).isNotEqualTo(oldPassword);
+        // The key can only be used once
+        assertThat(userService.completePasswordReset("johndoe3", resetKey)).isNotPresent();
 
         userRepository.delete(user);
     }
 
     @Test
     @Transactional
-    void assertThatNotActivatedUsersWithNotNullActivationKeyCreatedBefore3DaysAreDeleted() {
-        Instant now = Instant.now();
-        when(dateTimeProvider.getNow()).thenReturn(Optional.of(now.minus(4, ChronoUnit.DAYS)));
+    void assertThatPasswordResetRevokesRefreshTokens() {
+        userRepository.saveAndFlush(user);
+        String refreshToken = refreshTokenService.issue(DEFAULT_LOGIN, false);
+        String rememberMeRefreshToken = refreshTokenService.issue(DEFAULT_LOGIN, true);
+        String resetKey = oneTimeTokenService.issue(user, OneTimeToken.Purpose.PASSWORD_RESET);
+
+        assertThat(userService.completePasswordReset("johndoe2", resetKey)).isPresent();
+
+        assertThat(refreshTokenService.rotate(refreshToken)).isNotPresent();
+        assertThat(refreshTokenService.rotate(rememberMeRefreshToken)).isNotPresent();
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(DEFAULT_LOGIN)
+    void assertThatPasswordChangeRevokesRefreshTokens() {
+        user.setPassword(passwordEncoder.encode("johndoe1"));
+        userRepository.saveAndFlush(user);
+        String refreshToken = refreshTokenService.issue(DEFAULT_LOGIN, false);
+        String rememberMeRefreshToken = refreshTokenService.issue(DEFAULT_LOGIN, true);
+
+        userService.changePassword("johndoe1", "johndoe2");
+
+        assertThat(refreshTokenService.rotate(refreshToken)).isNotPresent();
+        assertThat(refreshTokenService.rotate(rememberMeRefreshToken)).isNotPresent();
+    }
+
+    @Test
+    @Transactional
+    void assertThatNotActivatedUsersWithExpiredActivationKeyAreDeleted() {
         user.setActivated(false);
-        user.setActivationKey(RandomStringUtils.random(20));
         User dbUser = userRepository.saveAndFlush(user);
-        dbUser.setCreatedDate(now.minus(4, ChronoUnit.DAYS));
-        userRepository.saveAndFlush(user);
-        Instant threeDaysAgo = now.minus(3, ChronoUnit.DAYS);
-        List<User> users = userRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(threeDaysAgo);
+        saveToken(RandomUtil.generateActivationKey(), OneTimeToken.Purpose.ACTIVATION, Instant.now().minus(1, ChronoUnit.DAYS));
+        List<User> users = userRepository.findAllNotActivatedWithTokenExpiredBefore(OneTimeToken.Purpose.ACTIVATION, Instant.now());
         assertThat(users).isNotEmpty();
         userService.removeNotActivatedUsers();
-        users = userRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(threeDaysAgo);
+        users = userRepository.findAllNotActivatedWithTokenExpiredBefore(OneTimeToken.Purpose.ACTIVATION, Instant.now());
         assertThat(users).isEmpty();
+        assertThat(userRepository.findById(dbUser.getId())).isNotPresent();
     }
 
     @Test
     @Transactional
-    void assertThatNotActivatedUsersWithNullActivationKeyCreatedBefore3DaysAreNotDeleted() {
-        Instant now = Instant.now();
-        when(dateTimeProvider.getNow()).thenReturn(Optional.of(now.minus(4, ChronoUnit.DAYS)));
+    void assertThatNotActivatedUsersWithPendingActivationKeyAreNotDeleted() {
         user.setActivated(false);
         User dbUser = userRepository.saveAndFlush(user);
-        dbUser.setCreatedDate(now.minus(4, ChronoUnit.DAYS));
-        userRepository.saveAndFlush(user);
-        Instant threeDaysAgo = now.minus(3, ChronoUnit.DAYS);
-        List<User> users = userRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(threeDaysAgo);
+        oneTimeTokenService.issue(user, OneTimeToken.Purpose.ACTIVATION);
+        List<User> users = userRepository.findAllNotActivatedWithTokenExpiredBefore(OneTimeToken.Purpose.ACTIVATION, Instant.now());
         assertThat(users).isEmpty();
         userService.removeNotActivatedUsers();
         Optional<User> maybeDbUser = userRepository.findById(dbUser.getId());
         assertThat(maybeDbUser).contains(dbUser);
     }
+
+    private void saveToken(String key, OneTimeToken.Purpose purpose, Instant expiresAt) {
+        OneTimeToken token = new OneTimeToken();
+        token.setTokenHash(Sha256.hex(key));
+        token.setPurpose(purpose);
+        token.setUser(user);
+        token.setExpiresAt(expiresAt);
+        oneTimeTokenRepository.saveAndFlush(token);
+    }
 }
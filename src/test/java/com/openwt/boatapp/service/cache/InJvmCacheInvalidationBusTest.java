@@ -0,0 +1,63 @@
+package com.openwt.boatapp.service.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class InJvmCacheInvalidationBusTest {
+
+    private final InJvmCacheInvalidationBus bus = new InJvmCacheInvalidationBus();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void deliversToEverySubscriber() {
+        List<CacheInvalidation> first = new ArrayList<>();
+        List<CacheInvalidation> second = new ArrayList<>();
+        bus.subscribe(first::add);
+        bus.subscribe(second::add);
+
+        bus.publish(CacheInvalidation.evict("usersByLogin", "john"));
+
+        assertThat(first).containsExactly(CacheInvalidation.evict("usersByLogin", "john"));
+        assertThat(second).containsExactly(CacheInvalidation.evict("usersByLogin", "john"));
+    }
+
+    @Test
+    void deliversAgainOnceCommitted() {
+        List<CacheInvalidation> received = new ArrayList<>();
+        bus.subscribe(received::add);
+        TransactionSynchronizationManager.initSynchronization();
+
+        bus.publish(CacheInvalidation.clear("boatQueries"));
+        assertThat(received).containsExactly(CacheInvalidation.clear("boatQueries"));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(received).containsExactly(CacheInvalidation.clear("boatQueries"), CacheInvalidation.clear("boatQueries"));
+    }
+
+    @Test
+    void keepsDeliveringWhenASubscriberFails() {
+        List<CacheInvalidation> received = new ArrayList<>();
+        bus.subscribe(
+            invalidation -> {
+                throw new IllegalStateException("broken cache");
+            }
+        );
+        bus.subscribe(received::add);
+
+        bus.publish(CacheInvalidation.all());
+
+        assertThat(received).containsExactly(CacheInvalidation.all());
+    }
+}
@@ -0,0 +1,126 @@
+package com.openwt.boatapp.service.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+class PostgresCacheInvalidationBusTest {
+
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private final DataSource listenerDataSource = mock(DataSource.class);
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private final PostgresCacheInvalidationBus bus = new PostgresCacheInvalidationBus(
+        listenerDataSource,
+        jdbcTemplate,
+        new ObjectMapper(),
+        10
+    );
+
+    private final List<CacheInvalidation> received = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        if (bus.isRunning()) {
+            bus.stop();
+        }
+    }
+
+    @Test
+    void publishesToTheChannel() {
+        bus.subscribe(received::add);
+
+        bus.publish(CacheInvalidation.evict("boatsById", 1L));
+
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate)
+            .query(
+                eq("select pg_notify(?, ?)"),
+                ArgumentMatchers.<ResultSetExtractor<Object>>any(),
+                eq(PostgresCacheInvalidationBus.CHANNEL),
+                payload.capture()
+            );
+        assertThat(payload.getValue()).contains("\"cache\":\"boatsById\"").contains("\"key\":\"1\"");
+        assertThat(received).containsExactly(CacheInvalidation.evict("boatsById", 1L));
+    }
+
+    @Test
+    void deliversTheNotificationsOfOtherNodesAsRemote() throws Exception {
+        PGNotification[] notifications = {
+            notification("{\"node\":\"other\",\"cache\":\"boatQueries\",\"key\":null}"),
+            notification("{\"node\":\"other\",\"cache\":\"boatsById\",\"key\":\"1\"}"),
+        };
+        PGConnection connection = listeningConnection();
+        when(connection.getNotifications(anyInt())).thenReturn(notifications).thenReturn(null);
+        bus.subscribe(received::add);
+
+        bus.start();
+
+        awaitReceived(2);
+        assertThat(received)
+            .containsExactly(CacheInvalidation.clear("boatQueries").remote(), CacheInvalidation.evict("boatsById", 1L).remote());
+    }
+
+    @Test
+    void clearsEveryCacheOnceReconnected() throws Exception {
+        PGConnection lost = mock(PGConnection.class);
+        when(lost.getNotifications(anyInt())).thenThrow(new SQLException("Connection reset"));
+        Connection first = connection(lost);
+        Connection second = connection(mock(PGConnection.class));
+        when(listenerDataSource.getConnection()).thenReturn(first, second);
+        bus.subscribe(received::add);
+
+        bus.start();
+
+        awaitReceived(1);
+        assertThat(received).containsExactly(CacheInvalidation.all().remote());
+    }
+
+    private PGConnection listeningConnection() throws SQLException {
+        PGConnection pgConnection = mock(PGConnection.class);
+        Connection connection = connection(pgConnection);
+        when(listenerDataSource.getConnection()).thenReturn(connection);
+        return pgConnection;
+    }
+
+    private static Connection connection(PGConnection pgConnection) throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(connection.createStatement()).thenReturn(mock(Statement.class));
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        return connection;
+    }
+
+    private static PGNotification notification(String payload) {
+        PGNotification notification = mock(PGNotification.class);
+        when(notification.getParameter()).thenReturn(payload);
+        return notification;
+    }
+
+    private void awaitReceived(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (received.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
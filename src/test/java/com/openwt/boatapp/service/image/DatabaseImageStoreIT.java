@@ -0,0 +1,57 @@
+package com.openwt.boatapp.service.image;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.openwt.boatapp.IntegrationTest;
+import com.openwt.boatapp.domain.Boat;
+import com.openwt.boatapp.repository.BoatRepository;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link DatabaseImageStore}.
+ */
+@IntegrationTest
+@Transactional
+class DatabaseImageStoreIT {
+
+    private static final byte[] CONTENT = "boaty mcboatface".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private DatabaseImageStore imageStore;
+
+    @Autowired
+    private BoatRepository boatRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void assertThatStoringTwiceKeepsOneImage() {
+        String hash = imageStore.store(CONTENT);
+
+        assertThat(imageStore.store(CONTENT.clone())).isEqualTo(hash);
+        assertThat(imageStore.load(hash)).hasValueSatisfying(content -> assertThat(content).isEqualTo(CONTENT));
+        assertThat(jdbcTemplate.queryForObject("select count(*) from boat_image where hash = ?", Integer.class, hash)).isEqualTo(1);
+    }
+
+    @Test
+    void assertThatReferencedImageIsNotDeleted() {
+        String hash = imageStore.store(CONTENT);
+        Boat boat = new Boat().name("AAAAAAAAAA").description("AAAAAAAAAA").picContentType("text/plain");
+        boat.setPicHash(hash);
+        boat.setPicSize((long) CONTENT.length);
+        boatRepository.saveAndFlush(boat);
+
+        imageStore.deleteIfUnreferenced(hash);
+        assertThat(imageStore.exists(hash)).isTrue();
+
+        boat.setPicHash(null);
+        boatRepository.saveAndFlush(boat);
+        imageStore.deleteIfUnreferenced(hash);
+        assertThat(imageStore.exists(hash)).isFalse();
+    }
+}
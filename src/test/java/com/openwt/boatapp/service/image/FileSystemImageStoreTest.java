@@ -0,0 +1,82 @@
+package com.openwt.boatapp.service.image;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class FileSystemImageStoreTest {
+
+    private static final byte[] CONTENT = "boaty mcboatface".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path directory;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private FileSystemImageStore imageStore;
+
+    @BeforeEach
+    public void setup() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        imageStore = new FileSystemImageStore(directory.toString(), jdbcTemplate);
+    }
+
+    @Test
+    void testStoreIsContentAddressed() {
+        String hash = imageStore.store(CONTENT);
+
+        assertThat(hash).isEqualTo(ContentHash.of(CONTENT)).hasSize(64);
+        assertThat(imageStore.exists(hash)).isTrue();
+        assertThat(imageStore.load(hash)).hasValueSatisfying(content -> assertThat(content).isEqualTo(CONTENT));
+        assertThat(imageStore.resolve(hash)).startsWith(directory.resolve(hash.substring(0, 2)));
+    }
+
+    @Test
+    void testStoreDeduplicates() throws Exception {
+        String hash = imageStore.store(CONTENT);
+        String sameHash = imageStore.store(CONTENT.clone());
+
+        assertThat(sameHash).isEqualTo(hash);
+        try (Stream<Path> files = Files.walk(directory)) {
+            assertThat(files.filter(Files::isRegularFile).count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void testDeleteIfUnreferenced() {
+        String hash = imageStore.store(CONTENT);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(hash), eq(hash))).thenReturn(0);
+
+        imageStore.deleteIfUnreferenced(hash);
+
+        assertThat(imageStore.exists(hash)).isFalse();
+        assertThat(imageStore.load(hash)).isEmpty();
+    }
+
+    @Test
+    void testReferencedImageIsNotDeleted() {
+        String hash = imageStore.store(CONTENT);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(hash), eq(hash))).thenReturn(1);
+
+        imageStore.deleteIfUnreferenced(hash);
+
+        assertThat(imageStore.exists(hash)).isTrue();
+    }
+
+    @Test
+    void testRejectsInvalidHash() {
+        assertThatThrownBy(() -> imageStore.load("../../etc/passwd")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
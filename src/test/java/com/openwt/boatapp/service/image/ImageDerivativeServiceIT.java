@@ -0,0 +1,87 @@
+package com.openwt.boatapp.service.image;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.openwt.boatapp.IntegrationTest;
+import com.openwt.boatapp.domain.Boat;
+import com.openwt.boatapp.repository.BoatRepository;
+import com.openwt.boatapp.service.BoatPicService;
+import java.awt.image.BufferedImage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for {@link ImageDerivativeService}.
+ * <p>
+ * Not transactional: the derivatives are saved in a transaction of their own, which only sees committed pictures and
+ * boats.
+ */
+@IntegrationTest
+class ImageDerivativeServiceIT {
+
+    @Autowired
+    private ImageDerivativeService imageDerivativeService;
+
+    @Autowired
+    private ImageStore imageStore;
+
+    @Autowired
+    private BoatPicService boatPicService;
+
+    @Autowired
+    private BoatRepository boatRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    public void setup() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void assertThatDerivativesOfAReferencedPictureAreSaved() throws Exception {
+        byte[] picture = ImageResizerTest.png(400, 300, BufferedImage.TYPE_INT_RGB);
+        Boat boat = transactionTemplate.execute(
+            status -> {
+                Boat pictured = createBoat();
+                pictured.setPicHash(imageStore.store(picture));
+                pictured.setPicSize((long) picture.length);
+                return boatRepository.saveAndFlush(pictured);
+            }
+        );
+        try {
+            assertThat(imageDerivativeService.generate(boat.getPicHash())).isTrue();
+            assertThat(imageDerivativeService.find(boat.getPicHash(), ImageSize.THUMB)).isPresent();
+        } finally {
+            boatRepository.delete(boat);
+            boatPicService.releaseIfUnreferenced(boat.getPicHash());
+        }
+    }
+
+    @Test
+    void assertThatDerivativesOfAReleasedPictureAreNotSaved() throws Exception {
+        byte[] picture = ImageResizerTest.png(400, 300, BufferedImage.TYPE_INT_ARGB);
+        String hash = transactionTemplate.execute(status -> imageStore.store(picture));
+        try {
+            assertThat(imageDerivativeService.generate(hash)).isFalse();
+            assertThat(jdbcTemplate.queryForObject("select count(*) from boat_image_derivative where source_hash = ?", Integer.class, hash))
+                .isZero();
+        } finally {
+            transactionTemplate.executeWithoutResult(status -> imageStore.deleteIfUnreferenced(hash));
+        }
+    }
+
+    private static Boat createBoat() {
+        return new Boat().name("AAAAAAAAAA").description("AAAAAAAAAA").picContentType("image/png");
+    }
+}
@@ -0,0 +1,171 @@
+package com.openwt.boatapp.service.image;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Test;
+
+class ImageResizerTest {
+
+    private final ImageResizer resizer = new ImageResizer(40_000_000L, 0.8f);
+
+    @Test
+    void testOpaquePictureIsResizedToJpeg() throws Exception {
+        byte[] source = png(2000, 1000, BufferedImage.TYPE_INT_RGB);
+
+        Map<ImageSize, ImageResizer.Derivative> derivatives = resizer.resize(source).orElseThrow();
+
+        assertThat(derivatives).containsOnlyKeys(ImageSize.values());
+        assertDimensions(derivatives.get(ImageSize.FULL), 1600, 800);
+        assertDimensions(derivatives.get(ImageSize.CARD), 480, 240);
+        assertDimensions(derivatives.get(ImageSize.THUMB), 160, 80);
+        assertThat(derivatives.get(ImageSize.THUMB).getContentType()).isEqualTo(ImageResizer.JPEG);
+        assertThat(derivatives.get(ImageSize.THUMB).getContent().length).isLessThan(source.length);
+    }
+
+    @Test
+    void testTransparentPictureIsResizedToPng() throws Exception {
+        byte[] source = png(400, 800, BufferedImage.TYPE_INT_ARGB);
+
+        Map<ImageSize, ImageResizer.Derivative> derivatives = resizer.resize(source).orElseThrow();
+
+        assertThat(derivatives.get(ImageSize.THUMB).getContentType()).isEqualTo(ImageResizer.PNG);
+        BufferedImage thumb = assertDimensions(derivatives.get(ImageSize.THUMB), 80, 160);
+        assertThat(thumb.getColorModel().hasAlpha()).isTrue();
+    }
+
+    @Test
+    void testPictureIsNotScaledUp() throws Exception {
+        byte[] source = png(100, 50, BufferedImage.TYPE_INT_RGB);
+
+        Map<ImageSize, ImageResizer.Derivative> derivatives = resizer.resize(source).orElseThrow();
+
+        for (ImageSize size : ImageSize.values()) {
+            assertDimensions(derivatives.get(size), 100, 50);
+        }
+    }
+
+    @Test
+    void testUnsupportedFormatIsNotResized() throws Exception {
+        assertThat(resizer.resize("not a picture".getBytes(StandardCharsets.UTF_8))).isEmpty();
+    }
+
+    @Test
+    void testPictureWithTooManyPixelsIsNotDecoded() throws Exception {
+        ImageResizer small = new ImageResizer(100, 0.8f);
+        byte[] source = png(20, 10, BufferedImage.TYPE_INT_RGB);
+
+        assertThatThrownBy(() -> small.resize(source)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void testScaleKeepsAspectRatio() {
+        BufferedImage image = new BufferedImage(1000, 333, BufferedImage.TYPE_INT_RGB);
+
+        BufferedImage scaled = ImageResizer.scale(image, 100);
+
+        assertThat(scaled.getWidth()).isEqualTo(100);
+        assertThat(scaled.getHeight()).isEqualTo(33);
+    }
+
+    @Test
+    void testExifOrientationIsApplied() throws Exception {
+        byte[] source = withOrientation(jpeg(200, 100), 6);
+
+        Map<ImageSize, ImageResizer.Derivative> derivatives = resizer.resize(source).orElseThrow();
+
+        assertDimensions(derivatives.get(ImageSize.FULL), 100, 200);
+        assertDimensions(derivatives.get(ImageSize.THUMB), 80, 160);
+        assertThat(derivatives.get(ImageSize.FULL).getContent()).isNotEqualTo(source);
+    }
+
+    @Test
+    void testOrientRotatesCounterClockwise() {
+        BufferedImage image = new BufferedImage(2, 1, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, Color.RED.getRGB());
+
+        BufferedImage oriented = ImageResizer.orient(image, 8);
+
+        assertThat(oriented.getWidth()).isEqualTo(1);
+        assertThat(oriented.getHeight()).isEqualTo(2);
+        assertThat(oriented.getRGB(0, 1)).isEqualTo(Color.RED.getRGB());
+        assertThat(oriented.getRGB(0, 0)).isEqualTo(Color.BLACK.getRGB());
+    }
+
+    @Test
+    void testExifOrientationIsReadInEitherByteOrder() {
+        assertThat(ImageResizer.exifOrientation(exif(6, false))).isEqualTo(6);
+        assertThat(ImageResizer.exifOrientation(exif(3, true))).isEqualTo(3);
+        assertThat(ImageResizer.exifOrientation("Exif\0\0MM".getBytes(StandardCharsets.ISO_8859_1))).isZero();
+    }
+
+    private static BufferedImage assertDimensions(ImageResizer.Derivative derivative, int width, int height) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(derivative.getContent()));
+        assertThat(image.getWidth()).isEqualTo(width);
+        assertThat(image.getHeight()).isEqualTo(height);
+        return image;
+    }
+
+    static byte[] png(int width, int height, int type) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setColor(Color.BLUE);
+            graphics.fillRect(0, 0, width, height / 2);
+            graphics.setColor(Color.WHITE);
+            graphics.fillOval(width / 4, height / 4, width / 2, height / 2);
+        } finally {
+            graphics.dispose();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static byte[] jpeg(int width, int height) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png(width, height, BufferedImage.TYPE_INT_RGB)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Insert an APP1 segment with an EXIF orientation after the APP0 segment of a JPEG picture.
+     */
+    private static byte[] withOrientation(byte[] jpeg, int orientation) {
+        int app0End = 4 + ((jpeg[4] & 0xff) << 8 | (jpeg[5] & 0xff));
+        byte[] exif = exif(orientation, false);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, app0End);
+        out.write(0xff);
+        out.write(0xe1);
+        out.write((exif.length + 2) >> 8);
+        out.write((exif.length + 2) & 0xff);
+        out.write(exif, 0, exif.length);
+        out.write(jpeg, app0End, jpeg.length - app0End);
+        return out.toByteArray();
+    }
+
+    private static byte[] exif(int orientation, boolean littleEndian) {
+        ByteBuffer segment = ByteBuffer.allocate(6 + 8 + 2 + 12 + 4).order(littleEndian ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        segment.put("Exif\0\0".getBytes(StandardCharsets.ISO_8859_1));
+        segment.put(littleEndian ? "II".getBytes(StandardCharsets.ISO_8859_1) : "MM".getBytes(StandardCharsets.ISO_8859_1));
+        segment.putShort((short) 42).putInt(8);
+        // One entry: the orientation, a short
+        segment.putShort((short) 1);
+        segment.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        segment.putInt(0);
+        return segment.array();
+    }
+}
@@ -0,0 +1,83 @@
+package com.openwt.boatapp.service.image;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class ImageUploadTest {
+
+    @Test
+    void testUploadIsHashedAndTyped() throws Exception {
+        byte[] png = ImageResizerTest.png(40, 20, BufferedImage.TYPE_INT_RGB);
+
+        Path path;
+        try (ImageUpload upload = ImageUpload.receive(new ByteArrayInputStream(png), 1_000_000)) {
+            path = upload.getPath();
+            assertThat(upload.getHash()).isEqualTo(ContentHash.of(png));
+            assertThat(upload.getSize()).isEqualTo(png.length);
+            assertThat(upload.getContentType()).isEqualTo("image/png");
+            try (InputStream in = upload.openStream()) {
+                assertThat(in.readAllBytes()).isEqualTo(png);
+            }
+        }
+        assertThat(path).doesNotExist();
+    }
+
+    @Test
+    void testContentTypeIsDetectedFromMagicBytes() {
+        byte[] jpeg = { (byte) 0xff, (byte) 0xd8, (byte) 0xff, (byte) 0xe0 };
+        assertThat(ImageUpload.detectContentType(jpeg)).isEqualTo("image/jpeg");
+        assertThat(ImageUpload.detectContentType(ascii("GIF89a......"))).isEqualTo("image/gif");
+        assertThat(ImageUpload.detectContentType(ascii("RIFF....WEBP"))).isEqualTo("image/webp");
+        assertThatThrownBy(() -> ImageUpload.detectContentType(ascii("RIFF....WAVE"))).isInstanceOf(UnsupportedImageTypeException.class);
+        assertThatThrownBy(() -> ImageUpload.detectContentType(new byte[0])).isInstanceOf(UnsupportedImageTypeException.class);
+    }
+
+    @Test
+    void testUnsupportedUploadIsRejectedBeforeItIsRead() {
+        CountingInputStream in = new CountingInputStream(new ByteArrayInputStream(new byte[1_000_000]));
+
+        assertThatThrownBy(() -> ImageUpload.receive(in, 10_000_000)).isInstanceOf(UnsupportedImageTypeException.class);
+        assertThat(in.count).isLessThan(1_000_000);
+    }
+
+    @Test
+    void testTooLargeUploadIsRejectedBeforeItIsRead() throws Exception {
+        byte[] png = Arrays.copyOf(ImageResizerTest.png(40, 20, BufferedImage.TYPE_INT_RGB), 1_000_000);
+        CountingInputStream in = new CountingInputStream(new ByteArrayInputStream(png));
+
+        assertThatThrownBy(() -> ImageUpload.receive(in, 100_000)).isInstanceOf(ImageTooLargeException.class);
+        assertThat(in.count).isLessThan(200_000);
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.openwt.boatapp.service.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.openwt.boatapp.domain.Boat;
+import com.openwt.boatapp.repository.BoatRepository;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class BoatSearchIndexTest {
+
+    private BoatRepository boatRepository;
+
+    private BoatSearchIndex boatSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        boatRepository = mock(BoatRepository.class);
+        boatSearchIndex = new BoatSearchIndex(boatRepository, mock(PlatformTransactionManager.class), true, 2);
+    }
+
+    @Test
+    void returnsNoCandidatesBeforeTheFirstRebuild() {
+        assertThat(boatSearchIndex.findIdsByNameContaining("kittiwake")).isEmpty();
+    }
+
+    @Test
+    void findsCandidatesIgnoringCase() {
+        rebuildWith(searchText(1L, "Kittiwake", "Sails like an albatross"), searchText(2L, "Albatross", "Fast and light"));
+
+        assertThat(boatSearchIndex.findIdsByNameContaining("TIWA")).contains(List.of(1L));
+        assertThat(boatSearchIndex.findIdsByDescriptionContaining("albatross")).contains(List.of(1L));
+        assertThat(boatSearchIndex.findIdsByNameContaining("pelican")).contains(List.of());
+    }
+
+    @Test
+    void leavesUnselectiveSearchesToTheDatabase() {
+        rebuildWith(searchText(1L, "Kittiwake", "a"), searchText(2L, "Kittiwake II", "b"), searchText(3L, "Kittiwake III", "c"));
+
+        // Too short to be looked up by trigrams
+        assertThat(boatSearchIndex.findIdsByNameContaining("ki")).isEmpty();
+        // LIKE wildcard
+        assertThat(boatSearchIndex.findIdsByNameContaining("kit_")).isEmpty();
+        // More candidates than max-candidates
+        assertThat(boatSearchIndex.findIdsByNameContaining("kittiwake")).isEmpty();
+    }
+
+    @Test
+    void followsWrites() {
+        rebuildWith(searchText(1L, "Kittiwake", "Sails like an albatross"));
+
+        boatSearchIndex.index(new Boat().id(1L).name("Pelican").description("Sails like an albatross"));
+        boatSearchIndex.index(new Boat().id(2L).name("Kittiwake").description("Fast and light"));
+        assertThat(boatSearchIndex.findIdsByNameContaining("kittiwake")).contains(List.of(2L));
+        assertThat(boatSearchIndex.findIdsByNameContaining("pelican")).contains(List.of(1L));
+
+        boatSearchIndex.remove(2L);
+        assertThat(boatSearchIndex.findIdsByNameContaining("kittiwake")).contains(List.of());
+    }
+
+    private void rebuildWith(BoatRepository.SearchText... texts) {
+        when(boatRepository.streamAllSearchTexts()).thenReturn(Stream.of(texts));
+        boatSearchIndex.rebuild();
+    }
+
+    private static BoatRepository.SearchText searchText(Long id, String name, String description) {
+        return new BoatRepository.SearchText() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public String getDescription() {
+                return description;
+            }
+        };
+    }
+}
@@ -10,16 +10,17 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import com.openwt.boatapp.IntegrationTest;
 import com.openwt.boatapp.config.Constants;
+import com.openwt.boatapp.domain.OneTimeToken;
 import com.openwt.boatapp.domain.User;
 import com.openwt.boatapp.repository.AuthorityRepository;
 import com.openwt.boatapp.repository.UserRepository;
 import com.openwt.boatapp.security.AuthoritiesConstants;
+import com.openwt.boatapp.service.OneTimeTokenService;
 import com.openwt.boatapp.service.UserService;
 import com.openwt.boatapp.service.dto.AdminUserDTO;
 import com.openwt.boatapp.service.dto.PasswordChangeDTO;
 import com.openwt.boatapp.web.rest.vm.KeyAndPasswordVM;
 import com.openwt.boatapp.web.rest.vm.ManagedUserVM;
-import java.time.Instant;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Optional;
@@ -53,6 +54,9 @@ class AccountResourceIT {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private OneTimeTokenService oneTimeTokenService;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -198,15 +202,14 @@ class AccountResourceIT {
     @Test
     @Transactional
     void testActivateAccount() throws Exception {
-        final String activationKey = "some activation key";
         User user = new User();
         user.setLogin("activate-account");
         user.setEmail("activate-account@example.com");
         user.setPassword(RandomStringUtils.random(60));
         user.setActivated(false);
-        user.setActivationKey(activationKey);
 
         userRepository.saveAndFlush(user);
+        String activationKey = oneTimeTokenService.issue(user, OneTimeToken.Purpose.ACTIVATION);
 
         restAccountMockMvc.perform(get("/api/activate?key={activationKey}", activationKey)).andExpect(status().isOk());
 
@@ -375,12 +378,10 @@ class AccountResourceIT {
         user.setPassword(RandomStringUtils.random(60));
         user.setLogin("finish-password-reset");
         user.setEmail("finish-password-reset@example.com");
-        user.setResetDate(Instant.now().plusSeconds(60));
-        user.setResetKey("reset key");
         userRepository.saveAndFlush(user);
 
         KeyAndPasswordVM keyAndPassword = new KeyAndPasswordVM();
-        keyAndPassword.setKey(user.getResetKey());
+        keyAndPassword.setKey(oneTimeTokenService.issue(user, OneTimeToken.Purpose.PASSWORD_RESET));
         keyAndPassword.setNewPassword("new password");
 
         restAccountMockMvc
@@ -0,0 +1,292 @@
+package com.openwt.boatapp.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.openwt.boatapp.IntegrationTest;
+import com.openwt.boatapp.domain.Boat;
+import com.openwt.boatapp.repository.BoatRepository;
+import com.openwt.boatapp.service.BoatPicService;
+import com.openwt.boatapp.service.image.ContentHash;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import javax.imageio.ImageIO;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for the {@link BoatPicResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class BoatPicResourceIT {
+
+    private static final byte[] PIC = "0123456789".getBytes(StandardCharsets.US_ASCII);
+    private static final String PIC_CONTENT_TYPE = "image/png";
+
+    private static final String ENTITY_API_URL_PIC = "/api/boats/{id}/pic";
+
+    @Autowired
+    private BoatRepository boatRepository;
+
+    @Autowired
+    private BoatPicService boatPicService;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MockMvc restBoatPicMockMvc;
+
+    private Boat boat;
+
+    @BeforeEach
+    public void initTest() {
+        boat = BoatResourceIT.createEntity(em).picContentType(PIC_CONTENT_TYPE);
+        boatPicService.attach(boat, PIC);
+    }
+
+    private String etag() {
+        return "\"" + boat.getPicHash() + "\"";
+    }
+
+    private static byte[] image(String format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB), format, out);
+        return out.toByteArray();
+    }
+
+    @Test
+    @Transactional
+    void getBoatPic() throws Exception {
+        boatRepository.saveAndFlush(boat);
+
+        restBoatPicMockMvc
+            .perform(get(ENTITY_API_URL_PIC, boat.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(PIC_CONTENT_TYPE))
+            .andExpect(header().string(HttpHeaders.ETAG, etag()))
+            .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+            .andExpect(content().bytes(PIC));
+    }
+
+    @Test
+    @Transactional
+    void getBoatPicNotModified() throws Exception {
+        boatRepository.saveAndFlush(boat);
+
+        restBoatPicMockMvc
+            .perform(get(ENTITY_API_URL_PIC, boat.getId()).header(HttpHeaders.IF_NONE_MATCH, etag()))
+            .andExpect(status().isNotModified())
+            .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    @Transactional
+    void getBoatPicRange() throws Exception {
+        boatRepository.saveAndFlush(boat);
+
+        restBoatPicMockMvc
+            .perform(get(ENTITY_API_URL_PIC, boat.getId()).header(HttpHeaders.RANGE, "bytes=2-5"))
+            .andExpect(status().isPartialContent())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+            .andExpect(content().bytes(Arrays.copyOfRange(PIC, 2, 6)));
+
+        restBoatPicMockMvc
+            .perform(get(ENTITY_API_URL_PIC, boat.getId()).header(HttpHeaders.RANGE, "bytes=-3"))
+            .andExpect(status().isPartialContent())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 7-9/10"))
+            .andExpect(content().bytes(Arrays.copyOfRange(PIC, 7, 10)));
+    }
+
+    @Test
+    @Transactional
+    void getBoatPicRangeForOtherVersion() throws Exception {
+        boatRepository.saveAndFlush(boat);
+
+        restBoatPicMockMvc
+            .perform(get(ENTITY_API_URL_PIC, boat.getId()).header(HttpHeaders.RANGE, "bytes=2-5").header(HttpHeaders.IF_RANGE, "\"other\""))
+            .andExpect(status().isOk())
+            .andExpect(content().bytes(PIC));
+    }
+
+    @Test
+    @Transactional
+    void getBoatPicRangeNotSatisfiable() throws Exception {
+        boatRepository.saveAndFlush(boat);
+
+        restBoatPicMockMvc
+            .perform(get(ENTITY_API_URL_PIC, boat.getId()).header(HttpHeaders.RANGE, "bytes=10-"))
+            .andExpect(status().isRequestedRangeNotSatisfiable())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+    }
+
+    @Test
+    void getBoatPicThumb() throws Exception {
+        // Committed, so that the thumbnail is generated right away
+        BufferedImage image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        String initialPicHash = boat.getPicHash();
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+            status -> {
+                boatPicService.attach(boat, png.toByteArray());
+                boatRepository.saveAndFlush(boat);
+            }
+        );
+        try {
+            MvcResult result = restBoatPicMockMvc
+                .perform(get(ENTITY_API_URL_PIC + "?size=thumb", boat.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/jpeg"))
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag())))
+                .andReturn();
+            BufferedImage thumb = ImageIO.read(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()));
+            assertThat(thumb.getWidth()).isEqualTo(160);
+            assertThat(thumb.getHeight()).isEqualTo(120);
+        } finally {
+            boatRepository.delete(boat);
+            boatPicService.releaseIfUnreferenced(boat.getPicHash());
+            boatPicService.releaseIfUnreferenced(initialPicHash);
+        }
+    }
+
+    @Test
+    @Transactional
+    void getBoatPicThumbBeforeItIsGenerated() throws Exception {
+        boatRepository.saveAndFlush(boat);
+
+        restBoatPicMockMvc
+            .perform(get(ENTITY_API_URL_PIC + "?size=thumb", boat.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(PIC_CONTENT_TYPE))
+            .andExpect(header().string(HttpHeaders.ETAG, etag()))
+            .andExpect(content().bytes(PIC));
+    }
+
+    @Test
+    @Transactional
+    void getBoatPicWithInvalidSize() throws Exception {
+        boatRepository.saveAndFlush(boat);
+
+        restBoatPicMockMvc.perform(get(ENTITY_API_URL_PIC + "?size=huge", boat.getId())).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void updateBoatPic() throws Exception {
+        boatRepository.saveAndFlush(boat);
+        byte[] png = image("png");
+        String hash = ContentHash.of(png);
+
+        restBoatPicMockMvc
+            .perform(put(ENTITY_API_URL_PIC, boat.getId()).contentType(MediaType.APPLICATION_OCTET_STREAM).content(png))
+            .andExpect(status().isNoContent())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + hash + "\""));
+
+        Boat updatedBoat = boatRepository.findById(boat.getId()).orElseThrow();
+        assertThat(updatedBoat.getPicHash()).isEqualTo(hash);
+        assertThat(updatedBoat.getPicSize()).isEqualTo((long) png.length);
+        assertThat(updatedBoat.getPicContentType()).isEqualTo("image/png");
+        restBoatPicMockMvc.perform(get(ENTITY_API_URL_PIC, boat.getId())).andExpect(status().isOk()).andExpect(content().bytes(png));
+    }
+
+    @Test
+    @Transactional
+    void updateBoatPicFromForm() throws Exception {
+        boatRepository.saveAndFlush(boat);
+        byte[] gif = image("gif");
+        MockMultipartFile file = new MockMultipartFile("file", "boat.gif", "image/gif", gif);
+
+        restBoatPicMockMvc
+            .perform(
+                multipart(ENTITY_API_URL_PIC, boat.getId())
+                    .file(file)
+                    .with(
+                        request -> {
+                            request.setMethod("PUT");
+                            return request;
+                        }
+                    )
+            )
+            .andExpect(status().isNoContent())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + ContentHash.of(gif) + "\""));
+
+        Boat updatedBoat = boatRepository.findById(boat.getId()).orElseThrow();
+        assertThat(updatedBoat.getPicContentType()).isEqualTo("image/gif");
+    }
+
+    @Test
+    @Transactional
+    void updateBoatPicTooLarge() throws Exception {
+        boatRepository.saveAndFlush(boat);
+        // Larger than boatapp.image-store.upload.max-size in the test configuration
+        byte[] large = Arrays.copyOf(image("png"), 8192);
+
+        restBoatPicMockMvc
+            .perform(put(ENTITY_API_URL_PIC, boat.getId()).contentType("image/png").content(large))
+            .andExpect(status().isPayloadTooLarge());
+
+        assertThat(boatRepository.findById(boat.getId()).orElseThrow().getPicHash()).isEqualTo(boat.getPicHash());
+    }
+
+    @Test
+    @Transactional
+    void updateBoatPicWithUnsupportedType() throws Exception {
+        boatRepository.saveAndFlush(boat);
+
+        restBoatPicMockMvc
+            .perform(put(ENTITY_API_URL_PIC, boat.getId()).contentType("image/png").content(PIC))
+            .andExpect(status().isUnsupportedMediaType());
+
+        assertThat(boatRepository.findById(boat.getId()).orElseThrow().getPicHash()).isEqualTo(boat.getPicHash());
+    }
+
+    @Test
+    @Transactional
+    void updateNonExistingBoatPic() throws Exception {
+        restBoatPicMockMvc
+            .perform(put(ENTITY_API_URL_PIC, Long.MAX_VALUE).contentType(MediaType.APPLICATION_OCTET_STREAM).content(image("png")))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    void getBoatWithoutPic() throws Exception {
+        boatPicService.attach(boat, (byte[]) null);
+        boatRepository.saveAndFlush(boat);
+
+        restBoatPicMockMvc.perform(get(ENTITY_API_URL_PIC, boat.getId())).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    void getNonExistingBoatPic() throws Exception {
+        restBoatPicMockMvc.perform(get(ENTITY_API_URL_PIC, Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+}
@@ -1,21 +1,35 @@
 package com.openwt.boatapp.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.openwt.boatapp.IntegrationTest;
 import com.openwt.boatapp.domain.Boat;
 import com.openwt.boatapp.repository.BoatRepository;
+import com.openwt.boatapp.service.BoatPicService;
+import com.openwt.boatapp.service.BoatService;
+import com.openwt.boatapp.service.dto.BoatBatchItemDTO;
+import com.openwt.boatapp.service.dto.BoatCursor;
 import com.openwt.boatapp.service.dto.BoatDTO;
+import com.openwt.boatapp.service.image.ImageStore;
 import com.openwt.boatapp.service.mapper.BoatMapper;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
@@ -24,9 +38,13 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Base64Utils;
 
@@ -61,6 +79,15 @@ class BoatResourceIT {
     @Autowired
     private BoatMapper boatMapper;
 
+    @Autowired
+    private BoatPicService boatPicService;
+
+    @Autowired
+    private ImageStore imageStore;
+
+    @Autowired
+    private CacheManager cacheManager;
+
     @Autowired
     private EntityManager em;
 
@@ -76,11 +103,7 @@ class BoatResourceIT {
      * if they test an entity which requires the current entity.
      */
     public static Boat createEntity(EntityManager em) {
-        Boat boat = new Boat()
-            .name(DEFAULT_NAME)
-            .description(DEFAULT_DESCRIPTION)
-            .pic(DEFAULT_PIC)
-            .picContentType(DEFAULT_PIC_CONTENT_TYPE);
+        Boat boat = new Boat().name(DEFAULT_NAME).description(DEFAULT_DESCRIPTION).picContentType(DEFAULT_PIC_CONTENT_TYPE);
         return boat;
     }
 
@@ -91,17 +114,23 @@ class BoatResourceIT {
      * if they test an entity which requires the current entity.
      */
     public static Boat createUpdatedEntity(EntityManager em) {
-        Boat boat = new Boat()
-            .name(UPDATED_NAME)
-            .description(UPDATED_DESCRIPTION)
-            .pic(UPDATED_PIC)
-            .picContentType(UPDATED_PIC_CONTENT_TYPE);
+        Boat boat = new Boat().name(UPDATED_NAME).description(UPDATED_DESCRIPTION).picContentType(UPDATED_PIC_CONTENT_TYPE);
         return boat;
     }
 
     @BeforeEach
     public void initTest() {
+        cacheManager.getCache(BoatService.BOATS_BY_ID_CACHE).clear();
+        cacheManager.getCache(BoatService.BOAT_QUERIES_CACHE).clear();
         boat = createEntity(em);
+        boatPicService.attach(boat, DEFAULT_PIC);
+    }
+
+    /**
+     * Load the picture of a boat from the image store.
+     */
+    private byte[] storedPic(Boat boat) {
+        return boatPicService.load(boat).orElse(null);
     }
 
     @Test
@@ -109,7 +138,7 @@ class BoatResourceIT {
     void createBoat() throws Exception {
         int databaseSizeBeforeCreate = boatRepository.findAll().size();
         // Create the Boat
-        BoatDTO boatDTO = boatMapper.toDto(boat);
+        BoatDTO boatDTO = boatPicService.toDto(boat);
         restBoatMockMvc
             .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(boatDTO)))
             .andExpect(status().isCreated());
@@ -120,7 +149,7 @@ class BoatResourceIT {
         Boat testBoat = boatList.get(boatList.size() - 1);
         assertThat(testBoat.getName()).isEqualTo(DEFAULT_NAME);
         assertThat(testBoat.getDescription()).isEqualTo(DEFAULT_DESCRIPTION);
-        assertThat(testBoat.getPic()).isEqualTo(DEFAULT_PIC);
+        assertThat(storedPic(testBoat)).isEqualTo(DEFAULT_PIC);
         assertThat(testBoat.getPicContentType()).isEqualTo(DEFAULT_PIC_CONTENT_TYPE);
     }
 
@@ -129,7 +158,7 @@ class BoatResourceIT {
     void createBoatWithExistingId() throws Exception {
         // Create the Boat with an existing ID
         boat.setId(1L);
-        BoatDTO boatDTO = boatMapper.toDto(boat);
+        BoatDTO boatDTO = boatPicService.toDto(boat);
 
         int databaseSizeBeforeCreate = boatRepository.findAll().size();
 
@@ -151,7 +180,7 @@ class BoatResourceIT {
         boat.setName(null);
 
         // Create the Boat, which fails.
-        BoatDTO boatDTO = boatMapper.toDto(boat);
+        BoatDTO boatDTO = boatPicService.toDto(boat);
 
         restBoatMockMvc
             .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(boatDTO)))
@@ -169,7 +198,7 @@ class BoatResourceIT {
         boat.setDescription(null);
 
         // Create the Boat, which fails.
-        BoatDTO boatDTO = boatMapper.toDto(boat);
+        BoatDTO boatDTO = boatPicService.toDto(boat);
 
         restBoatMockMvc
             .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(boatDTO)))
@@ -194,7 +223,282 @@ class BoatResourceIT {
             .andExpect(jsonPath("$.[*].name").value(hasItem(DEFAULT_NAME)))
             .andExpect(jsonPath("$.[*].description").value(hasItem(DEFAULT_DESCRIPTION)))
             .andExpect(jsonPath("$.[*].picContentType").value(hasItem(DEFAULT_PIC_CONTENT_TYPE)))
-            .andExpect(jsonPath("$.[*].pic").value(hasItem(Base64Utils.encodeToString(DEFAULT_PIC))));
+            .andExpect(jsonPath("$.[*].picUrl").value(hasItem("/api/boats/" + boat.getId() + "/pic?size=thumb")))
+            .andExpect(jsonPath("$.[*].pic").value(everyItem(nullValue())));
+    }
+
+    @Test
+    @Transactional
+    void getAllBoatSummaries() throws Exception {
+        // Initialize the database
+        boatRepository.saveAndFlush(boat);
+
+        // Get all the boat summaries
+        restBoatMockMvc
+            .perform(get(ENTITY_API_URL + "?fields=summary&sort=id,desc&name.equals=" + DEFAULT_NAME))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(header().exists("X-Total-Count"))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(boat.getId().intValue())))
+            .andExpect(jsonPath("$.[*].name").value(hasItem(DEFAULT_NAME)))
+            .andExpect(jsonPath("$.[*].picUrl").value(hasItem("/api/boats/" + boat.getId() + "/pic?size=thumb")))
+            .andExpect(jsonPath("$.[*].description").doesNotExist())
+            .andExpect(jsonPath("$.[*].pic").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    void getAllBoatSummariesWithCursor() throws Exception {
+        restBoatMockMvc.perform(get(ENTITY_API_URL + "?fields=summary&after=")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportBoatsAsNdjson() throws Exception {
+        // Committed, as the export reads the boats from another thread
+        boat.setName("export-ndjson-" + count.incrementAndGet());
+        boatRepository.saveAndFlush(boat);
+        Boat other = boatRepository.saveAndFlush(createEntity(em).name(boat.getName()));
+        try {
+            MvcResult result = restBoatMockMvc
+                .perform(get(ENTITY_API_URL + "/export?name.equals=" + boat.getName()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            restBoatMockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"boats.ndjson\""))
+                .andExpect(
+                    content()
+                        .string(
+                            "{\"id\":" +
+                            boat.getId() +
+                            ",\"name\":\"" +
+                            boat.getName() +
+                            "\",\"description\":\"" +
+                            DEFAULT_DESCRIPTION +
+                            "\",\"picContentType\":\"" +
+                            DEFAULT_PIC_CONTENT_TYPE +
+                            "\",\"picUrl\":\"/api/boats/" +
+                            boat.getId() +
+                            "/pic\"}\n" +
+                            "{\"id\":" +
+                            other.getId() +
+                            ",\"name\":\"" +
+                            boat.getName() +
+                            "\",\"description\":\"" +
+                            DEFAULT_DESCRIPTION +
+                            "\",\"picContentType\":\"" +
+                            DEFAULT_PIC_CONTENT_TYPE +
+                            "\"}\n"
+                        )
+                );
+        } finally {
+            boatRepository.deleteAll(List.of(boat, other));
+            boatPicService.releaseIfUnreferenced(boat.getPicHash());
+        }
+    }
+
+    @Test
+    void exportBoatsAsCsv() throws Exception {
+        boat.setName("export-csv-" + count.incrementAndGet());
+        boat.setDescription("A \"fast\", light boat");
+        boatRepository.saveAndFlush(boat);
+        try {
+            MvcResult result = restBoatMockMvc
+                .perform(get(ENTITY_API_URL + "/export?format=csv&name.equals=" + boat.getName()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            restBoatMockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(
+                    content()
+                        .string(
+                            "id,name,description,picContentType,picUrl\r\n" +
+                            boat.getId() +
+                            "," +
+                            boat.getName() +
+                            ",\"A \"\"fast\"\", light boat\"," +
+                            DEFAULT_PIC_CONTENT_TYPE +
+                            ",/api/boats/" +
+                            boat.getId() +
+                            "/pic\r\n"
+                        )
+                );
+        } finally {
+            boatRepository.delete(boat);
+            boatPicService.releaseIfUnreferenced(boat.getPicHash());
+        }
+    }
+
+    @Test
+    @Transactional
+    void exportBoatsWithInvalidFormat() throws Exception {
+        restBoatMockMvc.perform(get(ENTITY_API_URL + "/export?format=xml")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getAllBoatsWithKeysetPagination() throws Exception {
+        // Initialize the database with three boats
+        Boat first = boatRepository.saveAndFlush(boat);
+        Boat second = boatRepository.saveAndFlush(createEntity(em));
+        Boat third = boatRepository.saveAndFlush(createEntity(em));
+
+        // Get the first page
+        String link = restBoatMockMvc
+            .perform(get(ENTITY_API_URL + "?after=&size=2&sort=id,asc&name.equals=" + DEFAULT_NAME))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].id").value(first.getId().intValue()))
+            .andExpect(jsonPath("$.[1].id").value(second.getId().intValue()))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.LINK);
+
+        String cursor = BoatCursor.after(Sort.Order.asc("id"), boatMapper.toDto(second)).encode();
+        assertThat(link).contains("after=" + cursor).endsWith("rel=\"next\"");
+
+        // Get the next, last page
+        restBoatMockMvc
+            .perform(get(ENTITY_API_URL + "?size=2&name.equals=" + DEFAULT_NAME + "&after=" + cursor))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.LINK))
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(third.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    void getAllBoatsWithInvalidCursor() throws Exception {
+        restBoatMockMvc.perform(get(ENTITY_API_URL + "?after=not-a-cursor")).andExpect(status().isBadRequest());
+        restBoatMockMvc.perform(get(ENTITY_API_URL + "?after=&sort=picSize,asc")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getAllBoatsWithoutCount() throws Exception {
+        // Initialize the database
+        boatRepository.saveAndFlush(boat);
+        boatRepository.saveAndFlush(createEntity(em));
+
+        restBoatMockMvc
+            .perform(get(ENTITY_API_URL + "?count=none&sort=id,asc&size=1&id.greaterThanOrEqual=" + boat.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(boat.getId().intValue())))
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(header().doesNotExist("X-Total-Count-Estimate"))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")));
+
+        restBoatMockMvc
+            .perform(get(ENTITY_API_URL + "?count=none&sort=id,asc&size=1&page=1&id.greaterThanOrEqual=" + boat.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.LINK, not(containsString("rel=\"next\""))))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"prev\"")));
+    }
+
+    @Test
+    @Transactional
+    void getAllBoatsWithEstimatedCount() throws Exception {
+        // Initialize the database
+        boatRepository.saveAndFlush(boat);
+
+        // Filtered counts are not estimated, and H2 has no planner statistics anyway: the estimate is the exact count
+        restBoatMockMvc
+            .perform(get(ENTITY_API_URL + "?count=estimate&id.equals=" + boat.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(boat.getId().intValue())))
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(header().string("X-Total-Count-Estimate", "1"));
+    }
+
+    @Test
+    @Transactional
+    void getAllBoatsWithInvalidCountMode() throws Exception {
+        restBoatMockMvc.perform(get(ENTITY_API_URL + "?count=sometimes")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getAllBoatsNotModified() throws Exception {
+        // Initialize the database
+        boatRepository.saveAndFlush(boat);
+        String url = ENTITY_API_URL + "?sort=id,desc&id.equals=" + boat.getId();
+
+        String etag = restBoatMockMvc
+            .perform(get(url))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+
+        restBoatMockMvc
+            .perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etag))
+            .andExpect(content().bytes(new byte[0]));
+        // Without a total count the paging headers differ, and so does the ETag
+        restBoatMockMvc
+            .perform(get(url + "&count=none").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+
+        // Any update of a boat of the page changes its ETag
+        BoatDTO partialUpdatedBoat = new BoatDTO();
+        partialUpdatedBoat.setId(boat.getId());
+        partialUpdatedBoat.setName(UPDATED_NAME);
+        restBoatMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, boat.getId())
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(partialUpdatedBoat))
+            )
+            .andExpect(status().isOk());
+        restBoatMockMvc
+            .perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+            .andExpect(jsonPath("$.[*].name").value(hasItem(UPDATED_NAME)));
+    }
+
+    @Test
+    @Transactional
+    void getAllBoatsModifiedByTheTotalCount() throws Exception {
+        // Initialize the database
+        boatRepository.saveAndFlush(boat);
+        String url = ENTITY_API_URL + "?sort=id,asc&size=1&id.greaterThanOrEqual=" + boat.getId();
+        String etag = restBoatMockMvc
+            .perform(get(url))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "1"))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+        String noneEtag = restBoatMockMvc
+            .perform(get(url + "&count=none"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+
+        // A boat after the page leaves the page as is, but not its paging headers
+        boatRepository.saveAndFlush(createEntity(em));
+        cacheManager.getCache(BoatService.BOAT_QUERIES_CACHE).clear();
+
+        restBoatMockMvc
+            .perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "2"))
+            .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+        restBoatMockMvc
+            .perform(get(url + "&count=none").header(HttpHeaders.IF_NONE_MATCH, noneEtag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(noneEtag)));
     }
 
     @Test
@@ -215,6 +519,30 @@ class BoatResourceIT {
             .andExpect(jsonPath("$.pic").value(Base64Utils.encodeToString(DEFAULT_PIC)));
     }
 
+    @Test
+    @Transactional
+    void getBoatNotModified() throws Exception {
+        // Initialize the database
+        boatRepository.saveAndFlush(boat);
+        String etag = "\"" + boat.getId() + "-" + boat.getVersion() + "\"";
+
+        restBoatMockMvc
+            .perform(get(ENTITY_API_URL_ID, boat.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, etag))
+            .andExpect(jsonPath("$.version").value(boat.getVersion().intValue()));
+
+        restBoatMockMvc
+            .perform(get(ENTITY_API_URL_ID, boat.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etag))
+            .andExpect(content().bytes(new byte[0]));
+
+        restBoatMockMvc
+            .perform(get(ENTITY_API_URL_ID, boat.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"" + boat.getId() + "-42\""))
+            .andExpect(status().isOk());
+    }
+
     @Test
     @Transactional
     void getBoatsByIdFiltering() throws Exception {
@@ -298,6 +626,19 @@ class BoatResourceIT {
         defaultBoatShouldNotBeFound("name.contains=" + UPDATED_NAME);
     }
 
+    @Test
+    @Transactional
+    void getAllBoatsByNameContainsSomethingIgnoringCase() throws Exception {
+        // Initialize the database
+        boat.setName("Straße " + DEFAULT_NAME);
+        boatRepository.saveAndFlush(boat);
+
+        restBoatMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=id,desc&name.contains=STRAßE"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(boat.getId().intValue())));
+    }
+
     @Test
     @Transactional
     void getAllBoatsByNameNotContainsSomething() throws Exception {
@@ -389,6 +730,42 @@ class BoatResourceIT {
         defaultBoatShouldBeFound("description.doesNotContain=" + UPDATED_DESCRIPTION);
     }
 
+    @Test
+    @Transactional
+    void getAllBoatsByFullTextSearch() throws Exception {
+        // Initialize the database
+        boatRepository.saveAndFlush(boat);
+
+        // Get all the boatList where the name or the description match DEFAULT_NAME
+        defaultBoatShouldBeFound("q=" + DEFAULT_NAME.toLowerCase());
+
+        // Get all the boatList where the name or the description match UPDATED_NAME
+        defaultBoatShouldNotBeFound("q=" + UPDATED_NAME);
+    }
+
+    @Test
+    @Transactional
+    void getAllBoatsByFullTextSearchRankedByRelevance() throws Exception {
+        // Initialize the database
+        Boat inDescription = boatRepository.saveAndFlush(createEntity(em).name("Albatross").description("Sails like a kittiwake"));
+        Boat inName = boatRepository.saveAndFlush(createEntity(em).name("Kittiwake").description("Fast and light"));
+
+        // Name matches rank above description matches when no sort is requested
+        restBoatMockMvc
+            .perform(get(ENTITY_API_URL + "?q=kittiwake"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].id").value(inName.getId().intValue()))
+            .andExpect(jsonPath("$.[1].id").value(inDescription.getId().intValue()));
+
+        // An explicit sort replaces the relevance order
+        restBoatMockMvc
+            .perform(get(ENTITY_API_URL + "?q=kittiwake&sort=id,asc"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(inDescription.getId().intValue()))
+            .andExpect(jsonPath("$.[1].id").value(inName.getId().intValue()));
+    }
+
     /**
      * Executes the search, and checks that the default entity is returned.
      */
@@ -401,7 +778,8 @@ class BoatResourceIT {
             .andExpect(jsonPath("$.[*].name").value(hasItem(DEFAULT_NAME)))
             .andExpect(jsonPath("$.[*].description").value(hasItem(DEFAULT_DESCRIPTION)))
             .andExpect(jsonPath("$.[*].picContentType").value(hasItem(DEFAULT_PIC_CONTENT_TYPE)))
-            .andExpect(jsonPath("$.[*].pic").value(hasItem(Base64Utils.encodeToString(DEFAULT_PIC))));
+            .andExpect(jsonPath("$.[*].picUrl").value(hasItem("/api/boats/" + boat.getId() + "/pic?size=thumb")))
+            .andExpect(jsonPath("$.[*].pic").value(everyItem(nullValue())));
 
         // Check, that the count call also returns 1
         restBoatMockMvc
@@ -430,6 +808,27 @@ class BoatResourceIT {
             .andExpect(content().string("0"));
     }
 
+    @Test
+    @Transactional
+    void boatCachesAreClearedOnUpdate() throws Exception {
+        // Initialize the database
+        boatRepository.saveAndFlush(boat);
+
+        restBoatMockMvc.perform(get(ENTITY_API_URL_ID, boat.getId())).andExpect(jsonPath("$.name").value(DEFAULT_NAME));
+        restBoatMockMvc.perform(get(ENTITY_API_URL + "/count?name.equals=" + UPDATED_NAME)).andExpect(content().string("0"));
+        assertThat(cacheManager.getCache(BoatService.BOATS_BY_ID_CACHE).get(boat.getId())).isNotNull();
+
+        BoatDTO boatDTO = boatPicService.toDto(boat);
+        boatDTO.setName(UPDATED_NAME);
+        restBoatMockMvc
+            .perform(put(ENTITY_API_URL_ID, boat.getId()).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(boatDTO)))
+            .andExpect(status().isOk());
+        assertThat(cacheManager.getCache(BoatService.BOATS_BY_ID_CACHE).get(boat.getId())).isNull();
+
+        restBoatMockMvc.perform(get(ENTITY_API_URL_ID, boat.getId())).andExpect(jsonPath("$.name").value(UPDATED_NAME));
+        restBoatMockMvc.perform(get(ENTITY_API_URL + "/count?name.equals=" + UPDATED_NAME)).andExpect(content().string("1"));
+    }
+
     @Test
     @Transactional
     void getNonExistingBoat() throws Exception {
@@ -449,8 +848,9 @@ class BoatResourceIT {
         Boat updatedBoat = boatRepository.findById(boat.getId()).get();
         // Disconnect from session so that the updates on updatedBoat are not directly saved in db
         em.detach(updatedBoat);
-        updatedBoat.name(UPDATED_NAME).description(UPDATED_DESCRIPTION).pic(UPDATED_PIC).picContentType(UPDATED_PIC_CONTENT_TYPE);
+        updatedBoat.name(UPDATED_NAME).description(UPDATED_DESCRIPTION).picContentType(UPDATED_PIC_CONTENT_TYPE);
         BoatDTO boatDTO = boatMapper.toDto(updatedBoat);
+        boatDTO.setPic(UPDATED_PIC);
 
         restBoatMockMvc
             .perform(
@@ -466,7 +866,7 @@ class BoatResourceIT {
         Boat testBoat = boatList.get(boatList.size() - 1);
         assertThat(testBoat.getName()).isEqualTo(UPDATED_NAME);
         assertThat(testBoat.getDescription()).isEqualTo(UPDATED_DESCRIPTION);
-        assertThat(testBoat.getPic()).isEqualTo(UPDATED_PIC);
+        assertThat(storedPic(testBoat)).isEqualTo(UPDATED_PIC);
         assertThat(testBoat.getPicContentType()).isEqualTo(UPDATED_PIC_CONTENT_TYPE);
     }
 
@@ -477,7 +877,7 @@ class BoatResourceIT {
         boat.setId(count.incrementAndGet());
 
         // Create the Boat
-        BoatDTO boatDTO = boatMapper.toDto(boat);
+        BoatDTO boatDTO = boatPicService.toDto(boat);
 
         // If the entity doesn't have an ID, it will throw BadRequestAlertException
         restBoatMockMvc
@@ -500,7 +900,7 @@ class BoatResourceIT {
         boat.setId(count.incrementAndGet());
 
         // Create the Boat
-        BoatDTO boatDTO = boatMapper.toDto(boat);
+        BoatDTO boatDTO = boatPicService.toDto(boat);
 
         // If url ID doesn't match entity ID, it will throw BadRequestAlertException
         restBoatMockMvc
@@ -523,7 +923,7 @@ class BoatResourceIT {
         boat.setId(count.incrementAndGet());
 
         // Create the Boat
-        BoatDTO boatDTO = boatMapper.toDto(boat);
+        BoatDTO boatDTO = boatPicService.toDto(boat);
 
         // If url ID doesn't match entity ID, it will throw BadRequestAlertException
         restBoatMockMvc
@@ -544,7 +944,7 @@ class BoatResourceIT {
         int databaseSizeBeforeUpdate = boatRepository.findAll().size();
 
         // Update the boat using partial update
-        Boat partialUpdatedBoat = new Boat();
+        BoatDTO partialUpdatedBoat = new BoatDTO();
         partialUpdatedBoat.setId(boat.getId());
 
         restBoatMockMvc
@@ -561,7 +961,7 @@ class BoatResourceIT {
         Boat testBoat = boatList.get(boatList.size() - 1);
         assertThat(testBoat.getName()).isEqualTo(DEFAULT_NAME);
         assertThat(testBoat.getDescription()).isEqualTo(DEFAULT_DESCRIPTION);
-        assertThat(testBoat.getPic()).isEqualTo(DEFAULT_PIC);
+        assertThat(storedPic(testBoat)).isEqualTo(DEFAULT_PIC);
         assertThat(testBoat.getPicContentType()).isEqualTo(DEFAULT_PIC_CONTENT_TYPE);
     }
 
@@ -574,10 +974,13 @@ class BoatResourceIT {
         int databaseSizeBeforeUpdate = boatRepository.findAll().size();
 
         // Update the boat using partial update
-        Boat partialUpdatedBoat = new Boat();
+        BoatDTO partialUpdatedBoat = new BoatDTO();
         partialUpdatedBoat.setId(boat.getId());
 
-        partialUpdatedBoat.name(UPDATED_NAME).description(UPDATED_DESCRIPTION).pic(UPDATED_PIC).picContentType(UPDATED_PIC_CONTENT_TYPE);
+        partialUpdatedBoat.setName(UPDATED_NAME);
+        partialUpdatedBoat.setDescription(UPDATED_DESCRIPTION);
+        partialUpdatedBoat.setPic(UPDATED_PIC);
+        partialUpdatedBoat.setPicContentType(UPDATED_PIC_CONTENT_TYPE);
 
         restBoatMockMvc
             .perform(
@@ -593,7 +996,7 @@ class BoatResourceIT {
         Boat testBoat = boatList.get(boatList.size() - 1);
         assertThat(testBoat.getName()).isEqualTo(UPDATED_NAME);
         assertThat(testBoat.getDescription()).isEqualTo(UPDATED_DESCRIPTION);
-        assertThat(testBoat.getPic()).isEqualTo(UPDATED_PIC);
+        assertThat(storedPic(testBoat)).isEqualTo(UPDATED_PIC);
         assertThat(testBoat.getPicContentType()).isEqualTo(UPDATED_PIC_CONTENT_TYPE);
     }
 
@@ -604,7 +1007,7 @@ class BoatResourceIT {
         boat.setId(count.incrementAndGet());
 
         // Create the Boat
-        BoatDTO boatDTO = boatMapper.toDto(boat);
+        BoatDTO boatDTO = boatPicService.toDto(boat);
 
         // If the entity doesn't have an ID, it will throw BadRequestAlertException
         restBoatMockMvc
@@ -627,7 +1030,7 @@ class BoatResourceIT {
         boat.setId(count.incrementAndGet());
 
         // Create the Boat
-        BoatDTO boatDTO = boatMapper.toDto(boat);
+        BoatDTO boatDTO = boatPicService.toDto(boat);
 
         // If url ID doesn't match entity ID, it will throw BadRequestAlertException
         restBoatMockMvc
@@ -650,7 +1053,7 @@ class BoatResourceIT {
         boat.setId(count.incrementAndGet());
 
         // Create the Boat
-        BoatDTO boatDTO = boatMapper.toDto(boat);
+        BoatDTO boatDTO = boatPicService.toDto(boat);
 
         // If url ID doesn't match entity ID, it will throw BadRequestAlertException
         restBoatMockMvc
@@ -662,6 +1065,163 @@ class BoatResourceIT {
         assertThat(boatList).hasSize(databaseSizeBeforeUpdate);
     }
 
+    @Test
+    @Transactional
+    void putBoatWithIfMatch() throws Exception {
+        // Initialize the database
+        boatRepository.saveAndFlush(boat);
+        long version = boat.getVersion();
+        String etag = "\"" + boat.getId() + "-" + version + "\"";
+
+        BoatDTO boatDTO = boatMapper.toDto(boat);
+        boatDTO.setName(UPDATED_NAME);
+        boatDTO.setVersion(null);
+        restBoatMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, boat.getId())
+                    .header(HttpHeaders.IF_MATCH, etag)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(boatDTO))
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + boat.getId() + "-" + (version + 1) + "\""))
+            .andExpect(jsonPath("$.version").value((int) version + 1));
+
+        // The same request is now based on a stale version
+        boatDTO.setName(DEFAULT_NAME);
+        restBoatMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, boat.getId())
+                    .header(HttpHeaders.IF_MATCH, etag)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(boatDTO))
+            )
+            .andExpect(status().isPreconditionFailed());
+
+        assertThat(boatRepository.findById(boat.getId()).orElseThrow().getName()).isEqualTo(UPDATED_NAME);
+    }
+
+    @Test
+    @Transactional
+    void putBoatWithStaleVersion() throws Exception {
+        // Initialize the database
+        boatRepository.saveAndFlush(boat);
+
+        BoatDTO boatDTO = boatMapper.toDto(boat);
+        boatDTO.setName(UPDATED_NAME);
+        boatDTO.setVersion(boat.getVersion() + 1);
+        restBoatMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, boat.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(boatDTO))
+            )
+            .andExpect(status().isConflict());
+
+        assertThat(boatRepository.findById(boat.getId()).orElseThrow().getName()).isEqualTo(DEFAULT_NAME);
+    }
+
+    @Test
+    @Transactional
+    void patchBoatWithStaleIfMatch() throws Exception {
+        // Initialize the database
+        boatRepository.saveAndFlush(boat);
+
+        BoatDTO partialUpdatedBoat = new BoatDTO();
+        partialUpdatedBoat.setId(boat.getId());
+        partialUpdatedBoat.setName(UPDATED_NAME);
+        restBoatMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, boat.getId())
+                    .header(HttpHeaders.IF_MATCH, "\"" + boat.getId() + "-" + (boat.getVersion() + 1) + "\"")
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(partialUpdatedBoat))
+            )
+            .andExpect(status().isPreconditionFailed());
+
+        restBoatMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, boat.getId())
+                    .header(HttpHeaders.IF_MATCH, "*")
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(partialUpdatedBoat))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.name").value(UPDATED_NAME));
+    }
+
+    @Test
+    @Transactional
+    void applyBoatBatch() throws Exception {
+        // Initialize the database
+        boatRepository.saveAndFlush(boat);
+        int databaseSizeBeforeBatch = boatRepository.findAll().size();
+
+        BoatDTO created = boatPicService.toDto(createUpdatedEntity(em));
+        BoatDTO invalid = new BoatDTO();
+        invalid.setDescription(DEFAULT_DESCRIPTION);
+        BoatDTO updated = boatMapper.toDto(boat);
+        updated.setName(UPDATED_NAME);
+        long unknownId = count.incrementAndGet();
+        byte[] body = TestUtil.convertObjectToJsonBytes(
+            List.of(
+                batchItem(BoatBatchItemDTO.Action.CREATE, null, created),
+                batchItem(BoatBatchItemDTO.Action.CREATE, null, invalid),
+                batchItem(BoatBatchItemDTO.Action.UPDATE, null, updated),
+                batchItem(BoatBatchItemDTO.Action.DELETE, unknownId, null),
+                batchItem(BoatBatchItemDTO.Action.CREATE, null, created)
+            )
+        );
+
+        // Applied in chunks of 2 operations with the test configuration
+        restBoatMockMvc
+            .perform(post(ENTITY_API_URL + "/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].index").value(contains(0, 1, 2, 3, 4)))
+            .andExpect(jsonPath("$.[*].status").value(contains("CREATED", "INVALID", "UPDATED", "NOT_FOUND", "CREATED")))
+            .andExpect(jsonPath("$.[1].message").value(containsString("name")))
+            .andExpect(jsonPath("$.[2].id").value(boat.getId().intValue()))
+            .andExpect(jsonPath("$.[3].id").value(unknownId));
+
+        assertThat(boatRepository.findAll()).hasSize(databaseSizeBeforeBatch + 2);
+        assertThat(boatRepository.findById(boat.getId()).get().getName()).isEqualTo(UPDATED_NAME);
+    }
+
+    @Test
+    @Transactional
+    void applyBoatBatchWithNdjson() throws Exception {
+        // Initialize the database
+        boatRepository.saveAndFlush(boat);
+        int databaseSizeBeforeBatch = boatRepository.findAll().size();
+
+        BoatDTO created = boatPicService.toDto(createUpdatedEntity(em));
+        byte[] createLine = TestUtil.convertObjectToJsonBytes(batchItem(BoatBatchItemDTO.Action.CREATE, null, created));
+        byte[] deleteLine = TestUtil.convertObjectToJsonBytes(batchItem(BoatBatchItemDTO.Action.DELETE, boat.getId(), null));
+        // The last line is truncated
+        String body =
+            new String(createLine, StandardCharsets.UTF_8) +
+            "\n" +
+            new String(deleteLine, StandardCharsets.UTF_8) +
+            "\n{\"action\": \"CREATE\",\n";
+
+        restBoatMockMvc
+            .perform(post(ENTITY_API_URL + "/batch").contentType(MediaType.APPLICATION_NDJSON).content(body))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].status").value(contains("CREATED", "DELETED", "INVALID")))
+            .andExpect(jsonPath("$.[2].index").value(2));
+
+        assertThat(boatRepository.findAll()).hasSize(databaseSizeBeforeBatch);
+        assertThat(boatRepository.findById(boat.getId())).isEmpty();
+    }
+
+    private static BoatBatchItemDTO batchItem(BoatBatchItemDTO.Action action, Long id, BoatDTO boatDTO) {
+        BoatBatchItemDTO item = new BoatBatchItemDTO();
+        item.setAction(action);
+        item.setId(id);
+        item.setBoat(boatDTO);
+        return item;
+    }
+
     @Test
     @Transactional
     void deleteBoat() throws Exception {
@@ -679,4 +1239,25 @@ class BoatResourceIT {
         List<Boat> boatList = boatRepository.findAll();
         assertThat(boatList).hasSize(databaseSizeBeforeDelete - 1);
     }
+
+    @Test
+    @Transactional
+    void identicalPicsAreStoredOnce() throws Exception {
+        // Initialize the database with two boats sharing the same picture
+        boatRepository.saveAndFlush(boat);
+        Boat otherBoat = createEntity(em);
+        boatPicService.attach(otherBoat, DEFAULT_PIC);
+        boatRepository.saveAndFlush(otherBoat);
+
+        assertThat(otherBoat.getPicHash()).isEqualTo(boat.getPicHash());
+        assertThat(otherBoat.getPicSize()).isEqualTo(DEFAULT_PIC.length);
+
+        // Deleting one boat keeps the shared picture
+        restBoatMockMvc.perform(delete(ENTITY_API_URL_ID, boat.getId())).andExpect(status().isNoContent());
+        assertThat(imageStore.exists(otherBoat.getPicHash())).isTrue();
+
+        // Deleting the last boat referencing the picture releases it
+        restBoatMockMvc.perform(delete(ENTITY_API_URL_ID, otherBoat.getId())).andExpect(status().isNoContent());
+        assertThat(imageStore.exists(otherBoat.getPicHash())).isFalse();
+    }
 }
@@ -0,0 +1,49 @@
+package com.openwt.boatapp.web.rest;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.openwt.boatapp.IntegrationTest;
+import com.openwt.boatapp.security.jwt.JwtKeyRing;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration tests for the {@link JwksResource} REST controller.
+ */
+@AutoConfigureMockMvc
+@IntegrationTest
+class JwksResourceIT {
+
+    @Autowired
+    private JwtKeyRing keyRing;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void testGetJwks() throws Exception {
+        String kid = keyRing.getSigningKey().getKid();
+
+        mockMvc
+            .perform(get("/.well-known/jwks.json"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=300, public"))
+            .andExpect(jsonPath("$.keys[*].kid").value(hasItem(kid)))
+            .andExpect(jsonPath("$.keys[0].kty").value("EC"))
+            .andExpect(jsonPath("$.keys[0].crv").value("P-256"))
+            .andExpect(jsonPath("$.keys[0].alg").value("ES256"))
+            .andExpect(jsonPath("$.keys[0].use").value("sig"))
+            .andExpect(jsonPath("$.keys[0].x").isString())
+            .andExpect(jsonPath("$.keys[0].y").isString());
+    }
+}
@@ -0,0 +1,87 @@
+package com.openwt.boatapp.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import com.openwt.boatapp.config.AsyncConfiguration;
+import com.openwt.boatapp.security.jwt.TokenProvider;
+import com.openwt.boatapp.service.RefreshTokenService;
+import com.openwt.boatapp.web.rest.vm.LoginVM;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.task.TaskExecutionProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
+
+/**
+ * Unit tests for the {@link UserJWTController} REST controller, with a saturated authentication executor.
+ */
+class UserJWTControllerTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AuthenticationManagerBuilder authenticationManagerBuilder = mock(AuthenticationManagerBuilder.class);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private ExecutorService authenticationExecutor;
+
+    private UserJWTController controller;
+
+    @BeforeEach
+    public void setup() throws InterruptedException {
+        AsyncConfiguration asyncConfiguration = new AsyncConfiguration(new TaskExecutionProperties(), new MockEnvironment(), 1, 0, 0, 0);
+        authenticationExecutor = (ExecutorService) asyncConfiguration.authenticationExecutor(meterRegistry);
+        controller =
+            new UserJWTController(
+                mock(TokenProvider.class),
+                authenticationManagerBuilder,
+                authenticationExecutor,
+                mock(RefreshTokenService.class)
+            );
+
+        // Hold the only thread of the executor, which has no queue
+        CountDownLatch started = new CountDownLatch(1);
+        authenticationExecutor.execute(
+            () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        );
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        authenticationExecutor.shutdown();
+    }
+
+    @Test
+    void testAuthorizeWhenSaturated() {
+        LoginVM login = new LoginVM();
+        login.setUsername("user-jwt-controller");
+        login.setPassword("test");
+
+        ResponseEntity<?> response = controller.authorize(login).join();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(meterRegistry.get("boatapp.authentication.rejected").counter().count()).isEqualTo(1);
+        verifyNoInteractions(authenticationManagerBuilder);
+    }
+}